@@ -0,0 +1,9 @@
+package exceptions;
+
+// Represents an exception that is thrown when a match to be added is not valid
+public class MatchInvalidException extends Exception {
+    // EFFECTS: Constructs a new MatchInvalidException with no detail message
+    public MatchInvalidException() {
+        super();
+    }
+}
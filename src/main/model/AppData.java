@@ -1,26 +1,94 @@
 package model;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import persistence.JsonTokenWriter;
+import persistence.StoreJournal;
 import persistence.Writable;
 import persistence.Readable;
 import exceptions.*;
 
-// Represents the application data to be tracked by the application
+// Represents the application data to be tracked by the application. Any number of threads may query an app data
+// while one thread changes it: every change to the app data or its players and rosters holds the write lock, every
+// query holds the read lock, and the live lists returned by getPlayers and getRosters are only safe to use from the
+// changing thread or inside read. Matches are held in a persistent list that each change replaces, so the list
+// returned by getMatches never changes. Readers that only need the lists can instead take the snapshot published
+// when each change finishes, which needs no lock at all.
 public class AppData implements Writable, Readable {
+    private static final Comparator<Roster> ROSTER_ORDER = Comparator.comparingLong(Roster::getIndexOrder);
+    private static final TreeSet<Roster> EMPTY_ROSTERS = new TreeSet<>(ROSTER_ORDER);
+    private final StampedLock lock = new StampedLock();
+    private final ThreadLocal<Boolean> lockHeld = ThreadLocal.withInitial(() -> false);
     private ArrayList<Player> players;
     private ArrayList<Roster> rosters;
-    private ArrayList<Match> matches;
+    private PersistentVector<Match> matches;
+    private PersistentVector<Player> sharedPlayers;
+    private PersistentVector<Roster> sharedRosters;
+    private final AtomicReference<AppDataSnapshot> snapshot;
+    private final HashMap<String, Player> playersByUsername;
+    private final HashMap<Integer, Player> playersById;
+    private final HashMap<String, Roster> rostersById;
+    private final HashMap<Integer, Match> matchesById;
+    private final IdentityHashMap<Player, MatchIdList> matchIdsByPlayer;
+    private final HashMap<String, MatchIdList> matchIdsByRoster;
+    private final IdentityHashMap<Player, TreeSet<Roster>> rostersByPlayer;
+    private final HashMap<BitSet, ArrayList<Roster>> rostersByMembers;
+    private final LineupPool lineups;
+    private final SymbolTable rosterIds;
+    private final SymbolTable mapNames;
+    private long nextRosterOrder;
+    private int nextPlayerId;
+    private PerformanceColumns performances;
     private int nextMatchId;
+    private StoreJournal journal;
+    private long journalSequence;
 
     // EFFECTS: Constructs a new AppData object with empty players, rosters, and matches, and nextMatchId = 0
     public AppData() {
         this.players = new ArrayList<>();
         this.rosters = new ArrayList<>();
-        this.matches = new ArrayList<>();
+        this.matches = PersistentVector.empty();
+        this.sharedPlayers = PersistentVector.empty();
+        this.sharedRosters = PersistentVector.empty();
+        this.playersByUsername = new HashMap<>();
+        this.playersById = new HashMap<>();
+        this.rostersById = new HashMap<>();
+        this.matchesById = new HashMap<>();
+        this.matchIdsByPlayer = new IdentityHashMap<>();
+        this.matchIdsByRoster = new HashMap<>();
+        this.rostersByPlayer = new IdentityHashMap<>();
+        this.rostersByMembers = new HashMap<>();
+        this.lineups = new LineupPool();
+        this.rosterIds = new SymbolTable();
+        this.mapNames = new SymbolTable();
+        this.performances = new PerformanceColumns();
         nextMatchId = 0;
+        this.snapshot = new AtomicReference<>(takeSnapshot());
     }
 
     public ArrayList<Player> getPlayers() {
@@ -31,55 +99,364 @@ public class AppData implements Writable, Readable {
         return rosters;
     }
 
-    public ArrayList<Match> getMatches() {
+    public List<Match> getMatches() {
         return matches;
     }
 
     public int getNextMatchId() {
-        return nextMatchId;
+        return (int) readOptimistically(() -> nextMatchId);
+    }
+
+    public StoreJournal getJournal() {
+        return read(() -> journal);
+    }
+
+    public long getJournalSequence() {
+        return readOptimistically(() -> journalSequence);
+    }
+
+    // EFFECTS: Returns the players, rosters and matches as they were when the last change to this app data finished,
+    //          without locking
+    public AppDataSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    // EFFECTS: Returns a copy of players, taken while no change is in progress
+    public ArrayList<Player> snapshotPlayers() {
+        return read(() -> new ArrayList<>(players));
+    }
+
+    // EFFECTS: Returns a copy of rosters, taken while no change is in progress
+    public ArrayList<Roster> snapshotRosters() {
+        return read(() -> new ArrayList<>(rosters));
+    }
+
+    // EFFECTS: Returns a copy of matches, taken while no change is in progress
+    public ArrayList<Match> snapshotMatches() {
+        return read(() -> new ArrayList<>(matches));
+    }
+
+    // REQUIRES: query does not change this app data or its players and rosters, and does not call any method of
+    //           this app data or its players that changes them
+    // EFFECTS: Returns the result of query, run while no change to this app data or its players and rosters is in
+    //          progress, so that everything query reads is consistent. Queries may run concurrently, and a query run
+    //          by a thread already holding the lock runs under the lock it holds.
+    public <T> T read(Supplier<T> query) {
+        if (lockHeld.get()) {
+            return query.get();
+        }
+
+        long stamp = lockRead();
+        try {
+            return query.get();
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    // REQUIRES: query is as for read. If the calling thread already holds the read lock, no player has deferred match
+    //           stats.
+    // EFFECTS: Same as read(query), but first decodes the deferred match stats of every player, so query may read
+    //          any player's match stats
+    public <T> T readDecoded(Supplier<T> query) {
+        return readDecoded(players, query);
+    }
+
+    // REQUIRES: the players in decode belong to this app data, query is as for read. If the calling thread already
+    //           holds the read lock, none of the players in decode has deferred match stats.
+    // EFFECTS: Same as read(query), but first decodes the deferred match stats of the players in decode. Decoding
+    //          changes the players and the shared performance rows, so it runs under the write lock, with the read
+    //          lock converted to it if that can be done at once and otherwise released and taken again as it.
+    private <T> T readDecoded(Collection<Player> decode, Supplier<T> query) {
+        if (lockHeld.get()) {
+            decodeAll(decode);
+            return query.get();
+        }
+
+        long stamp = lockReadDecoded(decode);
+        try {
+            return query.get();
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    // REQUIRES: player belongs to owner if owner is not null, query is as for read
+    // EFFECTS: Returns the result of query, run as owner.readDecoded would run it for player alone, or run directly
+    //          once player's deferred match stats are decoded if owner is null
+    static <T> T readDecoded(AppData owner, Player player, Supplier<T> query) {
+        if (owner == null) {
+            player.decodePendingMatchStats();
+            return query.get();
+        }
+        return owner.readDecoded(Collections.singletonList(player), query);
+    }
+
+    // REQUIRES: the calling thread does not hold the lock, the players in decode belong to this app data
+    // EFFECTS: Takes the read lock, or the write lock if any player in decode has deferred match stats, decodes them
+    //          and returns the stamp of the lock held. The lock is released again if decoding fails.
+    private long lockReadDecoded(Collection<Player> decode) {
+        long stamp = lockRead();
+        if (decode.stream().noneMatch(Player::hasPendingMatchStats)) {
+            return stamp;
+        }
+
+        long converted = lock.tryConvertToWriteLock(stamp);
+        if (converted == 0L) {
+            lock.unlockRead(stamp);
+            converted = lock.writeLock();
+        }
+        try {
+            decodeAll(decode);
+        } catch (RuntimeException e) {
+            unlock(converted);
+            throw e;
+        }
+        return converted;
+    }
+
+    // EFFECTS: Takes the read lock, notes that the calling thread holds it and returns its stamp
+    private long lockRead() {
+        long stamp = lock.readLock();
+        lockHeld.set(true);
+        return stamp;
+    }
+
+    // EFFECTS: Takes the write lock, notes that the calling thread holds it and returns its stamp
+    private long lockWrite() {
+        long stamp = lock.writeLock();
+        lockHeld.set(true);
+        return stamp;
+    }
+
+    // REQUIRES: stamp is the stamp of a lock held by the calling thread
+    // EFFECTS: Notes that the calling thread no longer holds the lock and releases it
+    private void unlock(long stamp) {
+        lockHeld.set(false);
+        lock.unlock(stamp);
+    }
+
+    // EFFECTS: Returns the value field reads, read without locking unless a change was in progress or made while it
+    //          was read, in which case it is read again under the read lock. A thread already holding the lock
+    //          reads the field directly.
+    private long readOptimistically(LongSupplier field) {
+        if (lockHeld.get()) {
+            return field.getAsLong();
+        }
+        long stamp = lock.tryOptimisticRead();
+        long value = field.getAsLong();
+        if (!lock.validate(stamp)) {
+            stamp = lockRead();
+            try {
+                value = field.getAsLong();
+            } finally {
+                unlock(stamp);
+            }
+        }
+        return value;
+    }
+
+    // REQUIRES: update does not call any method of this app data or its players and rosters that changes them
+    // MODIFIES: this
+    // EFFECTS: Runs update while holding the write lock, so no query or other change runs alongside it
+    void write(Runnable update) {
+        long stamp = lockWrite();
+        try {
+            update.run();
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    // REQUIRES: stamp is the write lock stamp held by the calling thread
+    // MODIFIES: this
+    // EFFECTS: Publishes a snapshot of the current players, rosters and matches, then releases the write lock
+    private void publishAndUnlock(long stamp) {
+        try {
+            snapshot.set(takeSnapshot());
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    // EFFECTS: Returns a snapshot sharing the current persistent lists and holding the current counters
+    private AppDataSnapshot takeSnapshot() {
+        return new AppDataSnapshot(sharedPlayers, sharedRosters, matches, nextMatchId, journalSequence);
+    }
+
+    // MODIFIES: owner
+    // EFFECTS: Runs update while holding owner's write lock, or directly if owner is null
+    static void writeLocked(AppData owner, Runnable update) {
+        if (owner == null) {
+            update.run();
+        } else {
+            owner.write(update);
+        }
+    }
+
+    // REQUIRES: journalSequence >= 0
+    // MODIFIES: this
+    // EFFECTS: Sets the sequence number of the last journal record reflected in this app data
+    public void setJournalSequence(long journalSequence) {
+        write(() -> this.journalSequence = journalSequence);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the journal that mutations of this app data and its players and rosters are recorded to,
+    //          or stops recording if journal is null
+    public void setJournal(StoreJournal journal) {
+        write(() -> this.journal = journal);
     }
 
     // REQUIRES: username is not null
     // EFFECTS: Returns Player with username, throws PlayerNotFoundException if not found
     public Player getPlayerByUsername(String username) throws PlayerNotFoundException {
-        for (Player player : players) {
-            if (player.getUsername().equals(username)) {
-                return player;
-            }
+        Player player = read(() -> playersByUsername.get(username));
+
+        if (player == null) {
+            throw new PlayerNotFoundException();
         }
+        return player;
+    }
 
-        throw new PlayerNotFoundException();
+    // EFFECTS: Returns Player with id, throws PlayerNotFoundException if not found
+    public Player getPlayerById(int id) throws PlayerNotFoundException {
+        Player player = read(() -> playersById.get(id));
+
+        if (player == null) {
+            throw new PlayerNotFoundException();
+        }
+        return player;
     }
 
     // REQUIRES: id is not null
     // EFFECTS: Returns Roster with id, throws RosterNotFoundException if not found
     public Roster getRosterById(String id) throws RosterNotFoundException {
-        for (Roster roster : rosters) {
-            if (roster.getId().equals(id)) {
-                return roster;
-            }
-        }
+        Roster roster = read(() -> rostersById.get(id));
 
-        throw new RosterNotFoundException();
+        if (roster == null) {
+            throw new RosterNotFoundException();
+        }
+        return roster;
     }
 
     // REQUIRES: matchId is not null
     // EFFECTS: Returns Match with matchId, throws MatchNotFoundException if not found
     public Match getMatchById(int matchId) throws MatchNotFoundException {
-        for (Match match : matches) {
-            if (match.getMatchId() == matchId) {
-                return match;
+        Match match = read(() -> matchesById.get(matchId));
+
+        if (match == null) {
+            throw new MatchNotFoundException();
+        }
+        return match;
+    }
+
+    // REQUIRES: players is not null
+    // EFFECTS: Returns the first added roster whose players are exactly those in players, ignoring order and
+    //          repeats, throws RosterNotFoundException if there is none
+    public Roster getRosterByPlayers(Collection<Player> players) throws RosterNotFoundException {
+        Roster roster = read(() -> {
+            BitSet wanted = membersOf(players);
+            ArrayList<Roster> sameMembers = wanted == null ? null : rostersByMembers.get(wanted);
+            return sameMembers == null ? null : Collections.min(sameMembers, ROSTER_ORDER);
+        });
+
+        if (roster == null) {
+            throw new RosterNotFoundException();
+        }
+        return roster;
+    }
+
+    // REQUIRES: required is not null
+    // EFFECTS: Returns the rosters that have every player in required on them, in the order they were added
+    public ArrayList<Roster> getRostersWithAllPlayers(Collection<Player> required) {
+        return read(() -> rostersWithAllPlayers(required));
+    }
+
+    // REQUIRES: required is not null
+    // EFFECTS: Returns the rosters that have every player in required on them, in the order they were added
+    private ArrayList<Roster> rostersWithAllPlayers(Collection<Player> required) {
+        BitSet wanted = membersOf(required);
+        if (wanted == null) {
+            return new ArrayList<>();
+        }
+
+        Collection<Roster> candidates = rosters;
+        for (Player player : required) {
+            Collection<Roster> playerRosters = rostersByPlayer.getOrDefault(player, EMPTY_ROSTERS);
+            if (playerRosters.size() < candidates.size()) {
+                candidates = playerRosters;
+            }
+        }
+
+        ArrayList<Roster> matching = new ArrayList<>();
+        for (Roster roster : candidates) {
+            BitSet missing = (BitSet) wanted.clone();
+            missing.andNot(roster.getMembers());
+            if (missing.isEmpty()) {
+                matching.add(roster);
+            }
+        }
+        return matching;
+    }
+
+    // EFFECTS: Returns the member set holding the ordinals of selected, or null if one of them is not in players
+    private BitSet membersOf(Collection<Player> selected) {
+        BitSet members = new BitSet(players.size());
+        for (Player player : selected) {
+            if (!ownsPlayer(player)) {
+                return null;
             }
+            members.set(player.getOrdinal());
         }
+        return members;
+    }
+
+    // REQUIRES: player is not null
+    // EFFECTS: Returns a read-only list of the rosters in rosters that have player on them, in the order they were
+    //          added
+    public Collection<Roster> getRostersForPlayer(Player player) {
+        return read(() -> Collections.unmodifiableList(
+                new ArrayList<>(rostersByPlayer.getOrDefault(player, EMPTY_ROSTERS))));
+    }
+
+    // REQUIRES: player is not null
+    // EFFECTS: Returns the ids of the matches player played, in ascending order
+    public int[] getMatchIdsForPlayer(Player player) {
+        return read(() -> toArray(matchIdsByPlayer.get(player)));
+    }
+
+    // REQUIRES: roster is not null
+    // EFFECTS: Returns the ids of the matches recorded as played by a roster with roster's id, in ascending order
+    public int[] getMatchIdsForRoster(Roster roster) {
+        return read(() -> toArray(matchIdsByRoster.get(roster.getId())));
+    }
 
-        throw new MatchNotFoundException();
+    // EFFECTS: Returns the match ids in matchIds, or none if matchIds is null
+    private static int[] toArray(MatchIdList matchIds) {
+        return matchIds == null ? new int[0] : matchIds.toArray();
+    }
+
+    // REQUIRES: player is not null
+    // EFFECTS: Returns the matches player played, in ascending match id order
+    public ArrayList<Match> getMatchesForPlayer(Player player) {
+        return read(() -> {
+            ArrayList<Match> played = new ArrayList<>();
+            for (int matchId : toArray(matchIdsByPlayer.get(player))) {
+                played.add(matchesById.get(matchId));
+            }
+            return played;
+        });
     }
 
     // REQUIRES: username is not null or empty
     // MODIFIES: this
     // EFFECTS: Creates Player with provided username and adds created Player to players
     public void addPlayer(String username) {
-        players.add(new Player(username));
+        write(() -> {
+            indexPlayer(new Player(username));
+            recordMutation(new JSONObject().put("op", "addPlayer").put("username", username));
+        });
 
         EventLog.getInstance().logEvent(new Event("Player created with username \"" + username + "\""));
     }
@@ -88,75 +465,848 @@ public class AppData implements Writable, Readable {
     // MODIFIES: this
     // EFFECTS: Creates Roster with provided data and adds created Roster to rosters
     public void addRoster(String id, ArrayList<Player> playersArrayList) {
-        rosters.add(new Roster(id, playersArrayList));
+        JSONArray usernames = new JSONArray();
+        for (Player player : playersArrayList) {
+            usernames.put(player.getUsername());
+        }
+
+        write(() -> {
+            indexRoster(new Roster(id, playersArrayList));
+            recordMutation(new JSONObject().put("op", "addRoster").put("id", id).put("players", usernames));
+        });
     }
 
     // REQUIRES: roster is not null and is in rosters
     // MODIFIES: this
-    // EFFECTS: Deletes Roster from rosters
+    // EFFECTS: Deletes Roster from rosters. The matches it played keep their results but no longer name a roster,
+    //          so a roster later created with the same id does not take them over.
     public void deleteRoster(Roster roster) {
-        rosters.remove(roster);
+        write(() -> {
+            int index = rosters.indexOf(roster);
+            rosters.remove(index);
+            sharedRosters = sharedRosters.without(index);
+            if (rostersById.remove(roster.getId(), roster)) {
+                detachMatches(roster.getId());
+            }
+            unindexMembers(roster);
+            for (Player player : roster.getPlayers()) {
+                removePlayerRoster(player, roster);
+            }
+            roster.setOwner(null);
+
+            recordMutation(new JSONObject().put("op", "deleteRoster").put("id", roster.getId()));
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Drops the match id list under rosterId and puts a copy naming no roster in place of each match in it
+    private void detachMatches(String rosterId) {
+        MatchIdList matchIds = matchIdsByRoster.remove(rosterId);
+        for (int matchId : toArray(matchIds)) {
+            Match match = matchesById.get(matchId);
+            replaceMatch(match, new Match(matchId, (String) null, match.getPlayers(), match.getRoundsWon(),
+                    match.getRoundsLost(), match.getMap()));
+        }
     }
 
     // REQUIRES: roster is in rosters, 16 >= wonRounds >= 0, 16 >= lostRounds >= 0
     // MODIFIES: this
     // EFFECTS: Creates Match, adds match to matches, and adjusts player and roster stats accordingly
     public void addMatch(Roster roster, int wonRounds, int lostRounds, String map) {
-        matches.add(new Match(nextMatchId, roster, wonRounds, lostRounds, map));
+        write(() -> addRosterMatch(roster, wonRounds, lostRounds, map));
+    }
+
+    // REQUIRES: roster is in rosters, 16 >= wonRounds >= 0, 16 >= lostRounds >= 0
+    // MODIFIES: this
+    // EFFECTS: Creates Match, adds match to matches, and adjusts player and roster stats accordingly
+    private void addRosterMatch(Roster roster, int wonRounds, int lostRounds, String map) {
+        indexMatch(new Match(nextMatchId, roster.getId(), lineups.intern(roster.getPlayers()), wonRounds, lostRounds,
+                map));
+        recordMutation(new JSONObject().put("op", "addMatch").put("matchId", nextMatchId).put("roster", roster.getId())
+                .put("roundsWon", wonRounds).put("roundsLost", lostRounds).put("map", map));
         nextMatchId++;
 
-        int totalRounds = wonRounds + lostRounds;
+        int[] results = matchResults(wonRounds, lostRounds);
+        roster.addMatchResults(results[0], results[1], results[2], results[3]);
+        for (Player player : roster.getPlayers()) {
+            player.addMatchResults(results[0], results[1], results[2], results[3]);
+        }
+    }
 
-        roster.incrementGamesPlayed();
-        roster.incrementRoundsPlayed(totalRounds);
+    // REQUIRES: descriptors is not null
+    // MODIFIES: this
+    // EFFECTS: Adds a match for each descriptor in order, with contiguous ids starting at nextMatchId, and sets the
+    //          stats of each descriptor's players for it. Player and roster results are added once per roster for
+    //          the whole batch. Throws MatchInvalidException and changes nothing if any descriptor is invalid.
+    public void addMatches(Collection<MatchDescriptor> descriptors) throws MatchInvalidException {
+        long stamp = lockWrite();
+        try {
+            for (MatchDescriptor descriptor : descriptors) {
+                checkMatch(descriptor);
+            }
+            addCheckedMatches(descriptors);
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    // REQUIRES: every descriptor in descriptors is valid
+    // MODIFIES: this
+    // EFFECTS: Adds a match for each descriptor as addMatches does
+    private void addCheckedMatches(Collection<MatchDescriptor> descriptors) {
+        IdentityHashMap<Roster, Lineup> rosterLineups = new IdentityHashMap<>();
+        IdentityHashMap<Roster, int[]> results = new IdentityHashMap<>();
+        for (MatchDescriptor descriptor : descriptors) {
+            Roster roster = descriptor.getRoster();
+            Lineup lineup = rosterLineups.computeIfAbsent(roster, r -> lineups.intern(r.getPlayers()));
+            addDescribedMatch(descriptor, lineup);
+
+            int[] batch = results.computeIfAbsent(roster, r -> new int[4]);
+            int[] match = matchResults(descriptor.getRoundsWon(), descriptor.getRoundsLost());
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] += match[i];
+            }
+        }
+
+        for (Map.Entry<Roster, int[]> entry : results.entrySet()) {
+            int[] batch = entry.getValue();
+            entry.getKey().addMatchResults(batch[0], batch[1], batch[2], batch[3]);
+            for (Player player : rosterLineups.get(entry.getKey())) {
+                player.addMatchResults(batch[0], batch[1], batch[2], batch[3]);
+            }
+        }
+    }
 
+    // REQUIRES: descriptor is valid, lineup holds the players of descriptor's roster
+    // MODIFIES: this
+    // EFFECTS: Adds the match descriptor describes with id nextMatchId and lineup as its players, and sets the
+    //          stats of its players, without adjusting player or roster results
+    private void addDescribedMatch(MatchDescriptor descriptor, Lineup lineup) {
+        int matchId = nextMatchId++;
+        indexMatch(new Match(matchId, descriptor.getRoster().getId(), lineup, descriptor.getRoundsWon(),
+                descriptor.getRoundsLost(), descriptor.getMap()));
+        recordMutation(new JSONObject().put("op", "addMatch").put("matchId", matchId)
+                .put("roster", descriptor.getRoster().getId()).put("roundsWon", descriptor.getRoundsWon())
+                .put("roundsLost", descriptor.getRoundsLost()).put("map", descriptor.getMap()));
+
+        for (Map.Entry<Player, MatchPerformance> entry : descriptor.getPlayerStats().entrySet()) {
+            MatchPerformance perf = entry.getValue();
+            entry.getKey().applyMatchStats(matchId, perf.getTotalDamageDealt(), perf.getTotalPoints(),
+                    perf.getTotalKills(), perf.getTotalAssists(), perf.getTotalDeaths(),
+                    perf.getMostValuablePlayerAwards());
+        }
+    }
+
+    // EFFECTS: Throws MatchInvalidException unless descriptor names a roster in rosters, rounds from 0 to 16 and a
+    //          map, and only has stats for players on its roster
+    private void checkMatch(MatchDescriptor descriptor) throws MatchInvalidException {
+        Roster roster = descriptor.getRoster();
+        if (roster == null || (rostersById.get(roster.getId()) != roster && !rosters.contains(roster))
+                || descriptor.getMap() == null || !isValidRounds(descriptor.getRoundsWon())
+                || !isValidRounds(descriptor.getRoundsLost())) {
+            throw new MatchInvalidException();
+        }
+
+        for (Map.Entry<Player, MatchPerformance> entry : descriptor.getPlayerStats().entrySet()) {
+            if (entry.getValue() == null || !roster.hasPlayer(entry.getKey())) {
+                throw new MatchInvalidException();
+            }
+        }
+    }
+
+    // EFFECTS: Returns true if rounds is a possible number of rounds for one side to win in a match
+    private static boolean isValidRounds(int rounds) {
+        return rounds >= 0 && rounds <= 16;
+    }
+
+    // EFFECTS: Returns the games played, rounds played, wins and losses a match with the provided rounds adds to
+    //          the results of each player and the roster that played it
+    private static int[] matchResults(int wonRounds, int lostRounds) {
+        return new int[] {1, wonRounds + lostRounds, wonRounds > lostRounds ? 1 : 0, wonRounds < lostRounds ? 1 : 0};
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Deletes the match with matchId, taking its results off the roster that played it if that roster
+    //          still exists and off each player who played it, and removing every player's stats for it, since
+    //          stats can be set for players outside the lineup and the id is given out again if it was the latest.
+    //          Throws MatchNotFoundException and changes nothing if there is no such match.
+    public void deleteMatch(int matchId) throws MatchNotFoundException {
+        long stamp = lockWrite();
+        try {
+            Match match = matchesById.get(matchId);
+            if (match == null) {
+                throw new MatchNotFoundException();
+            }
+
+            unindexMatch(match);
+            int[] results = matchResults(match.getRoundsWon(), match.getRoundsLost());
+            changeResults(match, new int[] {-results[0], -results[1], -results[2], -results[3]});
+            for (Player player : players) {
+                player.removeMatchStats(matchId);
+            }
+            recordMutation(new JSONObject().put("op", "deleteMatch").put("matchId", matchId));
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Corrects the rounds won and lost of the match with matchId, adjusting the results of the roster that
+    //          played it, if that roster still exists, and of each player who played it by the difference. Throws
+    //          MatchNotFoundException if there is no such match and MatchInvalidException if either number of rounds
+    //          is outside 0 to 16, changing nothing in either case.
+    public void editMatchResult(int matchId, int roundsWon, int roundsLost) throws MatchNotFoundException,
+            MatchInvalidException {
+        long stamp = lockWrite();
+        try {
+            Match match = matchesById.get(matchId);
+            if (match == null) {
+                throw new MatchNotFoundException();
+            } else if (!isValidRounds(roundsWon) || !isValidRounds(roundsLost)) {
+                throw new MatchInvalidException();
+            }
+
+            Match edited = new Match(matchId, match.getRosterId(), match.getPlayers(), roundsWon, roundsLost,
+                    match.getMap());
+            replaceMatch(match, edited);
+            int[] before = matchResults(match.getRoundsWon(), match.getRoundsLost());
+            int[] after = matchResults(roundsWon, roundsLost);
+            changeResults(match, new int[] {0, after[1] - before[1], after[2] - before[2], after[3] - before[3]});
+            recordMutation(new JSONObject().put("op", "editMatchResult").put("matchId", matchId)
+                    .put("roundsWon", roundsWon).put("roundsLost", roundsLost));
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds change, in the order of matchResults, to the results of the roster that played match and of
+    //          each player who played it. A deleted roster's matches no longer carry its id, so the roster match's id
+    //          names is the one that played it, and there is none once that roster has been deleted.
+    private void changeResults(Match match, int[] change) {
+        Roster roster = match.getRosterId() == null ? null : rostersById.get(match.getRosterId());
+        if (roster != null) {
+            roster.addMatchResults(change[0], change[1], change[2], change[3]);
+        }
+        for (Player player : match.getPlayers()) {
+            player.addMatchResults(change[0], change[1], change[2], change[3]);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes all players, rosters and matches and resets nextMatchId to 0
+    public void clear() {
+        write(this::reset);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes all players, rosters and matches, forgets the maps they were played on and resets nextMatchId
+    //          to 0, releasing the stores that removed players' undecoded match stats were left in
+    private void reset() {
+        for (Player player : players) {
+            player.discardPendingMatchStats();
+        }
+        players = new ArrayList<>();
+        rosters = new ArrayList<>();
+        matches = PersistentVector.empty();
+        sharedPlayers = PersistentVector.empty();
+        sharedRosters = PersistentVector.empty();
+        playersByUsername.clear();
+        playersById.clear();
+        nextPlayerId = 0;
+        rostersById.clear();
+        matchesById.clear();
+        matchIdsByPlayer.clear();
+        matchIdsByRoster.clear();
+        rostersByPlayer.clear();
+        rostersByMembers.clear();
+        lineups.clear();
+        rosterIds.clear();
+        mapNames.clear();
+        performances = new PerformanceColumns();
+        nextMatchId = 0;
+        journalSequence = 0;
+    }
+
+    // REQUIRES: player is not null and has its stored stats loaded
+    // MODIFIES: this, player
+    // EFFECTS: Adds a player read from a store to players without logging a creation event. Throws
+    //          AppDataInvalidException and changes nothing if another player already has player's id.
+    public void loadPlayer(Player player) throws AppDataInvalidException {
+        long stamp = lockWrite();
+        try {
+            indexPlayer(checkPlayerId(player));
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    // REQUIRES: roster is not null and has its stored stats loaded
+    // MODIFIES: this
+    // EFFECTS: Adds a roster read from a store to rosters without adjusting any stats
+    public void loadRoster(Roster roster) {
+        write(() -> indexRoster(roster));
+    }
+
+    // REQUIRES: match is not null
+    // MODIFIES: this
+    // EFFECTS: Adds a match read from a store to matches without adjusting any stats and updates nextMatchId
+    public void loadMatch(Match match) {
+        write(() -> {
+            indexMatch(match);
+            nextMatchId = Math.max(matches.size(), Math.max(nextMatchId, match.getMatchId() + 1));
+        });
+    }
+
+    // REQUIRES: map is not null
+    // MODIFIES: this
+    // EFFECTS: Returns the damage dealt per round played across every player in matches on map, or 0 if no player
+    //          has stats for a match on map, decoding any deferred match stats
+    public double getAverageDamagePerRound(String map) {
+        return readDecoded(players, () -> {
+            int mapCode = mapNames.find(map);
+            int[] roundsByMatch = new int[nextMatchId];
+            for (Match match : matches) {
+                int matchId = match.getMatchId();
+                if (match.getMapCode() == mapCode && matchId >= 0 && matchId < nextMatchId) {
+                    roundsByMatch[matchId] = match.getTotalRounds();
+                }
+            }
+            return performances.averagePerRound(PerformanceStat.DAMAGE, roundsByMatch);
+        });
+    }
+
+    // REQUIRES: stat is not null
+    // MODIFIES: this
+    // EFFECTS: Returns a summary of stat over the match stats of every player, decoding any deferred match stats
+    public StatSummary summarizeStat(PerformanceStat stat) {
+        return readDecoded(players, () -> performances.summarize(stat));
+    }
+
+    // REQUIRES: stat and map are not null
+    // MODIFIES: this
+    // EFFECTS: Returns a summary of stat over the match stats of every player in matches on map, decoding any
+    //          deferred match stats
+    public StatSummary summarizeStatOnMap(PerformanceStat stat, String map) {
+        return readDecoded(players, () -> {
+            int mapCode = mapNames.find(map);
+            boolean[] matchFilter = new boolean[nextMatchId];
+            for (Match match : matches) {
+                int matchId = match.getMatchId();
+                if (match.getMapCode() == mapCode && matchId >= 0 && matchId < nextMatchId) {
+                    matchFilter[matchId] = true;
+                }
+            }
+            return performances.summarizeMatches(stat, matchFilter);
+        });
+    }
+
+    // REQUIRES: stat and roster are not null, roster's players are in players
+    // MODIFIES: this
+    // EFFECTS: Returns a summary of stat over the match stats of roster's players in matches played by exactly
+    //          roster's players, decoding any deferred match stats. Matches share pooled lineups, so each distinct
+    //          lineup is compared with the roster's members only once.
+    public StatSummary summarizeStatForRoster(PerformanceStat stat, Roster roster) {
+        return readDecoded(roster.getPlayers(), () -> {
+            BitSet members = roster.getMembers();
+            IdentityHashMap<Lineup, Boolean> sameMembers = new IdentityHashMap<>();
+            boolean[] matchFilter = new boolean[nextMatchId];
+            for (Match match : matches) {
+                int matchId = match.getMatchId();
+                if (matchId >= 0 && matchId < nextMatchId && sameMembers.computeIfAbsent(match.getPlayers(),
+                        lineup -> members.equals(membersOf(lineup)))) {
+                    matchFilter[matchId] = true;
+                }
+            }
+            return performances.summarizeRows(stat, collectRows(new HashSet<>(roster.getPlayers()), matchFilter));
+        });
+    }
+
+    // REQUIRES: stat and selected are not null, every player in selected is in players
+    // MODIFIES: this
+    // EFFECTS: Returns a summary of stat over the match stats of the players in selected, decoding any deferred
+    //          match stats
+    public StatSummary summarizeStatForPlayers(PerformanceStat stat, Collection<Player> selected) {
+        return readDecoded(selected, () -> performances.summarizeRows(stat,
+                collectRows(new HashSet<>(selected), null)));
+    }
+
+    // REQUIRES: every player in selected is in players and has no deferred match stats
+    // EFFECTS: Returns the performance rows of the players in selected whose match id indexes a true entry of
+    //          matchFilter, or all of their rows if matchFilter is null
+    private int[] collectRows(Set<Player> selected, boolean[] matchFilter) {
+        int total = 0;
+        for (Player player : selected) {
+            total += player.getMatchStatsTable().size();
+        }
+
+        int[] rows = new int[total];
+        int count = 0;
+        for (Player player : selected) {
+            MatchStatsTable table = player.getMatchStatsTable();
+            int[] matchIds = table.keys();
+            int[] playerRows = table.rows();
+            for (int i = 0; i < matchIds.length; i++) {
+                int matchId = matchIds[i];
+                if (matchFilter == null || (matchId >= 0 && matchId < matchFilter.length && matchFilter[matchId])) {
+                    rows[count++] = playerRows[i];
+                }
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Returns a report of the heap bytes players' match stats use, compared with an estimate for holding
+    //          each player's stats in a HashMap<Integer, MatchPerformance>, decoding any deferred match stats
+    public String getMatchStatsFootprintReport() {
+        return readDecoded(players, () -> {
+            long entries = 0;
+            long storedBytes = performances.footprintBytes();
+            long mapBytes = 0;
+            for (Player player : players) {
+                MatchStatsTable table = player.getMatchStatsTable();
+                entries += table.size();
+                storedBytes += table.footprintBytes();
+                mapBytes += MatchStatsTable.boxedMapFootprintBytes(table.size());
+            }
+
+            long saved = mapBytes == 0 ? 0 : 100 - storedBytes * 100 / mapBytes;
+            return String.format("%d match stats across %d players use about %d bytes, %d bytes as "
+                    + "HashMap<Integer, MatchPerformance> (%d%% saved)",
+                    entries, players.size(), storedBytes, mapBytes, saved);
+        });
+    }
+
+    // REQUIRES: pool is not null
+    // MODIFIES: this
+    // EFFECTS: Recomputes the results and totals of every player and the results of every roster from the stored
+    //          matches and match stats, spread over pool, and corrects any that differ. Matches name their roster by
+    //          id only, so a roster sharing its id with an earlier roster is left as it is, and matches stored
+    //          without a roster id cannot be attributed, so a roster with a player in such a match is only reported
+    //          if its results differ. Records the corrected values of each player and roster it corrects, so they
+    //          survive a reload. Returns how many players and rosters were corrected and which were reported.
+    public RepairReport repairAggregates(ForkJoinPool pool) {
+        long stamp = lockWrite();
+        try {
+            decodeAll(players);
+            boolean[] repairedPlayers = new boolean[players.size()];
+            runInParallel(pool, players.size(), i -> {
+                Player player = players.get(i);
+                repairedPlayers[i] = player.repairAggregates(resultsOf(matchIdsByPlayer.get(player)),
+                        player.sumMatchStats());
+            });
+            Set<Player> unattributed = playersInMatchesWithoutRoster();
+            SortedMap<String, long[]> unverified = new ConcurrentSkipListMap<>();
+            boolean[] repairedRosters = new boolean[rosters.size()];
+            runInParallel(pool, rosters.size(), i -> repairedRosters[i] = repairRoster(rosters.get(i), unattributed,
+                    unverified));
+            return new RepairReport(recordRepairs(repairedPlayers, repairedRosters), unverified);
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Records the results and totals of each player and the results of each roster flagged in
+    //          repairedPlayers and repairedRosters, which are indexed like players and rosters, and returns how many
+    //          were flagged
+    private int recordRepairs(boolean[] repairedPlayers, boolean[] repairedRosters) {
+        int repaired = 0;
+        for (int i = 0; i < repairedPlayers.length; i++) {
+            if (repairedPlayers[i]) {
+                recordPlayerAggregates(players.get(i));
+                repaired++;
+            }
+        }
+        for (int i = 0; i < repairedRosters.length; i++) {
+            if (repairedRosters[i]) {
+                recordRosterResults(rosters.get(i));
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    // REQUIRES: player is in players, results and totals are in the order of Player.getResults and getTotals
+    // MODIFIES: this, player
+    // EFFECTS: Sets the results and totals of player to the provided values, as a repair of its aggregates does
+    public void setPlayerAggregates(Player player, long[] results, long[] totals) {
+        write(() -> {
+            player.repairAggregates(results, totals);
+            recordPlayerAggregates(player);
+        });
+    }
+
+    // REQUIRES: roster is in rosters, results is in the order of Roster.getResults
+    // MODIFIES: this, roster
+    // EFFECTS: Sets the results of roster to the provided values, as a repair of its aggregates does
+    public void setRosterResults(Roster roster, long[] results) {
+        write(() -> {
+            roster.repairResults(results);
+            recordRosterResults(roster);
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Records the current results and totals of player as absolute values
+    private void recordPlayerAggregates(Player player) {
+        recordMutation(new JSONObject().put("op", "setPlayerAggregates").put("player", player.getUsername())
+                .put("results", new JSONArray(player.getResults())).put("totals", new JSONArray(player.getTotals())));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Records the current results of roster as absolute values
+    private void recordRosterResults(Roster roster) {
+        recordMutation(new JSONObject().put("op", "setRosterResults").put("roster", roster.getId())
+                .put("results", new JSONArray(roster.getResults())));
+    }
+
+    // MODIFIES: roster, unverified
+    // EFFECTS: Corrects the results of roster from the matches carrying its id and returns true if they differed,
+    //          unless roster shares its id with an earlier roster or has a player in unattributed, in which case
+    //          results that differ are put in unverified under its id instead and false is returned
+    private boolean repairRoster(Roster roster, Set<Player> unattributed, Map<String, long[]> unverified) {
+        if (rostersById.get(roster.getId()) != roster) {
+            return false;
+        }
+        long[] expected = resultsOf(matchIdsByRoster.get(roster.getId()));
         for (Player player : roster.getPlayers()) {
-            player.incrementGamesPlayed();
-            player.incrementRoundsPlayed(totalRounds);
+            if (unattributed.contains(player)) {
+                if (!Arrays.equals(roster.getResults(), expected)) {
+                    unverified.put(roster.getId(), expected);
+                }
+                return false;
+            }
         }
+        return roster.repairResults(expected);
+    }
 
-        if (wonRounds > lostRounds) {
-            roster.incrementWins();
+    // EFFECTS: Returns the players of every match stored without a roster id
+    private Set<Player> playersInMatchesWithoutRoster() {
+        Set<Player> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Match match : matches) {
+            if (match.getRosterId() == null) {
+                found.addAll(match.getPlayers());
+            }
+        }
+        return found;
+    }
 
-            for (Player player : roster.getPlayers()) {
-                player.incrementWins();
+    // EFFECTS: Returns the games played, rounds played, wins and losses the matches with the ids in matchIds add up
+    //          to
+    private long[] resultsOf(MatchIdList matchIds) {
+        long[] results = new long[4];
+        for (int matchId : toArray(matchIds)) {
+            Match match = matchesById.get(matchId);
+            int[] matchResults = matchResults(match.getRoundsWon(), match.getRoundsLost());
+            for (int i = 0; i < results.length; i++) {
+                results[i] += matchResults[i];
             }
-        } else if (wonRounds < lostRounds) {
-            roster.incrementLosses();
+        }
+        return results;
+    }
 
-            for (Player player : roster.getPlayers()) {
-                player.incrementLosses();
+    // REQUIRES: the calling thread holds the write lock, or no other thread uses the players in decode
+    // MODIFIES: this
+    // EFFECTS: Decodes the deferred match stats of every player in decode
+    private void decodeAll(Collection<Player> decode) {
+        for (Player player : decode) {
+            player.decodePendingMatchStats();
+        }
+    }
+
+    // REQUIRES: pool is not null
+    // MODIFIES: this
+    // EFFECTS: Decodes the deferred match stats of every player concurrently on pool, under the write lock, throws
+    //          UncheckedIOException if one cannot be read, in which case it stays deferred
+    public void loadPendingMatchStats(ForkJoinPool pool) {
+        write(() -> runInParallel(pool, players.size(), i -> players.get(i).decodePendingMatchStats()));
+    }
+
+    // REQUIRES: record is not null
+    // MODIFIES: this
+    // EFFECTS: Numbers record with the next journal sequence number and appends it to the attached journal, does
+    //          nothing if no journal is attached
+    void recordMutation(JSONObject record) {
+        if (journal != null) {
+            journalSequence++;
+            journal.append(record.put("seq", journalSequence));
+        }
+    }
+
+    // REQUIRES: player is in players, oldUsername is the username player was indexed under
+    // MODIFIES: this
+    // EFFECTS: Moves player in the username index from oldUsername to its current username
+    void reindexPlayer(Player player, String oldUsername) {
+        playersByUsername.remove(oldUsername, player);
+        playersByUsername.putIfAbsent(player.getUsername(), player);
+    }
+
+    // REQUIRES: player is not null, and no other player has player's id if it has one
+    // MODIFIES: this, player
+    // EFFECTS: Adds player to players and the username and id indexes, first player with a username wins lookups.
+    //          Gives player the next unused id if it has none.
+    private void indexPlayer(Player player) {
+        if (player.getId() < 0) {
+            player.loadId(nextPlayerId);
+        }
+        playersById.put(player.getId(), player);
+        nextPlayerId = Math.max(nextPlayerId, player.getId() + 1);
+        player.setOrdinal(players.size());
+        players.add(player);
+        sharedPlayers = sharedPlayers.append(player);
+        playersByUsername.putIfAbsent(player.getUsername(), player);
+        player.setOwner(this);
+        player.movePerformancesTo(performances);
+    }
+
+    // EFFECTS: Returns player, throws AppDataInvalidException if another player already has its id. Stores refer to
+    //          players by id, so renumbering player would hand everything referring to it to the other player.
+    private Player checkPlayerId(Player player) throws AppDataInvalidException {
+        if (player.getId() >= 0 && playersById.containsKey(player.getId())) {
+            throw new AppDataInvalidException();
+        }
+        return player;
+    }
+
+    // REQUIRES: roster is not null
+    // MODIFIES: this
+    // EFFECTS: Adds roster to rosters, the id index and the roster id table, first roster with an id wins lookups
+    private void indexRoster(Roster roster) {
+        rosters.add(roster);
+        sharedRosters = sharedRosters.append(roster);
+        rostersById.putIfAbsent(roster.getId(), roster);
+        rosterIds.codeOf(roster.getId());
+        roster.setOwner(this);
+        roster.setIndexOrder(nextRosterOrder++);
+        roster.getMembers().clear();
+        for (Player player : roster.getPlayers()) {
+            rostersByPlayer.computeIfAbsent(player, p -> new TreeSet<>(ROSTER_ORDER)).add(roster);
+            if (ownsPlayer(player)) {
+                roster.getMembers().set(player.getOrdinal());
+            }
+        }
+        indexMembers(roster);
+    }
+
+    // REQUIRES: roster is in rosters and has player on it
+    // MODIFIES: this, roster
+    // EFFECTS: Adds roster to the rosters listed for player and player to roster's member set
+    void indexRosterPlayer(Roster roster, Player player) {
+        rostersByPlayer.computeIfAbsent(player, p -> new TreeSet<>(ROSTER_ORDER)).add(roster);
+        if (ownsPlayer(player)) {
+            unindexMembers(roster);
+            roster.getMembers().set(player.getOrdinal());
+            indexMembers(roster);
+        }
+    }
+
+    // REQUIRES: roster is in rosters and no longer has player on it
+    // MODIFIES: this, roster
+    // EFFECTS: Removes roster from the rosters listed for player and player from roster's member set
+    void unindexRosterPlayer(Roster roster, Player player) {
+        removePlayerRoster(player, roster);
+        if (ownsPlayer(player)) {
+            unindexMembers(roster);
+            roster.getMembers().clear(player.getOrdinal());
+            indexMembers(roster);
+        }
+    }
+
+    // EFFECTS: Returns true if player is in players, in which case its ordinal is its position in players
+    boolean ownsPlayer(Player player) {
+        int ordinal = player.getOrdinal();
+        return ordinal >= 0 && ordinal < players.size() && players.get(ordinal) == player;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes roster from the rosters listed for player
+    private void removePlayerRoster(Player player, Roster roster) {
+        TreeSet<Roster> playerRosters = rostersByPlayer.get(player);
+        if (playerRosters != null) {
+            playerRosters.remove(roster);
+            if (playerRosters.isEmpty()) {
+                rostersByPlayer.remove(player);
             }
         }
     }
 
+    // MODIFIES: this
+    // EFFECTS: Lists roster under a copy of its current member set
+    private void indexMembers(Roster roster) {
+        rostersByMembers.computeIfAbsent((BitSet) roster.getMembers().clone(), m -> new ArrayList<>()).add(roster);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes roster from the list under its current member set
+    private void unindexMembers(Roster roster) {
+        ArrayList<Roster> sameMembers = rostersByMembers.get(roster.getMembers());
+        if (sameMembers != null) {
+            sameMembers.remove(roster);
+            if (sameMembers.isEmpty()) {
+                rostersByMembers.remove(roster.getMembers());
+            }
+        }
+    }
+
+    // REQUIRES: match is in matches
+    // MODIFIES: this
+    // EFFECTS: Removes match from matches, the match id index and the match id lists of its players and roster.
+    //          If match had the highest match id, nextMatchId falls back to follow the highest remaining one, as it
+    //          would when the matches are next loaded from a store.
+    private void unindexMatch(Match match) {
+        matches = matches.without(indexOfMatch(match));
+        matchesById.remove(match.getMatchId(), match);
+
+        for (Player player : match.getPlayers()) {
+            removeMatchId(matchIdsByPlayer, player, match.getMatchId());
+        }
+        if (match.getRosterId() != null) {
+            removeMatchId(matchIdsByRoster, match.getRosterId(), match.getMatchId());
+        }
+        while (nextMatchId > matches.size() && !matchesById.containsKey(nextMatchId - 1)) {
+            nextMatchId--;
+        }
+    }
+
+    // MODIFIES: matchIdsByKey
+    // EFFECTS: Removes matchId from the list under key, and the list itself once it is empty
+    private static <K> void removeMatchId(Map<K, MatchIdList> matchIdsByKey, K key, int matchId) {
+        MatchIdList matchIds = matchIdsByKey.get(key);
+        if (matchIds != null) {
+            matchIds.remove(matchId);
+            if (matchIds.size() == 0) {
+                matchIdsByKey.remove(key);
+            }
+        }
+    }
+
+    // REQUIRES: match is in matches, edited has the same match id and lineup as match, and the same roster id unless
+    //          match's id was already dropped from the match id list of its roster, in which case it has none
+    // MODIFIES: this, edited
+    // EFFECTS: Puts edited in place of match in matches and the match id index, interning its references as
+    //          indexMatch does
+    private void replaceMatch(Match match, Match edited) {
+        edited.internReferences(lineups, rosterIds, mapNames);
+        int index = indexOfMatch(match);
+        matches = matches.with(index, edited);
+        matchesById.replace(match.getMatchId(), match, edited);
+    }
+
+    // REQUIRES: match is in matches
+    // EFFECTS: Returns the position of match in matches, found by binary search on match id while matches are in
+    //          id order, which they are unless a store listed them otherwise, and by scanning if that misses
+    private int indexOfMatch(Match match) {
+        int low = 0;
+        int high = matches.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int matchId = matches.get(middle).getMatchId();
+            if (matchId < match.getMatchId()) {
+                low = middle + 1;
+            } else if (matchId > match.getMatchId()) {
+                high = middle - 1;
+            } else {
+                return matches.get(middle) == match ? middle : matches.indexOf(match);
+            }
+        }
+        return matches.indexOf(match);
+    }
+
+    // REQUIRES: match is not null
+    // MODIFIES: this, match
+    // EFFECTS: Adds match to matches, the match id index and the match id lists of its players and roster, and
+    //          replaces its lineup with the equal one already held by another match if there is one
+    private void indexMatch(Match match) {
+        match.internReferences(lineups, rosterIds, mapNames);
+        matches = matches.append(match);
+        matchesById.putIfAbsent(match.getMatchId(), match);
+
+        for (Player player : match.getPlayers()) {
+            matchIdsByPlayer.computeIfAbsent(player, p -> new MatchIdList()).add(match.getMatchId());
+        }
+        if (match.getRosterId() != null) {
+            matchIdsByRoster.computeIfAbsent(match.getRosterId(), id -> new MatchIdList()).add(match.getMatchId());
+        }
+    }
+
     // EFFECTS: Converts app data to JSON object
     @Override
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
+        return readDecoded(players, () -> {
+            JSONObject json = new JSONObject();
+
+            // Add players
+            JSONArray jsonArray = new JSONArray();
+            for (Player player : players) {
+                jsonArray.put(player.toJson());
+            }
+            json.put("players", jsonArray);
+
+            // Add rosters
+            jsonArray = new JSONArray();
+            for (Roster roster : rosters) {
+                jsonArray.put(roster.toJson());
+            }
+            json.put("rosters", jsonArray);
+
+            // Add matches
+            jsonArray = new JSONArray();
+            for (Match match : matches) {
+                jsonArray.put(match.toJson());
+            }
+            json.put("matches", jsonArray);
+
+            json.put("journalSequence", journalSequence);
+
+            return json;
+        });
+    }
 
-        // Add players
-        JSONArray jsonArray = new JSONArray();
+    // EFFECTS: Writes app data to writer one entity at a time, players first so that readers can resolve
+    //          roster and match references as they go
+    @Override
+    public void writeJson(JsonTokenWriter writer) throws IOException {
+        if (lockHeld.get()) {
+            decodeAll(players);
+            writeEntities(writer);
+            return;
+        }
+
+        long stamp = lockReadDecoded(players);
+        try {
+            writeEntities(writer);
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    // EFFECTS: Writes players, rosters, matches and the journal sequence to writer as the fields of an object
+    private void writeEntities(JsonTokenWriter writer) throws IOException {
+        writer.beginObject();
+
+        writer.name("players").beginArray();
         for (Player player : players) {
-            jsonArray.put(player.toJson());
+            player.writeJson(writer);
         }
-        json.put("players", jsonArray);
+        writer.endArray();
 
-        // Add rosters
-        jsonArray = new JSONArray();
+        writer.name("rosters").beginArray();
         for (Roster roster : rosters) {
-            jsonArray.put(roster.toJson());
+            roster.writeJson(writer);
         }
-        json.put("rosters", jsonArray);
+        writer.endArray();
 
-        // Add matches
-        jsonArray = new JSONArray();
+        writer.name("matches").beginArray();
         for (Match match : matches) {
-            jsonArray.put(match.toJson());
+            match.writeJson(writer);
         }
-        json.put("matches", jsonArray);
+        writer.endArray();
+
+        writer.name("journalSequence").value(journalSequence);
 
-        return json;
+        writer.endObject();
     }
 
     // REQUIRES: jsonObject with valid and correct data
@@ -164,27 +1314,69 @@ public class AppData implements Writable, Readable {
     // EFFECTS: Handles loading app data from JSON object
     @Override
     public void fromJson(JSONObject jsonObject) throws AppDataInvalidException {
-        players = new ArrayList<>();
-        rosters = new ArrayList<>();
-        matches = new ArrayList<>();
+        long stamp = lockWrite();
+        try {
+            reset();
+
+            loadPlayers(jsonObject.getJSONArray("players"));
+            loadRosters(jsonObject.getJSONArray("rosters"));
+            loadMatches(jsonObject.getJSONArray("matches"));
+
+            nextMatchId = followingMatchId();
+            journalSequence = jsonObject.optLong("journalSequence", 0);
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
+
+    // REQUIRES: jsonObject with valid and correct data, pool is not null
+    // MODIFIES: this
+    // EFFECTS: Same as fromJson(jsonObject), but decodes players, rosters and matches concurrently on pool. Roster
+    //          and match references are resolved against the id and username indexes, which are complete before any
+    //          roster or match is decoded and only read while they are.
+    public void fromJson(JSONObject jsonObject, ForkJoinPool pool) throws AppDataInvalidException {
+        long stamp = lockWrite();
+        try {
+            reset();
+
+            loadPlayers(jsonObject.getJSONArray("players"), pool);
+            loadRosters(jsonObject.getJSONArray("rosters"), pool);
+            loadMatches(jsonObject.getJSONArray("matches"), pool);
 
-        loadPlayers(jsonObject.getJSONArray("players"));
-        loadRosters(jsonObject.getJSONArray("rosters"));
-        loadMatches(jsonObject.getJSONArray("matches"));
+            nextMatchId = followingMatchId();
+            journalSequence = jsonObject.optLong("journalSequence", 0);
+        } finally {
+            publishAndUnlock(stamp);
+        }
+    }
 
-        nextMatchId = matches.size();
+    // EFFECTS: Returns the id following the highest match id in matches, and at least the number of matches
+    private int followingMatchId() {
+        int following = matches.size();
+        for (Match match : matches) {
+            following = Math.max(following, match.getMatchId() + 1);
+        }
+        return following;
     }
 
     // REQUIRES: jsonObject with valid and correct data
     // MODIFIES: this
     // EFFECTS: Loads player data from JSON object
-    private void loadPlayers(JSONArray jsonArray) {
-        for (Object object : jsonArray) {
-            JSONObject playerObject = (JSONObject) object;
+    private void loadPlayers(JSONArray jsonArray) throws AppDataInvalidException {
+        for (int i = 0; i < jsonArray.length(); i++) {
+            indexPlayer(checkPlayerId(decodePlayer(jsonArray.getJSONObject(i))));
+        }
+    }
+
+    // REQUIRES: jsonArray with valid and correct data, pool is not null
+    // MODIFIES: this
+    // EFFECTS: Decodes players from JSON array concurrently on pool, then indexes them in order
+    private void loadPlayers(JSONArray jsonArray, ForkJoinPool pool) throws AppDataInvalidException {
+        Player[] decoded = new Player[jsonArray.length()];
+        runInParallel(pool, decoded.length, i -> decoded[i] = decodePlayer(jsonArray.getJSONObject(i)));
 
-            Player player = new Player(playerObject.getString("username"));
-            player.fromJson(playerObject);
-            players.add(player);
+        for (Player player : decoded) {
+            indexPlayer(checkPlayerId(player));
         }
     }
 
@@ -192,26 +1384,20 @@ public class AppData implements Writable, Readable {
     // MODIFIES: this
     // EFFECTS: Loads roster data from JSON object
     private void loadRosters(JSONArray jsonArray) throws AppDataInvalidException {
-        for (Object object : jsonArray) {
-            JSONObject rosterObject = (JSONObject) object;
-
-            ArrayList<String> playerUsernames = new ArrayList<>();
-            for (Object obj : rosterObject.getJSONArray("players")) {
-                playerUsernames.add((String) obj);
-            }
+        for (int i = 0; i < jsonArray.length(); i++) {
+            indexRoster(checkResolved(decodeRoster(jsonArray.getJSONObject(i))));
+        }
+    }
 
-            ArrayList<Player> playerList = new ArrayList<>();
-            for (String username : playerUsernames) {
-                try {
-                    playerList.add(getPlayerByUsername(username));
-                } catch (PlayerNotFoundException e) {
-                    throw new AppDataInvalidException();
-                }
-            }
+    // REQUIRES: jsonArray with valid and correct data, pool is not null
+    // MODIFIES: this
+    // EFFECTS: Decodes rosters from JSON array concurrently on pool, then indexes them in order
+    private void loadRosters(JSONArray jsonArray, ForkJoinPool pool) throws AppDataInvalidException {
+        Roster[] decoded = new Roster[jsonArray.length()];
+        runInParallel(pool, decoded.length, i -> decoded[i] = decodeRoster(jsonArray.getJSONObject(i)));
 
-            Roster roster = new Roster(rosterObject.getString("id"), playerList);
-            roster.fromJson(rosterObject);
-            rosters.add(roster);
+        for (Roster roster : decoded) {
+            indexRoster(checkResolved(roster));
         }
     }
 
@@ -219,26 +1405,101 @@ public class AppData implements Writable, Readable {
     // MODIFIES: this
     // EFFECTS: Loads match data from JSON object and updates nextMatchId
     private void loadMatches(JSONArray jsonArray) throws AppDataInvalidException {
-        for (Object object : jsonArray) {
-            JSONObject matchObject = (JSONObject) object;
+        for (int i = 0; i < jsonArray.length(); i++) {
+            indexMatch(checkResolved(decodeMatch(jsonArray.getJSONObject(i))));
+        }
+    }
 
-            ArrayList<String> playerUsernames = new ArrayList<>();
-            for (Object obj : matchObject.getJSONArray("players")) {
-                playerUsernames.add((String) obj);
-            }
+    // REQUIRES: jsonArray with valid and correct data, pool is not null
+    // MODIFIES: this
+    // EFFECTS: Decodes matches from JSON array concurrently on pool, then indexes them in order
+    private void loadMatches(JSONArray jsonArray, ForkJoinPool pool) throws AppDataInvalidException {
+        Match[] decoded = new Match[jsonArray.length()];
+        runInParallel(pool, decoded.length, i -> decoded[i] = decodeMatch(jsonArray.getJSONObject(i)));
 
-            ArrayList<Player> playerList = new ArrayList<>();
-            for (String username : playerUsernames) {
-                try {
-                    playerList.add(getPlayerByUsername(username));
-                } catch (PlayerNotFoundException e) {
-                    throw new AppDataInvalidException();
-                }
+        for (Match match : decoded) {
+            indexMatch(checkResolved(match));
+        }
+    }
+
+    // REQUIRES: count >= 0
+    // EFFECTS: Runs task for every index below count on pool and waits for all of them to finish, rethrowing the
+    //          first unchecked exception a task throws
+    private static void runInParallel(ForkJoinPool pool, int count, IntConsumer task) {
+        pool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, count).parallel().forEach(task)));
+    }
+
+    // EFFECTS: Returns entity, throws AppDataInvalidException if it is null because it referenced a missing player
+    private static <T> T checkResolved(T entity) throws AppDataInvalidException {
+        if (entity == null) {
+            throw new AppDataInvalidException();
+        }
+        return entity;
+    }
+
+    // REQUIRES: playerObject with valid and correct data
+    // EFFECTS: Returns the player playerObject describes
+    private Player decodePlayer(JSONObject playerObject) {
+        Player player = new Player(playerObject.getString("username"));
+        player.fromJson(playerObject);
+        return player;
+    }
+
+    // REQUIRES: rosterObject with valid and correct data
+    // EFFECTS: Returns the roster rosterObject describes, or null if it references a player that does not exist
+    private Roster decodeRoster(JSONObject rosterObject) {
+        ArrayList<Player> playerList = resolvePlayers(rosterObject);
+        if (playerList == null) {
+            return null;
+        }
+
+        Roster roster = new Roster(rosterObject.getString("id"), playerList);
+        roster.fromJson(rosterObject);
+        return roster;
+    }
+
+    // REQUIRES: matchObject with valid and correct data
+    // EFFECTS: Returns the match matchObject describes, or null if it references a player that does not exist
+    private Match decodeMatch(JSONObject matchObject) {
+        ArrayList<Player> playerList = resolvePlayers(matchObject);
+        if (playerList == null) {
+            return null;
+        }
+
+        return new Match(matchObject.getInt("matchId"), matchObject.optString("roster", null), playerList,
+                matchObject.getInt("roundsWon"), matchObject.getInt("roundsLost"), matchObject.getString("map"));
+    }
+
+    // REQUIRES: entityObject has a "playerIds" array, or a "players" array of usernames if written before players
+    //          had ids
+    // EFFECTS: Returns the players entityObject references, in order, or null if one does not exist
+    private ArrayList<Player> resolvePlayers(JSONObject entityObject) {
+        JSONArray playerIds = entityObject.optJSONArray("playerIds");
+        if (playerIds == null) {
+            return resolveUsernames(entityObject.getJSONArray("players"));
+        }
+
+        ArrayList<Player> playerList = new ArrayList<>();
+        for (int i = 0; i < playerIds.length(); i++) {
+            Player player = playersById.get(playerIds.getInt(i));
+            if (player == null) {
+                return null;
             }
+            playerList.add(player);
+        }
+        return playerList;
+    }
 
-            Match match = new Match(matchObject.getInt("matchId"), playerList, matchObject.getInt("roundsWon"),
-                    matchObject.getInt("roundsLost"), matchObject.getString("map"));
-            matches.add(match);
+    // EFFECTS: Returns the players with the usernames in usernames, in order, or null if one does not exist
+    private ArrayList<Player> resolveUsernames(JSONArray usernames) {
+        ArrayList<Player> playerList = new ArrayList<>();
+        for (int i = 0; i < usernames.length(); i++) {
+            Player player = playersByUsername.get(usernames.getString(i));
+            if (player == null) {
+                return null;
+            }
+            playerList.add(player);
         }
+        return playerList;
     }
 }
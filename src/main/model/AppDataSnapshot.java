@@ -0,0 +1,44 @@
+package model;
+
+import java.util.List;
+
+// Represents the players, rosters and matches of an app data as they were when a change to it finished, published
+// so readers can use them without locking or copying. The lists never change, though the players and rosters in
+// them are the app data's own and keep changing, so their stats are best read inside AppData.read.
+public final class AppDataSnapshot {
+    private final PersistentVector<Player> players;
+    private final PersistentVector<Roster> rosters;
+    private final PersistentVector<Match> matches;
+    private final int nextMatchId;
+    private final long journalSequence;
+
+    // EFFECTS: Constructs a snapshot of the provided lists and counters
+    AppDataSnapshot(PersistentVector<Player> players, PersistentVector<Roster> rosters,
+                    PersistentVector<Match> matches, int nextMatchId, long journalSequence) {
+        this.players = players;
+        this.rosters = rosters;
+        this.matches = matches;
+        this.nextMatchId = nextMatchId;
+        this.journalSequence = journalSequence;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public List<Roster> getRosters() {
+        return rosters;
+    }
+
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public int getNextMatchId() {
+        return nextMatchId;
+    }
+
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+}
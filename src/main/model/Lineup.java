@@ -0,0 +1,61 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Represents the immutable, ordered list of players who played a match. Equal lineups held by an app data are
+// interned by its LineupPool, so every match played by the same players refers to a single instance.
+public final class Lineup extends AbstractList<Player> implements RandomAccess {
+    private final Player[] players;
+    private final int hash;
+
+    // REQUIRES: players is not null
+    // EFFECTS: Constructs a lineup holding the players of players, in order
+    private Lineup(List<Player> players) {
+        this.players = players.toArray(new Player[0]);
+        this.hash = super.hashCode();
+    }
+
+    // REQUIRES: players is not null
+    // EFFECTS: Returns players if it is already a lineup, otherwise a lineup holding a copy of its players
+    public static Lineup copyOf(List<Player> players) {
+        if (players instanceof Lineup) {
+            return (Lineup) players;
+        }
+        return new Lineup(players);
+    }
+
+    @Override
+    public Player get(int index) {
+        return players[index];
+    }
+
+    @Override
+    public int size() {
+        return players.length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    // EFFECTS: Returns true if other is a list holding the same players in the same order
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof Lineup) {
+            Lineup lineup = (Lineup) other;
+            if (lineup.hash != hash || lineup.players.length != players.length) {
+                return false;
+            }
+            for (int i = 0; i < players.length; i++) {
+                if (lineup.players[i] != players[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(other);
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+import java.util.HashMap;
+import java.util.List;
+
+// Represents the canonical lineups of an app data, keyed by their players so that a list of players can be looked
+// up without first being copied into a lineup
+class LineupPool {
+    private final HashMap<List<Player>, Lineup> lineups;
+
+    // EFFECTS: Constructs an empty pool
+    LineupPool() {
+        lineups = new HashMap<>();
+    }
+
+    int size() {
+        return lineups.size();
+    }
+
+    // REQUIRES: players is not null
+    // MODIFIES: this
+    // EFFECTS: Returns the pooled lineup holding the same players as players in the same order, pooling a copy of
+    //          players first if there is none
+    Lineup intern(List<Player> players) {
+        Lineup lineup = lineups.get(players);
+        if (lineup == null) {
+            lineup = Lineup.copyOf(players);
+            lineups.put(lineup, lineup);
+        }
+        return lineup;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes every lineup from the pool
+    void clear() {
+        lineups.clear();
+    }
+}
@@ -1,46 +1,77 @@
 package model;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import persistence.JsonTokenWriter;
 import persistence.Writable;
 
 // Represents a match to be tracked by the application
 public class Match implements Writable {
     private final int matchId;
-    private final ArrayList<Player> players;
+    private String rosterId;
+    private Lineup players;
     private final int roundsWon;
     private final int roundsLost;
-    private final String map;
+    private String map;
+    private int mapCode;
 
     // EFFECTS: Constructs a match with the provided roster and data values
     public Match(int matchId, Roster roster, int roundsWon, int roundsLost, String map) {
         this.matchId = matchId;
-        this.players = new ArrayList<>();
-        this.players.addAll(roster.getPlayers());
+        this.rosterId = roster.getId();
+        this.players = Lineup.copyOf(roster.getPlayers());
         this.roundsWon = roundsWon;
         this.roundsLost = roundsLost;
         this.map = map;
+        this.mapCode = -1;
     }
 
-    // EFFECTS: Constructs a match with the provided player list and data values
-    public Match(int matchId, ArrayList<Player> players, int roundsWon, int roundsLost, String map) {
+    // EFFECTS: Constructs a match with the provided player list and data values, played by no recorded roster
+    public Match(int matchId, List<Player> players, int roundsWon, int roundsLost, String map) {
+        this(matchId, null, players, roundsWon, roundsLost, map);
+    }
+
+    // EFFECTS: Constructs a match played by the roster with id rosterId, or by no recorded roster if rosterId is
+    //          null, with the provided player list and data values. The match keeps players if it is a lineup and
+    //          otherwise a lineup copied from it.
+    public Match(int matchId, String rosterId, List<Player> players, int roundsWon, int roundsLost, String map) {
         this.matchId = matchId;
-        this.players = players;
+        this.rosterId = rosterId;
+        this.players = Lineup.copyOf(players);
         this.roundsWon = roundsWon;
         this.roundsLost = roundsLost;
         this.map = map;
+        this.mapCode = -1;
     }
 
     public int getMatchId() {
         return matchId;
     }
 
-    public ArrayList<Player> getPlayers() {
+    public String getRosterId() {
+        return rosterId;
+    }
+
+    public Lineup getPlayers() {
         return players;
     }
 
+    // MODIFIES: this, lineups, rosterIds, mapNames
+    // EFFECTS: Replaces this match's lineup with the equal one pooled in lineups, its roster id with the instance
+    //          held by rosterIds and its map with the instance held by mapNames, whose code it keeps, so matches
+    //          share their lineups, roster ids and maps
+    void internReferences(LineupPool lineups, SymbolTable rosterIds, SymbolTable mapNames) {
+        players = lineups.intern(players);
+        if (rosterId != null) {
+            rosterId = rosterIds.canonical(rosterId);
+        }
+        mapCode = mapNames.codeOf(map);
+        map = mapNames.nameOf(mapCode);
+    }
+
     // EFFECTS: Returns the total number of rounds played in this match (wonRounds + lostRounds)
     public int getTotalRounds() {
         return roundsWon + roundsLost;
@@ -58,6 +89,12 @@ public class Match implements Writable {
         return map;
     }
 
+    // EFFECTS: Returns the code of this match's map in the map names of the app data holding it, or -1 if no app
+    //          data holds it
+    int getMapCode() {
+        return mapCode;
+    }
+
     @Override
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
@@ -66,14 +103,39 @@ public class Match implements Writable {
 
         JSONArray jsonArray = new JSONArray();
         for (Player player : players) {
-            jsonArray.put(player.getUsername());
+            jsonArray.put(player.getId());
         }
-        json.put("players", jsonArray);
+        json.put("playerIds", jsonArray);
 
         json.put("roundsWon", roundsWon);
         json.put("roundsLost", roundsLost);
-        json.put("map", map);
+        json.put("map", getMap());
+        if (rosterId != null) {
+            json.put("roster", rosterId);
+        }
 
         return json;
     }
+
+    @Override
+    public void writeJson(JsonTokenWriter writer) throws IOException {
+        writer.beginObject();
+
+        writer.name("matchId").value(matchId);
+
+        writer.name("playerIds").beginArray();
+        for (Player player : players) {
+            writer.value(player.getId());
+        }
+        writer.endArray();
+
+        writer.name("roundsWon").value(roundsWon);
+        writer.name("roundsLost").value(roundsLost);
+        writer.name("map").value(getMap());
+        if (rosterId != null) {
+            writer.name("roster").value(rosterId);
+        }
+
+        writer.endObject();
+    }
 }
@@ -0,0 +1,48 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Represents a match to be added with AppData.addMatches, along with the stats of its players in that match
+public class MatchDescriptor {
+    private final Roster roster;
+    private final int roundsWon;
+    private final int roundsLost;
+    private final String map;
+    private final LinkedHashMap<Player, MatchPerformance> playerStats;
+
+    // EFFECTS: Constructs a descriptor for a match played by roster with the provided results and no player stats
+    public MatchDescriptor(Roster roster, int roundsWon, int roundsLost, String map) {
+        this.roster = roster;
+        this.roundsWon = roundsWon;
+        this.roundsLost = roundsLost;
+        this.map = map;
+        this.playerStats = new LinkedHashMap<>();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the stats player will be given for the match, replacing any already set
+    public void setPlayerStats(Player player, MatchPerformance perf) {
+        playerStats.put(player, perf);
+    }
+
+    public Roster getRoster() {
+        return roster;
+    }
+
+    public int getRoundsWon() {
+        return roundsWon;
+    }
+
+    public int getRoundsLost() {
+        return roundsLost;
+    }
+
+    public String getMap() {
+        return map;
+    }
+
+    public Map<Player, MatchPerformance> getPlayerStats() {
+        return playerStats;
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents an ascending list of distinct match ids held in a primitive array, used to list the matches a player
+// or roster played. Match ids are usually added in increasing order, in which case adding one appends it.
+class MatchIdList {
+    private static final int INITIAL_CAPACITY = 4;
+    private int[] matchIds;
+    private int size;
+
+    // EFFECTS: Constructs an empty list
+    MatchIdList() {
+        matchIds = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Inserts matchId in order, does nothing if the list already holds it
+    void add(int matchId) {
+        int at = size;
+        if (size > 0 && matchIds[size - 1] >= matchId) {
+            at = Arrays.binarySearch(matchIds, 0, size, matchId);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+        }
+
+        if (size == matchIds.length) {
+            matchIds = Arrays.copyOf(matchIds, size * 2);
+        }
+        System.arraycopy(matchIds, at, matchIds, at + 1, size - at);
+        matchIds[at] = matchId;
+        size++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes matchId, does nothing if the list does not hold it
+    void remove(int matchId) {
+        int at = Arrays.binarySearch(matchIds, 0, size, matchId);
+        if (at >= 0) {
+            System.arraycopy(matchIds, at + 1, matchIds, at, size - at - 1);
+            size--;
+        }
+    }
+
+    // EFFECTS: Returns true if the list holds matchId
+    boolean contains(int matchId) {
+        return Arrays.binarySearch(matchIds, 0, size, matchId) >= 0;
+    }
+
+    // EFFECTS: Returns a copy of the match ids in ascending order
+    int[] toArray() {
+        return Arrays.copyOf(matchIds, size);
+    }
+}
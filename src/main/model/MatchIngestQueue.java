@@ -0,0 +1,206 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import exceptions.MatchInvalidException;
+
+// Represents a bounded queue of matches waiting to be added to an app data. Any number of threads may submit match
+// descriptors, which are placed in a fixed ring of slots without allocating, and a single applier drains them in
+// batches through AppData.addMatches, notifying the listener once per batch with the snapshot it published. Each
+// slot carries a sequence number telling submitters when it is free and the applier when it holds a descriptor, so
+// submitters only contend on claiming the next position. Submissions are refused or wait while the ring is full.
+public class MatchIngestQueue {
+    private static final long IDLE_PARK_NANOS = 100_000;
+    private final AppData appData;
+    private final Consumer<AppDataSnapshot> listener;
+    private final MatchDescriptor[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail;
+    private final int mask;
+    private final int maxBatch;
+    private final ArrayList<MatchDescriptor> batch;
+    private volatile long head;
+    private volatile boolean running;
+    private Thread applier;
+    private volatile long appliedCount;
+    private volatile long rejectedCount;
+    private volatile long failedBatchCount;
+    private volatile RuntimeException lastFailure;
+
+    // REQUIRES: appData and listener are not null, maxBatch > 0
+    // EFFECTS: Constructs an empty queue holding up to capacity descriptors for appData, applied at most maxBatch at
+    //          a time, throws IllegalArgumentException if capacity is not a power of two
+    public MatchIngestQueue(AppData appData, int capacity, int maxBatch, Consumer<AppDataSnapshot> listener) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two but was " + capacity);
+        }
+        this.appData = appData;
+        this.listener = listener;
+        this.slots = new MatchDescriptor[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.tail = new AtomicLong();
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+        this.batch = new ArrayList<>(maxBatch);
+    }
+
+    // REQUIRES: descriptor is not null
+    // MODIFIES: this
+    // EFFECTS: Places descriptor at the back of the queue and returns true, or returns false if the queue is full
+    public boolean offer(MatchDescriptor descriptor) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long free = sequences.get(slot) - position;
+            if (free < 0) {
+                return false;
+            }
+            if (free == 0 && tail.compareAndSet(position, position + 1)) {
+                slots[slot] = descriptor;
+                sequences.set(slot, position + 1);
+                return true;
+            }
+        }
+    }
+
+    // REQUIRES: descriptor is not null
+    // MODIFIES: this
+    // EFFECTS: Places descriptor at the back of the queue, waiting for the applier to free a slot while it is full.
+    //          Throws InterruptedException if the calling thread is interrupted while waiting.
+    public void submit(MatchDescriptor descriptor) throws InterruptedException {
+        while (!offer(descriptor)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    // EFFECTS: Returns the number of descriptors waiting to be applied
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    // REQUIRES: only one thread drains this queue at a time
+    // MODIFIES: this, appData
+    // EFFECTS: Applies up to maxBatch waiting descriptors in the order they were placed and notifies the listener
+    //          once if any match was added. Descriptors rejected by the app data are counted and skipped without
+    //          holding back the rest of the batch. Returns the number of descriptors taken from the queue.
+    public int drain() {
+        batch.clear();
+        long position = head;
+        while (batch.size() < maxBatch) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                break;
+            }
+            batch.add(slots[slot]);
+            slots[slot] = null;
+            sequences.set(slot, position + slots.length);
+            position++;
+        }
+        head = position;
+
+        if (!batch.isEmpty() && apply() > 0) {
+            listener.accept(appData.getSnapshot());
+        }
+        return batch.size();
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Adds the matches in batch as one change if they are all valid, otherwise adds each valid one on its
+    //          own. Returns the number of matches added.
+    private int apply() {
+        try {
+            appData.addMatches(batch);
+            appliedCount += batch.size();
+            return batch.size();
+        } catch (MatchInvalidException e) {
+            int applied = 0;
+            for (MatchDescriptor descriptor : batch) {
+                try {
+                    appData.addMatches(Collections.singletonList(descriptor));
+                    applied++;
+                } catch (MatchInvalidException invalid) {
+                    rejectedCount++;
+                }
+            }
+            appliedCount += applied;
+            return applied;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Starts draining the queue on a background thread, does nothing if already started
+    public synchronized void start() {
+        if (applier != null) {
+            return;
+        }
+
+        running = true;
+        applier = new Thread(this::runApplier, "match-ingest");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Stops the background thread once it has finished its current batch, then applies every descriptor
+    //          still waiting on the calling thread
+    public synchronized void stop() throws InterruptedException {
+        if (applier != null) {
+            running = false;
+            LockSupport.unpark(applier);
+            applier.join();
+            applier = null;
+        }
+
+        int drained = drain();
+        while (drained > 0) {
+            drained = drain();
+        }
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Drains the queue until stopped, parking briefly whenever it is empty. A batch whose application or
+    //          notification throws is counted and recorded as the last failure, and draining carries on with the
+    //          next batch.
+    private void runApplier() {
+        while (running) {
+            try {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (RuntimeException e) {
+                lastFailure = e;
+                failedBatchCount++;
+            }
+        }
+    }
+
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    // EFFECTS: Returns the number of batches the background thread failed to apply or notify
+    public long getFailedBatchCount() {
+        return failedBatchCount;
+    }
+
+    // EFFECTS: Returns the exception that failed the last batch the background thread could not apply or notify, or
+    //          null if none has failed
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+}
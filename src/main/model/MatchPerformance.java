@@ -1,7 +1,9 @@
 package model;
 
+import java.io.IOException;
 import org.json.JSONObject;
 
+import persistence.JsonTokenWriter;
 import persistence.Writable;
 
 // Represents a collection of performance stats for a player in a given match
@@ -66,4 +68,18 @@ public class MatchPerformance implements Writable {
 
         return json;
     }
+
+    @Override
+    public void writeJson(JsonTokenWriter writer) throws IOException {
+        writer.beginObject();
+
+        writer.name("totalDamageDealt").value(totalDamageDealt);
+        writer.name("totalPoints").value(totalPoints);
+        writer.name("totalKills").value(totalKills);
+        writer.name("totalAssists").value(totalAssists);
+        writer.name("totalDeaths").value(totalDeaths);
+        writer.name("mostValuablePlayerAwards").value(mostValuablePlayerAwards);
+
+        writer.endObject();
+    }
 }
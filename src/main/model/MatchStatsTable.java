@@ -0,0 +1,197 @@
+package model;
+
+// Represents the index from match id to the row of a player's stats for that match in a PerformanceColumns store,
+// held without boxing. Match ids sit in an open-addressing int array probed linearly and rows in a parallel int
+// array, so an entry costs a few bytes instead of a boxed key and a hash map node.
+class MatchStatsTable {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private int[] keys;
+    private boolean[] used;
+    private int[] rows;
+    private int size;
+
+    // EFFECTS: Constructs an empty table
+    MatchStatsTable() {
+        clear();
+    }
+
+    int size() {
+        return size;
+    }
+
+    // EFFECTS: Returns true if the table holds a row for matchId
+    boolean containsKey(int matchId) {
+        return slotOf(matchId) >= 0;
+    }
+
+    // EFFECTS: Returns the row held for matchId, or -1 if there is none
+    int get(int matchId) {
+        int slot = slotOf(matchId);
+        return slot < 0 ? -1 : rows[slot];
+    }
+
+    // REQUIRES: row >= 0
+    // MODIFIES: this
+    // EFFECTS: Sets the row held for matchId, replacing any already held
+    void put(int matchId, int row) {
+        int slot = findSlot(matchId);
+        if (!used[slot]) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+                slot = findSlot(matchId);
+            }
+            used[slot] = true;
+            keys[slot] = matchId;
+            size++;
+        }
+        rows[slot] = row;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes matchId and returns the row held for it, or returns -1 if there was none. Entries after the
+    //          removed one are shifted back so every entry stays reachable from its home slot.
+    int remove(int matchId) {
+        int hole = slotOf(matchId);
+        if (hole < 0) {
+            return -1;
+        }
+
+        int removed = rows[hole];
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = home(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                rows[hole] = rows[i];
+                hole = i;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return removed;
+    }
+
+    // EFFECTS: Returns the match ids the table holds rows for, in no particular order
+    int[] keys() {
+        int[] matchIds = new int[size];
+        int next = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                matchIds[next++] = keys[slot];
+            }
+        }
+        return matchIds;
+    }
+
+    // EFFECTS: Returns the rows the table holds, in the same order as keys()
+    int[] rows() {
+        int[] heldRows = new int[size];
+        int next = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                heldRows[next++] = rows[slot];
+            }
+        }
+        return heldRows;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds offset to every row the table holds
+    void offsetRows(int offset) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                rows[slot] += offset;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes all rows and shrinks the table back to its initial capacity
+    void clear() {
+        keys = new int[INITIAL_CAPACITY];
+        used = new boolean[INITIAL_CAPACITY];
+        rows = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    // EFFECTS: Returns an estimate of the heap bytes used by this table, assuming compressed references
+    long footprintBytes() {
+        return objectBytes(3, 1) + arrayBytes((long) keys.length * Integer.BYTES) + arrayBytes(used.length)
+                + arrayBytes((long) rows.length * Integer.BYTES);
+    }
+
+    // REQUIRES: entries >= 0
+    // EFFECTS: Returns an estimate of the heap bytes a HashMap<Integer, MatchPerformance> with entries entries uses,
+    //          assuming compressed references, default sizing and match ids outside the Integer cache
+    static long boxedMapFootprintBytes(int entries) {
+        long tableLength = 16;
+        while (tableLength * 3 / 4 < entries) {
+            tableLength *= 2;
+        }
+        long table = entries == 0 ? 0 : arrayBytes(tableLength * REFERENCE_BYTES);
+        long entry = objectBytes(3, 1) + objectBytes(0, 1) + objectBytes(0, PerformanceColumns.FIELDS);
+        return objectBytes(4, 4) + table + entries * entry;
+    }
+
+    // EFFECTS: Returns the heap bytes of an object with the provided number of reference and int fields, assuming
+    //          compressed references and 8-byte alignment
+    static long objectBytes(int references, int ints) {
+        return align(OBJECT_HEADER_BYTES + references * REFERENCE_BYTES + ints * Integer.BYTES);
+    }
+
+    // EFFECTS: Returns the heap bytes of an array with payloadBytes bytes of elements, assuming 8-byte alignment
+    static long arrayBytes(long payloadBytes) {
+        return align(ARRAY_HEADER_BYTES + payloadBytes);
+    }
+
+    // EFFECTS: Returns bytes rounded up to the 8-byte object alignment
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // EFFECTS: Returns the slot holding matchId, or -1 if the table does not hold it
+    private int slotOf(int matchId) {
+        int slot = findSlot(matchId);
+        return used[slot] ? slot : -1;
+    }
+
+    // EFFECTS: Returns the slot holding matchId, or the free slot where it would be inserted
+    private int findSlot(int matchId) {
+        int mask = keys.length - 1;
+        int slot = home(matchId);
+        while (used[slot] && keys[slot] != matchId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // EFFECTS: Returns the slot matchId is probed from, spreading consecutive ids across the table
+    private int home(int matchId) {
+        int hash = matchId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    // REQUIRES: capacity is a power of two greater than size
+    // MODIFIES: this
+    // EFFECTS: Moves every entry into a table with capacity slots
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        int[] oldRows = rows;
+        keys = new int[capacity];
+        used = new boolean[capacity];
+        rows = new int[capacity];
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int target = findSlot(oldKeys[slot]);
+                used[target] = true;
+                keys[target] = oldKeys[slot];
+                rows[target] = oldRows[slot];
+            }
+        }
+    }
+}
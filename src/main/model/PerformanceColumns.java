@@ -0,0 +1,303 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents the match performance records of a group of players stored column by column. Each record is a row
+// keyed by match id alone, since which player owns a row is kept only in that player's match stats table, and each
+// of its six stats sits in its own int array so aggregations over every player run as loops over contiguous memory.
+// Rows freed by a player are reused by later records.
+class PerformanceColumns {
+    static final int FIELDS = PerformanceStat.values().length;
+    private static final int DAMAGE = PerformanceStat.DAMAGE.ordinal();
+    private static final int POINTS = PerformanceStat.POINTS.ordinal();
+    private static final int KILLS = PerformanceStat.KILLS.ordinal();
+    private static final int ASSISTS = PerformanceStat.ASSISTS.ordinal();
+    private static final int DEATHS = PerformanceStat.DEATHS.ordinal();
+    private static final int MOST_VALUABLE_PLAYER_AWARDS = PerformanceStat.MOST_VALUABLE_PLAYER_AWARDS.ordinal();
+    private static final int LANES = 4;
+    private static final int INITIAL_CAPACITY = 16;
+    private int[] matchIds;
+    private boolean[] live;
+    private final int[][] stats;
+    private int[] freeRows;
+    private int freeCount;
+    private int rowCount;
+
+    // EFFECTS: Constructs an empty store
+    PerformanceColumns() {
+        matchIds = new int[INITIAL_CAPACITY];
+        live = new boolean[INITIAL_CAPACITY];
+        stats = new int[FIELDS][INITIAL_CAPACITY];
+        freeRows = new int[0];
+    }
+
+    // EFFECTS: Returns the number of live rows
+    synchronized int size() {
+        return rowCount - freeCount;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Stores a record for matchId with the provided stats in a free row and returns the row
+    synchronized int add(int matchId, int damage, int points, int kills, int assists, int deaths,
+                         int mostValuablePlayerAwards) {
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            if (rowCount == matchIds.length) {
+                grow(matchIds.length * 2);
+            }
+            row = rowCount++;
+        }
+
+        matchIds[row] = matchId;
+        live[row] = true;
+        set(row, damage, points, kills, assists, deaths, mostValuablePlayerAwards);
+        return row;
+    }
+
+    // REQUIRES: row is live
+    // MODIFIES: this
+    // EFFECTS: Replaces the stats held in row with the provided values
+    synchronized void set(int row, int damage, int points, int kills, int assists, int deaths,
+                          int mostValuablePlayerAwards) {
+        stats[DAMAGE][row] = damage;
+        stats[POINTS][row] = points;
+        stats[KILLS][row] = kills;
+        stats[ASSISTS][row] = assists;
+        stats[DEATHS][row] = deaths;
+        stats[MOST_VALUABLE_PLAYER_AWARDS][row] = mostValuablePlayerAwards;
+    }
+
+    // REQUIRES: row is live
+    // EFFECTS: Returns the stats held in row
+    synchronized MatchPerformance get(int row) {
+        return new MatchPerformance(stats[DAMAGE][row], stats[POINTS][row], stats[KILLS][row], stats[ASSISTS][row],
+                stats[DEATHS][row], stats[MOST_VALUABLE_PLAYER_AWARDS][row]);
+    }
+
+    // REQUIRES: row is live in this, target is not this
+    // MODIFIES: this, target
+    // EFFECTS: Stores a copy of row in target, frees row and returns the row of the copy
+    synchronized int moveTo(int row, PerformanceColumns target) {
+        int moved = target.add(matchIds[row], stats[DAMAGE][row], stats[POINTS][row], stats[KILLS][row],
+                stats[ASSISTS][row], stats[DEATHS][row], stats[MOST_VALUABLE_PLAYER_AWARDS][row]);
+        release(row);
+        return moved;
+    }
+
+    // REQUIRES: chunk is not this
+    // MODIFIES: this
+    // EFFECTS: Copies every row of chunk into this in one pass and returns base, the row the first copied row lands
+    //          in, so row r of chunk becomes row base + r. Rows free in chunk stay free in this and chunk is left
+    //          unchanged.
+    synchronized int appendAll(PerformanceColumns chunk) {
+        synchronized (chunk) {
+            int base = rowCount;
+            int count = chunk.rowCount;
+            if (base + count > matchIds.length) {
+                grow(Math.max(matchIds.length * 2, base + count));
+            }
+            System.arraycopy(chunk.matchIds, 0, matchIds, base, count);
+            System.arraycopy(chunk.live, 0, live, base, count);
+            for (int field = 0; field < FIELDS; field++) {
+                System.arraycopy(chunk.stats[field], 0, stats[field], base, count);
+            }
+            rowCount += count;
+            for (int i = 0; i < chunk.freeCount; i++) {
+                release(base + chunk.freeRows[i]);
+            }
+            return base;
+        }
+    }
+
+    // REQUIRES: row is live
+    // MODIFIES: this
+    // EFFECTS: Frees row for reuse by a later record
+    synchronized void release(int row) {
+        live[row] = false;
+        if (freeCount == freeRows.length) {
+            int[] grown = new int[Math.max(INITIAL_CAPACITY, freeRows.length * 2)];
+            System.arraycopy(freeRows, 0, grown, 0, freeCount);
+            freeRows = grown;
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    // REQUIRES: stat is not null, roundsByMatch[id] >= 0 for every id in roundsByMatch
+    // EFFECTS: Returns the sum of stat over live rows whose match id indexes a non-zero entry of roundsByMatch,
+    //          divided by the sum of those entries, or 0 if there are no such rows
+    synchronized double averagePerRound(PerformanceStat stat, int[] roundsByMatch) {
+        int[] column = stats[stat.ordinal()];
+        long total = 0;
+        long rounds = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int matchId = matchIds[row];
+            if (live[row] && matchId >= 0 && matchId < roundsByMatch.length) {
+                int matchRounds = roundsByMatch[matchId];
+                if (matchRounds > 0) {
+                    total += column[row];
+                    rounds += matchRounds;
+                }
+            }
+        }
+        return rounds == 0 ? 0 : (double) total / rounds;
+    }
+
+    // REQUIRES: stat is not null
+    // EFFECTS: Returns a summary of stat over every live row
+    synchronized StatSummary summarize(PerformanceStat stat) {
+        if (freeCount == 0) {
+            return summarizeRange(stats[stat.ordinal()], rowCount);
+        }
+        return summarizeRows(stats[stat.ordinal()], selectRows(null));
+    }
+
+    // REQUIRES: stat and matchFilter are not null
+    // EFFECTS: Returns a summary of stat over live rows whose match id indexes a true entry of matchFilter
+    synchronized StatSummary summarizeMatches(PerformanceStat stat, boolean[] matchFilter) {
+        return summarizeRows(stats[stat.ordinal()], selectRows(matchFilter));
+    }
+
+    // REQUIRES: stat and rows are not null, every entry of rows is live
+    // EFFECTS: Returns a summary of stat over rows
+    synchronized StatSummary summarizeRows(PerformanceStat stat, int[] rows) {
+        return summarizeRows(stats[stat.ordinal()], rows);
+    }
+
+    // REQUIRES: every entry of rows indexes column
+    // EFFECTS: Returns a summary of the values of column at rows, gathered into a contiguous array first
+    private static StatSummary summarizeRows(int[] column, int[] rows) {
+        int[] gathered = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            gathered[i] = column[rows[i]];
+        }
+        return summarizeRange(gathered, gathered.length);
+    }
+
+    // EFFECTS: Returns the live rows, in order, whose match id indexes a true entry of matchFilter, or every live row
+    //          if matchFilter is null
+    private int[] selectRows(boolean[] matchFilter) {
+        int[] rows = new int[size()];
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int matchId = matchIds[row];
+            if (live[row] && (matchFilter == null
+                    || (matchId >= 0 && matchId < matchFilter.length && matchFilter[matchId]))) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // REQUIRES: 0 <= length <= column.length
+    // EFFECTS: Returns a summary of the first length values of column
+    private static StatSummary summarizeRange(int[] column, int length) {
+        if (length == 0) {
+            return new StatSummary(0, 0, 0, 0, 0);
+        }
+        return new StatSummary(length, sum(column, length), min(column, length), max(column, length),
+                sumOfSquares(column, length));
+    }
+
+    // REQUIRES: 0 <= length <= values.length
+    // EFFECTS: Returns the sum of the first length values, accumulated in LANES independent lanes so that
+    //          consecutive additions do not wait on each other
+    private static long sum(int[] values, int length) {
+        long lane0 = 0;
+        long lane1 = 0;
+        long lane2 = 0;
+        long lane3 = 0;
+        int i = 0;
+        for (; i + LANES <= length; i += LANES) {
+            lane0 += values[i];
+            lane1 += values[i + 1];
+            lane2 += values[i + 2];
+            lane3 += values[i + 3];
+        }
+        for (; i < length; i++) {
+            lane0 += values[i];
+        }
+        return lane0 + lane1 + lane2 + lane3;
+    }
+
+    // REQUIRES: 0 <= length <= values.length
+    // EFFECTS: Returns the sum of the squares of the first length values, accumulated in LANES independent lanes
+    private static double sumOfSquares(int[] values, int length) {
+        double lane0 = 0;
+        double lane1 = 0;
+        double lane2 = 0;
+        double lane3 = 0;
+        int i = 0;
+        for (; i + LANES <= length; i += LANES) {
+            lane0 += (double) values[i] * values[i];
+            lane1 += (double) values[i + 1] * values[i + 1];
+            lane2 += (double) values[i + 2] * values[i + 2];
+            lane3 += (double) values[i + 3] * values[i + 3];
+        }
+        for (; i < length; i++) {
+            lane0 += (double) values[i] * values[i];
+        }
+        return lane0 + lane1 + lane2 + lane3;
+    }
+
+    // REQUIRES: 0 < length <= values.length
+    // EFFECTS: Returns the least of the first length values, compared in LANES independent lanes
+    private static int min(int[] values, int length) {
+        int lane0 = values[0];
+        int lane1 = values[0];
+        int i = 0;
+        for (; i + LANES <= length; i += LANES) {
+            lane0 = Math.min(lane0, Math.min(values[i], values[i + 1]));
+            lane1 = Math.min(lane1, Math.min(values[i + 2], values[i + 3]));
+        }
+        for (; i < length; i++) {
+            lane0 = Math.min(lane0, values[i]);
+        }
+        return Math.min(lane0, lane1);
+    }
+
+    // REQUIRES: 0 < length <= values.length
+    // EFFECTS: Returns the greatest of the first length values, compared in LANES independent lanes
+    private static int max(int[] values, int length) {
+        int lane0 = values[0];
+        int lane1 = values[0];
+        int i = 0;
+        for (; i + LANES <= length; i += LANES) {
+            lane0 = Math.max(lane0, Math.max(values[i], values[i + 1]));
+            lane1 = Math.max(lane1, Math.max(values[i + 2], values[i + 3]));
+        }
+        for (; i < length; i++) {
+            lane0 = Math.max(lane0, values[i]);
+        }
+        return Math.max(lane0, lane1);
+    }
+
+    // EFFECTS: Returns an estimate of the heap bytes used by this store, assuming compressed references
+    synchronized long footprintBytes() {
+        long columnBytes = MatchStatsTable.arrayBytes(matchIds.length * (long) Integer.BYTES)
+                + MatchStatsTable.arrayBytes(live.length)
+                + MatchStatsTable.arrayBytes(freeRows.length * (long) Integer.BYTES);
+        for (int[] column : stats) {
+            columnBytes += MatchStatsTable.arrayBytes(column.length * (long) Integer.BYTES);
+        }
+        return MatchStatsTable.objectBytes(4, 2) + MatchStatsTable.arrayBytes(stats.length * 4L) + columnBytes;
+    }
+
+    // REQUIRES: capacity > rowCount
+    // MODIFIES: this
+    // EFFECTS: Moves every row into columns with capacity rows
+    private void grow(int capacity) {
+        int[] grownIds = new int[capacity];
+        System.arraycopy(matchIds, 0, grownIds, 0, rowCount);
+        matchIds = grownIds;
+        boolean[] grownLive = new boolean[capacity];
+        System.arraycopy(live, 0, grownLive, 0, rowCount);
+        live = grownLive;
+        for (int field = 0; field < stats.length; field++) {
+            int[] grown = new int[capacity];
+            System.arraycopy(stats[field], 0, grown, 0, rowCount);
+            stats[field] = grown;
+        }
+    }
+}
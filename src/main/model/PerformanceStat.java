@@ -0,0 +1,11 @@
+package model;
+
+// Represents the per-match performance stats that can be aggregated across players, in column order
+public enum PerformanceStat {
+    DAMAGE,
+    POINTS,
+    KILLS,
+    ASSISTS,
+    DEATHS,
+    MOST_VALUABLE_PLAYER_AWARDS
+}
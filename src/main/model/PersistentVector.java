@@ -0,0 +1,247 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Represents an immutable list that is changed by making a new version sharing all but a few arrays with the old
+// one. Elements sit in leaves of at most WIDTH elements hung under a tree of nodes of at most WIDTH children, with
+// the last, partly full leaf kept apart as the tail. Each node counts the elements its children end at, so leaves
+// left short by a removal are still found, while a child is found straight from the BITS-bit digit of the position
+// as long as nothing was removed before it. Appending copies only the tail, or once it is full, the path from the
+// root to where it is hung, and setting or removing an element copies only the path to it, so older versions stay
+// valid and cost nothing to keep.
+final class PersistentVector<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, 0, null, new Object[0]);
+    private final int size;
+    private final int height;
+    private final Node root;
+    private final Object[] tail;
+
+    // Represents a node of the tree, whose children are the nodes one level down, or leaves on the lowest level
+    private static final class Node {
+        private final Object[] children;
+        private final int[] ends;
+
+        // REQUIRES: children is not empty, ends[i] is the number of elements under children[0] to children[i]
+        // EFFECTS: Constructs a node with the provided children and element counts
+        Node(Object[] children, int[] ends) {
+            this.children = children;
+            this.ends = ends;
+        }
+
+        // EFFECTS: Returns the position below this node of the first element under child
+        int startOf(int child) {
+            return child == 0 ? 0 : ends[child - 1];
+        }
+
+        // EFFECTS: Returns a copy of this node with replacement in place of child, holding delta more elements
+        Node replaced(int child, Object replacement, int delta) {
+            Object[] changedChildren = children.clone();
+            changedChildren[child] = replacement;
+            int[] changedEnds = ends.clone();
+            for (int i = child; i < changedEnds.length; i++) {
+                changedEnds[i] += delta;
+            }
+            return new Node(changedChildren, changedEnds);
+        }
+
+        // EFFECTS: Returns a copy of this node with added, holding count elements, after its last child
+        Node appended(Object added, int count) {
+            Object[] grownChildren = Arrays.copyOf(children, children.length + 1);
+            grownChildren[children.length] = added;
+            int[] grownEnds = Arrays.copyOf(ends, ends.length + 1);
+            grownEnds[ends.length] = ends[ends.length - 1] + count;
+            return new Node(grownChildren, grownEnds);
+        }
+
+        // EFFECTS: Returns a copy of this node without child, or null if child was its only one
+        Node removed(int child) {
+            if (children.length == 1) {
+                return null;
+            }
+            int count = ends[child] - startOf(child);
+            int[] shrunkEnds = new int[ends.length - 1];
+            System.arraycopy(ends, 0, shrunkEnds, 0, child);
+            for (int i = child; i < shrunkEnds.length; i++) {
+                shrunkEnds[i] = ends[i + 1] - count;
+            }
+            return new Node(removeAt(children, child), shrunkEnds);
+        }
+    }
+
+    // EFFECTS: Constructs a vector of size elements held in the tree under root, which is height levels above the
+    //          leaves or null if the tree is empty, followed by the elements of tail
+    private PersistentVector(int size, int height, Node root, Object[] tail) {
+        this.size = size;
+        this.height = height;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    // EFFECTS: Returns the empty vector
+    @SuppressWarnings("unchecked")
+    static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    // REQUIRES: elements is not null
+    // EFFECTS: Returns a vector holding the elements of elements, in order
+    static <T> PersistentVector<T> copyOf(List<T> elements) {
+        PersistentVector<T> vector = empty();
+        for (T element : elements) {
+            vector = vector.append(element);
+        }
+        return vector;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int offset = tailOffset();
+        if (index >= offset) {
+            return (T) tail[index - offset];
+        }
+
+        Object node = root;
+        for (int level = height; level > 0; level--) {
+            Node parent = (Node) node;
+            int child = childFor(parent, level, index);
+            index -= parent.startOf(child);
+            node = parent.children[child];
+        }
+        return (T) ((Object[]) node)[index];
+    }
+
+    // EFFECTS: Returns a vector holding the elements of this one followed by element
+    PersistentVector<T> append(T element) {
+        if (tail.length < WIDTH) {
+            Object[] grownTail = Arrays.copyOf(tail, tail.length + 1);
+            grownTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, height, root, grownTail);
+        }
+
+        Object[] newTail = new Object[] {element};
+        if (root == null) {
+            return new PersistentVector<>(size + 1, 1, (Node) pathTo(1, tail), newTail);
+        }
+        Node pushed = pushTail(root, height);
+        if (pushed != null) {
+            return new PersistentVector<>(size + 1, height, pushed, newTail);
+        }
+        int offset = tailOffset();
+        Node grownRoot = new Node(new Object[] {root, pathTo(height, tail)}, new int[] {offset, offset + WIDTH});
+        return new PersistentVector<>(size + 1, height + 1, grownRoot, newTail);
+    }
+
+    // REQUIRES: 0 <= index < size
+    // EFFECTS: Returns a vector holding the elements of this one with element in place of the one at index, copying
+    //          only the arrays on the path to it
+    PersistentVector<T> with(int index, T element) {
+        int offset = tailOffset();
+        if (index >= offset) {
+            Object[] changedTail = tail.clone();
+            changedTail[index - offset] = element;
+            return new PersistentVector<>(size, height, root, changedTail);
+        }
+        return new PersistentVector<>(size, height, (Node) replaceIn(root, height, index, element), tail);
+    }
+
+    // REQUIRES: 0 <= index < size
+    // EFFECTS: Returns a vector holding the elements of this one but the one at index, copying only the arrays on
+    //          the path to it
+    PersistentVector<T> without(int index) {
+        int offset = tailOffset();
+        if (index >= offset) {
+            return new PersistentVector<>(size - 1, height, root, removeAt(tail, index - offset));
+        }
+        Node shrunk = (Node) removeFrom(root, height, index);
+        return new PersistentVector<>(size - 1, shrunk == null ? 0 : height, shrunk, tail);
+    }
+
+    // EFFECTS: Returns the position of the first element held in the tail
+    private int tailOffset() {
+        return size - tail.length;
+    }
+
+    // REQUIRES: index is below node, which is level levels above the leaves
+    // EFFECTS: Returns the child of node the element at index is under. Each child holds at most WIDTH to the power
+    //          of level elements, so the child is never before the one the digit of index at that level names.
+    private static int childFor(Node node, int level, int index) {
+        int shift = level * BITS;
+        int child = shift < Integer.SIZE ? index >>> shift : 0;
+        while (node.ends[child] <= index) {
+            child++;
+        }
+        return child;
+    }
+
+    // REQUIRES: the tail is full
+    // EFFECTS: Returns a copy of node, which is level levels above the leaves, with the tail hung after the last leaf
+    //          below it, or null if there is no room for it there
+    private Node pushTail(Node node, int level) {
+        int last = node.children.length - 1;
+        if (level > 1) {
+            Node pushed = pushTail((Node) node.children[last], level - 1);
+            if (pushed != null) {
+                return node.replaced(last, pushed, tail.length);
+            }
+        }
+        return last + 1 == WIDTH ? null : node.appended(pathTo(level - 1, tail), tail.length);
+    }
+
+    // REQUIRES: index is below node, which is level levels above the leaves or a leaf if level is 0
+    // EFFECTS: Returns a copy of node with element in place of the element at index below it
+    private static Object replaceIn(Object node, int level, int index, Object element) {
+        if (level == 0) {
+            Object[] copy = ((Object[]) node).clone();
+            copy[index] = element;
+            return copy;
+        }
+        Node parent = (Node) node;
+        int child = childFor(parent, level, index);
+        Object replaced = replaceIn(parent.children[child], level - 1, index - parent.startOf(child), element);
+        return parent.replaced(child, replaced, 0);
+    }
+
+    // REQUIRES: index is below node, which is level levels above the leaves or a leaf if level is 0
+    // EFFECTS: Returns a copy of node without the element at index below it, dropping any leaf or node left empty,
+    //          or null if that was its only element
+    private static Object removeFrom(Object node, int level, int index) {
+        if (level == 0) {
+            Object[] leaf = (Object[]) node;
+            return leaf.length == 1 ? null : removeAt(leaf, index);
+        }
+        Node parent = (Node) node;
+        int child = childFor(parent, level, index);
+        Object shrunk = removeFrom(parent.children[child], level - 1, index - parent.startOf(child));
+        return shrunk == null ? parent.removed(child) : parent.replaced(child, shrunk, -1);
+    }
+
+    // EFFECTS: Returns a copy of array without the element at index
+    private static Object[] removeAt(Object[] array, int index) {
+        Object[] copy = new Object[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        System.arraycopy(array, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    // EFFECTS: Returns leaf, or if level is above 0, a chain of level nodes leading down to it
+    private static Object pathTo(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        return new Node(new Object[] {pathTo(level - 1, leaf)}, new int[] {leaf.length});
+    }
+}
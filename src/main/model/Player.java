@@ -1,65 +1,311 @@
 package model;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import persistence.JsonTokenWriter;
+import persistence.MatchHistorySource;
 import persistence.Writable;
 import persistence.Readable;
 import exceptions.MatchNotFoundException;
 
-// Represents an individual player to be tracked by the application
+// Represents an individual player to be tracked by the application. Its results and totals are 64-bit counters that
+// any number of threads may add to at once, read back as ints clamped to the int range.
 public class Player implements Writable, Readable {
+    private static final int GAMES = 0;
+    private static final int ROUNDS = 1;
+    private static final int WINS = 2;
+    private static final int LOSSES = 3;
+    private static final int DAMAGE = 0;
+    private static final int POINTS = 1;
+    private static final int KILLS = 2;
+    private static final int ASSISTS = 3;
+    private static final int DEATHS = 4;
+    private static final int AWARDS = 5;
+    private static final String[] RESULT_KEYS = {"gamesPlayed", "roundsPlayed", "wins", "losses"};
+    private static final String[] TOTAL_KEYS = {"totalDamageDealt", "totalPoints", "totalKills", "totalAssists",
+            "totalDeaths", "mostValuablePlayerAwards"};
     private String username = "";
-    private final HashMap<Integer, MatchPerformance> matchStats;
-    private int gamesPlayed;
-    private int roundsPlayed;
-    private int wins;
-    private int losses;
-    private int totalDamageDealt;
-    private int totalPoints;
-    private int totalKills;
-    private int totalAssists;
-    private int totalDeaths;
-    private int mostValuablePlayerAwards;
+    private final MatchStatsTable matchStats;
+    private PerformanceColumns performances;
+    private final StripedCounters results;
+    private final StripedCounters totals;
+    private AppData owner;
+    private int id = -1;
+    private int ordinal = -1;
+    private MatchHistorySource pendingMatchStats;
 
     // REQUIRES: username is not null
     // EFFECTS: Constructs a player with the provided username and default value 0 for remaining fields
     public Player(String username) {
         this.username = username;
-        this.matchStats = new HashMap<>();
-        this.gamesPlayed = 0;
-        this.roundsPlayed = 0;
-        this.wins = 0;
-        this.losses = 0;
-        this.totalDamageDealt = 0;
-        this.totalPoints = 0;
-        this.totalKills = 0;
-        this.totalAssists = 0;
-        this.totalDeaths = 0;
-        this.mostValuablePlayerAwards = 0;
+        this.matchStats = new MatchStatsTable();
+        this.results = new StripedCounters(4);
+        this.totals = new StripedCounters(6);
     }
 
     // REQUIRES: username is not null
     // MODIFIES: this
     // EFFECTS: Sets the username of the player to the provided value
     public void setUsername(String username) {
-        this.username = username;
+        AppData.writeLocked(owner, () -> {
+            String oldUsername = this.username;
+            this.username = username;
+
+            if (owner != null) {
+                owner.reindexPlayer(this, oldUsername);
+                owner.recordMutation(new JSONObject().put("op", "renamePlayer").put("from", oldUsername)
+                        .put("to", username));
+            }
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the app data this player belongs to, so that its indexes follow username changes
+    void setOwner(AppData owner) {
+        this.owner = owner;
+    }
+
+    // REQUIRES: id >= 0, this player has not been added to app data
+    // MODIFIES: this
+    // EFFECTS: Sets the id this player is referred to by in its app data and stores, kept through username changes
+    public void loadId(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the position of this player in its app data's players, used as its bit in roster member sets
+    void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
+    int getOrdinal() {
+        return ordinal;
     }
 
     // REQUIRES: matchId, damage, points, kills, assists, deaths, mostValuablePlayerAwards are not null
     // MODIFIES: this
-    // EFFECTS: Sets the match stats of the player for the matchId to the provided values and updates total stats
+    // EFFECTS: Sets the match stats of the player for the matchId to the provided values and updates total stats by
+    //          the difference from the stats the player already had for matchId, if any
     public void setMatchStats(int matchId, int damage, int points, int kills, int assists, int deaths,
                               int mostValuablePlayerAwards) {
-        matchStats.put(matchId, new MatchPerformance(damage, points, kills, assists, deaths, mostValuablePlayerAwards));
+        AppData.writeLocked(owner, () -> applyMatchStats(matchId, damage, points, kills, assists, deaths,
+                mostValuablePlayerAwards));
+    }
+
+    // REQUIRES: the caller holds the write lock of this player's app data, if it has one
+    // MODIFIES: this
+    // EFFECTS: Same as setMatchStats, without taking the app data's write lock
+    void applyMatchStats(int matchId, int damage, int points, int kills, int assists, int deaths,
+                         int mostValuablePlayerAwards) {
+        decodePendingMatchStats();
+        int row = matchStats.get(matchId);
+        if (row < 0) {
+            totals.add(damage, points, kills, assists, deaths, mostValuablePlayerAwards);
+        } else {
+            MatchPerformance previous = performances.get(row);
+            totals.add(damage - previous.getTotalDamageDealt(), points - previous.getTotalPoints(),
+                    kills - previous.getTotalKills(), assists - previous.getTotalAssists(),
+                    deaths - previous.getTotalDeaths(),
+                    mostValuablePlayerAwards - previous.getMostValuablePlayerAwards());
+        }
+        putMatchStats(matchId, damage, points, kills, assists, deaths, mostValuablePlayerAwards);
+
+        if (owner != null) {
+            owner.recordMutation(new JSONObject().put("op", "setMatchStats").put("player", username)
+                    .put("matchId", matchId).put("stats", performances.get(matchStats.get(matchId)).toJson()));
+        }
+    }
+
+    // REQUIRES: the caller holds the write lock of this player's app data, if it has one
+    // MODIFIES: this
+    // EFFECTS: Removes the player's stats for matchId and takes them off its totals, does nothing if it has none
+    void removeMatchStats(int matchId) {
+        decodePendingMatchStats();
+        int row = matchStats.remove(matchId);
+        if (row >= 0) {
+            MatchPerformance removed = performances.get(row);
+            totals.add(-removed.getTotalDamageDealt(), -removed.getTotalPoints(), -removed.getTotalKills(),
+                    -removed.getTotalAssists(), -removed.getTotalDeaths(), -removed.getMostValuablePlayerAwards());
+            performances.release(row);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Stores the provided stats for matchId in the player's performance rows, reusing the row already held
+    //          for matchId if there is one
+    private void putMatchStats(int matchId, int damage, int points, int kills, int assists, int deaths,
+                               int mostValuablePlayerAwards) {
+        int row = matchStats.get(matchId);
+        if (row < 0) {
+            if (performances == null) {
+                performances = new PerformanceColumns();
+            }
+            matchStats.put(matchId, performances.add(matchId, damage, points, kills, assists, deaths,
+                    mostValuablePlayerAwards));
+        } else {
+            performances.set(row, damage, points, kills, assists, deaths, mostValuablePlayerAwards);
+        }
+    }
+
+    // REQUIRES: perf is not null
+    // MODIFIES: this
+    // EFFECTS: Stores the stats of perf for matchId in the player's performance rows
+    private void putMatchStats(int matchId, MatchPerformance perf) {
+        putMatchStats(matchId, perf.getTotalDamageDealt(), perf.getTotalPoints(), perf.getTotalKills(),
+                perf.getTotalAssists(), perf.getTotalDeaths(), perf.getMostValuablePlayerAwards());
+    }
+
+    // REQUIRES: target is not null
+    // MODIFIES: this, target
+    // EFFECTS: Moves the player's performance rows into target and keeps its match stats there from now on, any
+    //          deferred match stats are decoded into target when first used. Rows the player holds on its own are
+    //          copied across in one pass, rows shared with other players one at a time.
+    void movePerformancesTo(PerformanceColumns target) {
+        if (target == performances) {
+            return;
+        }
+        if (performances != null && performances.size() == matchStats.size()) {
+            matchStats.offsetRows(target.appendAll(performances));
+        } else {
+            for (int matchId : matchStats.keys()) {
+                matchStats.put(matchId, performances.moveTo(matchStats.get(matchId), target));
+            }
+        }
+        performances = target;
+    }
+
+    // REQUIRES: matchId, perf are not null
+    // MODIFIES: this
+    // EFFECTS: Sets the match stats of the player for the matchId without updating total stats, used when
+    //          loading stored stats whose totals are loaded separately
+    public void loadMatchStats(int matchId, MatchPerformance perf) {
+        decodePendingMatchStats();
+        putMatchStats(matchId, perf);
+    }
+
+    // REQUIRES: source is not null, player has no match stats
+    // MODIFIES: this
+    // EFFECTS: Defers loading the stored match stats of the player until they are first read or changed, used when
+    //          loading stored stats whose totals are loaded separately
+    public void loadMatchStatsLater(MatchHistorySource source) {
+        pendingMatchStats = source;
+    }
+
+    // EFFECTS: Returns true if stored match stats are waiting to be decoded
+    public synchronized boolean hasPendingMatchStats() {
+        return pendingMatchStats != null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Decodes any stored match stats deferred by loadMatchStatsLater now rather than on first use, under
+    //          the write lock of the player's app data if it has one, throws UncheckedIOException if they cannot be
+    //          read, in which case they stay deferred
+    public void loadPendingMatchStats() {
+        if (hasPendingMatchStats()) {
+            AppData.readDecoded(owner, this, () -> null);
+        }
+    }
 
-        this.totalDamageDealt += damage;
-        this.totalPoints += points;
-        this.totalKills += kills;
-        this.totalAssists += assists;
-        this.totalDeaths += deaths;
-        this.mostValuablePlayerAwards += mostValuablePlayerAwards;
+    // REQUIRES: the caller holds the write lock of this player's app data, if it has one
+    // MODIFIES: this
+    // EFFECTS: Same as loadPendingMatchStats, without taking the app data's lock. The stats are decoded into rows of
+    //          the player's own and merged into the rows it shares in one pass, so players decoded in parallel do
+    //          not contend on the shared rows stat by stat.
+    synchronized void decodePendingMatchStats() {
+        if (pendingMatchStats == null) {
+            return;
+        }
+
+        MatchHistorySource source = pendingMatchStats;
+        pendingMatchStats = null;
+        PerformanceColumns shared = performances;
+        performances = new PerformanceColumns();
+        try {
+            source.load(this);
+        } catch (IOException e) {
+            matchStats.clear();
+            performances = shared;
+            pendingMatchStats = source;
+            throw new UncheckedIOException(e);
+        }
+        if (shared != null) {
+            movePerformancesTo(shared);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Drops any stored match stats deferred by loadMatchStatsLater without decoding them, releasing the
+    //          store file they were left in. A file that fails to close is ignored, since nothing will read it.
+    synchronized void discardPendingMatchStats() {
+        if (pendingMatchStats == null) {
+            return;
+        }
+
+        MatchHistorySource source = pendingMatchStats;
+        pendingMatchStats = null;
+        try {
+            source.release();
+        } catch (IOException e) {
+            // The history is no longer wanted, so there is nothing left to lose
+        }
+    }
+
+    // REQUIRES: name is not null, no other thread is using this player yet
+    // MODIFIES: this
+    // EFFECTS: Sets the aggregate stat stored under the JSON key name to value, unknown keys are ignored
+    public void loadStat(String name, long value) {
+        switch (name) {
+            case "gamesPlayed":
+                results.load(GAMES, value);
+                break;
+            case "roundsPlayed":
+                results.load(ROUNDS, value);
+                break;
+            case "wins":
+                results.load(WINS, value);
+                break;
+            case "losses":
+                results.load(LOSSES, value);
+                break;
+            default:
+                loadTotal(name, value);
+        }
+    }
+
+    // REQUIRES: name is not null
+    // MODIFIES: this
+    // EFFECTS: Sets the performance total stored under the JSON key name to value, unknown keys are ignored
+    private void loadTotal(String name, long value) {
+        switch (name) {
+            case "totalDamageDealt":
+                totals.load(DAMAGE, value);
+                break;
+            case "totalPoints":
+                totals.load(POINTS, value);
+                break;
+            case "totalKills":
+                totals.load(KILLS, value);
+                break;
+            case "totalAssists":
+                totals.load(ASSISTS, value);
+                break;
+            case "totalDeaths":
+                totals.load(DEATHS, value);
+                break;
+            case "mostValuablePlayerAwards":
+                totals.load(AWARDS, value);
+                break;
+            default:
+                break;
+        }
     }
 
     public String getUsername() {
@@ -69,116 +315,210 @@ public class Player implements Writable, Readable {
     // REQUIRES: matchId is not null
     // EFFECTS: Returns the match stats of the player for the matchId, throws MatchNotFoundException if non-existent
     public MatchPerformance getMatchStatsById(int matchId) throws MatchNotFoundException {
-        if (!matchStats.containsKey(matchId)) {
+        MatchPerformance perf = AppData.readDecoded(owner, this, () -> {
+            int row = matchStats.get(matchId);
+            return row < 0 ? null : performances.get(row);
+        });
+        if (perf == null) {
             throw new MatchNotFoundException();
         }
-        return matchStats.get(matchId);
+        return perf;
+    }
+
+    // EFFECTS: Returns the ids of the matches the player has stats for, in ascending order
+    public int[] getMatchIds() {
+        int[] matchIds = AppData.readDecoded(owner, this, matchStats::keys);
+        Arrays.sort(matchIds);
+        return matchIds;
+    }
+
+    MatchStatsTable getMatchStatsTable() {
+        return matchStats;
+    }
+
+    // REQUIRES: games, rounds, wins, losses >= 0, unless they take back results added earlier
+    // MODIFIES: this
+    // EFFECTS: Adds the results of games matches to the player's games played, rounds played, wins and losses
+    void addMatchResults(int games, int rounds, int wins, int losses) {
+        results.add(games, rounds, wins, losses);
     }
 
     // MODIFIES: this
     // EFFECTS: Increments number of games played
     public void incrementGamesPlayed() {
-        this.gamesPlayed++;
+        results.add(1, 0, 0, 0);
     }
 
     // REQUIRES: rounds >= 0
     // MODIFIES: this
     // EFFECTS: Increments number of rounds played
     public void incrementRoundsPlayed(int rounds) {
-        this.roundsPlayed += rounds;
+        results.add(0, rounds, 0, 0);
     }
 
     // MODIFIES: this
     // EFFECTS: Increments number of match wins player has
     public void incrementWins() {
-        this.wins++;
+        results.add(0, 0, 1, 0);
     }
 
     // MODIFIES: this
     // EFFECTS: Increments number of match losses player has
     public void incrementLosses() {
-        this.losses++;
+        results.add(0, 0, 0, 1);
     }
 
     public int getGamesPlayed() {
-        return gamesPlayed;
+        return results.getInt(GAMES);
     }
 
     public int getRoundsPlayed() {
-        return roundsPlayed;
+        return results.getInt(ROUNDS);
     }
 
     public int getWins() {
-        return wins;
+        return results.getInt(WINS);
     }
 
     public int getLosses() {
-        return losses;
+        return results.getInt(LOSSES);
     }
 
     public int getTotalDamageDealt() {
-        return totalDamageDealt;
+        return totals.getInt(DAMAGE);
     }
 
     public int getTotalPoints() {
-        return totalPoints;
+        return totals.getInt(POINTS);
     }
 
     public int getTotalKills() {
-        return totalKills;
+        return totals.getInt(KILLS);
     }
 
     public int getTotalAssists() {
-        return totalAssists;
+        return totals.getInt(ASSISTS);
     }
 
     public int getTotalDeaths() {
-        return totalDeaths;
+        return totals.getInt(DEATHS);
     }
 
     public int getMostValuablePlayerAwards() {
-        return mostValuablePlayerAwards;
+        return totals.getInt(AWARDS);
+    }
+
+    // EFFECTS: Returns the player's games played, rounds played, wins and losses as 64-bit totals, consistent with
+    //          each other even while results are being added
+    public long[] getResults() {
+        return results.snapshot();
+    }
+
+    // REQUIRES: the caller holds the write lock of this player's app data, if it has one
+    // EFFECTS: Returns the sums of the player's stored match stats, in the order of getTotals
+    long[] sumMatchStats() {
+        decodePendingMatchStats();
+        long[] sums = new long[6];
+        for (int row : matchStats.rows()) {
+            MatchPerformance perf = performances.get(row);
+            sums[DAMAGE] += perf.getTotalDamageDealt();
+            sums[POINTS] += perf.getTotalPoints();
+            sums[KILLS] += perf.getTotalKills();
+            sums[ASSISTS] += perf.getTotalAssists();
+            sums[DEATHS] += perf.getTotalDeaths();
+            sums[AWARDS] += perf.getMostValuablePlayerAwards();
+        }
+        return sums;
+    }
+
+    // REQUIRES: expectedResults and expectedTotals are in the order of getResults and getTotals
+    // MODIFIES: this
+    // EFFECTS: Sets the player's results and totals to the expected values, returns true if either differed
+    boolean repairAggregates(long[] expectedResults, long[] expectedTotals) {
+        boolean repaired = false;
+        if (!Arrays.equals(results.snapshot(), expectedResults)) {
+            results.setAll(expectedResults);
+            repaired = true;
+        }
+        if (!Arrays.equals(totals.snapshot(), expectedTotals)) {
+            totals.setAll(expectedTotals);
+            repaired = true;
+        }
+        return repaired;
+    }
+
+    // EFFECTS: Returns the player's total damage dealt, points, kills, assists, deaths and MVP awards as 64-bit
+    //          totals, consistent with each other even while match stats are being set
+    public long[] getTotals() {
+        return totals.snapshot();
     }
 
     @Override
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
 
+        json.put("id", id);
         json.put("username", username);
 
+        loadPendingMatchStats();
         JSONObject perfJson = new JSONObject();
-        for (int key : matchStats.keySet()) {
-            MatchPerformance perf = matchStats.get(key);
+        for (int key : matchStats.keys()) {
+            MatchPerformance perf = performances.get(matchStats.get(key));
             perfJson.put(String.valueOf(key), perf.toJson());
         }
         json.put("matchStats", perfJson);
 
-        json.put("gamesPlayed", gamesPlayed);
-        json.put("roundsPlayed", roundsPlayed);
-        json.put("wins", wins);
-        json.put("losses", losses);
-        json.put("totalDamageDealt", totalDamageDealt);
-        json.put("totalPoints", totalPoints);
-        json.put("totalKills", totalKills);
-        json.put("totalAssists", totalAssists);
-        json.put("totalDeaths", totalDeaths);
-        json.put("mostValuablePlayerAwards", mostValuablePlayerAwards);
+        long[] storedResults = results.snapshot();
+        for (int i = 0; i < RESULT_KEYS.length; i++) {
+            json.put(RESULT_KEYS[i], storedResults[i]);
+        }
+        long[] storedTotals = totals.snapshot();
+        for (int i = 0; i < TOTAL_KEYS.length; i++) {
+            json.put(TOTAL_KEYS[i], storedTotals[i]);
+        }
 
         return json;
     }
 
+    @Override
+    public void writeJson(JsonTokenWriter writer) throws IOException {
+        writer.beginObject();
+
+        writer.name("id").value(id);
+        writer.name("username").value(username);
+        long[] storedResults = results.snapshot();
+        for (int i = 0; i < RESULT_KEYS.length; i++) {
+            writer.name(RESULT_KEYS[i]).value(storedResults[i]);
+        }
+        long[] storedTotals = totals.snapshot();
+        for (int i = 0; i < TOTAL_KEYS.length; i++) {
+            writer.name(TOTAL_KEYS[i]).value(storedTotals[i]);
+        }
+
+        writer.name("matchStats").beginObject();
+        for (int matchId : getMatchIds()) {
+            writer.name(String.valueOf(matchId));
+            performances.get(matchStats.get(matchId)).writeJson(writer);
+        }
+        writer.endObject();
+
+        writer.endObject();
+    }
+
     @Override
     public void fromJson(JSONObject jsonObject) {
-        this.gamesPlayed = jsonObject.getInt("gamesPlayed");
-        this.roundsPlayed = jsonObject.getInt("roundsPlayed");
-        this.wins = jsonObject.getInt("wins");
-        this.losses = jsonObject.getInt("losses");
-        this.totalDamageDealt = jsonObject.getInt("totalDamageDealt");
-        this.totalPoints = jsonObject.getInt("totalPoints");
-        this.totalKills = jsonObject.getInt("totalKills");
-        this.totalAssists = jsonObject.getInt("totalAssists");
-        this.totalDeaths = jsonObject.getInt("totalDeaths");
-        this.mostValuablePlayerAwards = jsonObject.getInt("mostValuablePlayerAwards");
+        decodePendingMatchStats();
+        this.id = jsonObject.optInt("id", -1);
+        results.load(GAMES, jsonObject.getLong("gamesPlayed"));
+        results.load(ROUNDS, jsonObject.getLong("roundsPlayed"));
+        results.load(WINS, jsonObject.getLong("wins"));
+        results.load(LOSSES, jsonObject.getLong("losses"));
+        totals.load(DAMAGE, jsonObject.getLong("totalDamageDealt"));
+        totals.load(POINTS, jsonObject.getLong("totalPoints"));
+        totals.load(KILLS, jsonObject.getLong("totalKills"));
+        totals.load(ASSISTS, jsonObject.getLong("totalAssists"));
+        totals.load(DEATHS, jsonObject.getLong("totalDeaths"));
+        totals.load(AWARDS, jsonObject.getLong("mostValuablePlayerAwards"));
 
         JSONObject perfJson = jsonObject.getJSONObject("matchStats");
         for (String key : perfJson.keySet()) {
@@ -186,7 +526,7 @@ public class Player implements Writable, Readable {
             MatchPerformance perf = new MatchPerformance(data.getInt("totalDamageDealt"),
                     data.getInt("totalPoints"), data.getInt("totalKills"), data.getInt("totalAssists"),
                     data.getInt("totalDeaths"), data.getInt("mostValuablePlayerAwards"));
-            matchStats.put(Integer.parseInt(key), perf);
+            putMatchStats(Integer.parseInt(key), perf);
         }
     }
 }
@@ -0,0 +1,30 @@
+package model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Represents the outcome of a repair of the aggregate stats of an app data: how many players and rosters were
+// corrected, and the rosters whose results could not be checked because some of their matches predate roster ids
+public class RepairReport {
+    private final int repairedCount;
+    private final SortedMap<String, long[]> unverifiedRosters;
+
+    // REQUIRES: repairedCount >= 0, unverifiedRosters maps roster ids to results in the order of Roster.getResults
+    // EFFECTS: Constructs a report of repairedCount corrections that left the rosters in unverifiedRosters alone
+    RepairReport(int repairedCount, SortedMap<String, long[]> unverifiedRosters) {
+        this.repairedCount = repairedCount;
+        this.unverifiedRosters = unverifiedRosters;
+    }
+
+    public int getRepairedCount() {
+        return repairedCount;
+    }
+
+    // EFFECTS: Returns the ids of the rosters whose recorded results differ from the ones their matches with a roster
+    //          id add up to, but which were left alone because matches without a roster id may also count for them,
+    //          mapped to those recomputed results in the order of Roster.getResults
+    public Map<String, long[]> getUnverifiedRosters() {
+        return Collections.unmodifiableSortedMap(unverifiedRosters);
+    }
+}
@@ -1,36 +1,49 @@
 package model;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import persistence.JsonTokenWriter;
 import persistence.Writable;
 import persistence.Readable;
 
-// Represents a roster of players to be tracked by the application
+// Represents a roster of players to be tracked by the application. Its results are 64-bit counters that any number
+// of threads may add to at once, read back as ints clamped to the int range.
 public class Roster implements Writable, Readable {
+    private static final int GAMES = 0;
+    private static final int ROUNDS = 1;
+    private static final int WINS = 2;
+    private static final int LOSSES = 3;
     private final String id;
     private final ArrayList<Player> players;
-    private int gamesPlayed;
-    private int roundsPlayed;
-    private int wins;
-    private int losses;
+    private final StripedCounters results;
+    private AppData owner;
+    private long indexOrder;
+    private final BitSet members;
 
     // EFFECTS: Constructs new Roster with given id and players, and other fields set to default value 0
     public Roster(String id, ArrayList<Player> players) {
         this.id = id;
         this.players = players;
-        this.gamesPlayed = 0;
-        this.roundsPlayed = 0;
-        this.wins = 0;
-        this.losses = 0;
+        this.members = new BitSet();
+        this.results = new StripedCounters(4);
     }
 
     // REQUIRES: player is not null
     // MODIFIES: this
     // EFFECTS: Adds player to roster
     public void addPlayer(Player player) {
-        players.add(player);
+        AppData.writeLocked(owner, () -> {
+            players.add(player);
+            if (owner != null) {
+                owner.indexRosterPlayer(this, player);
+            }
+            recordMembershipChange("addRosterPlayer", player);
+        });
 
         EventLog.getInstance().logEvent(new Event("Player with username \"" + player.getUsername()
                 + "\" added to roster with id \"" + id + "\""));
@@ -40,35 +53,109 @@ public class Roster implements Writable, Readable {
     // MODIFIES: this
     // EFFECTS: Removes player from roster
     public void removePlayer(Player player) {
-        players.remove(player);
+        AppData.writeLocked(owner, () -> {
+            players.remove(player);
+            if (owner != null && !players.contains(player)) {
+                owner.unindexRosterPlayer(this, player);
+            }
+            recordMembershipChange("removeRosterPlayer", player);
+        });
 
         EventLog.getInstance().logEvent(new Event("Player with username \"" + player.getUsername()
                 + "\" removed from roster with id \"" + id + "\""));
     }
 
+    // MODIFIES: this
+    // EFFECTS: Sets the app data this roster belongs to, or null once it has been deleted
+    void setOwner(AppData owner) {
+        this.owner = owner;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the position of this roster among the rosters its app data has indexed, used to list a player's
+    //          rosters in the order they were added
+    void setIndexOrder(long indexOrder) {
+        this.indexOrder = indexOrder;
+    }
+
+    long getIndexOrder() {
+        return indexOrder;
+    }
+
+    BitSet getMembers() {
+        return members;
+    }
+
+    // REQUIRES: player is not null
+    // EFFECTS: Returns true if player is on this roster, checking the roster's member set when player belongs to
+    //          the same app data
+    public boolean hasPlayer(Player player) {
+        if (owner != null && owner.ownsPlayer(player)) {
+            return members.get(player.getOrdinal());
+        }
+        return players.contains(player);
+    }
+
+    // REQUIRES: op is not null, player is not null
+    // EFFECTS: Records a change to the players on this roster to the owning app data's journal
+    private void recordMembershipChange(String op, Player player) {
+        if (owner != null) {
+            owner.recordMutation(new JSONObject().put("op", op).put("roster", id).put("player", player.getUsername()));
+        }
+    }
+
+    // REQUIRES: games, rounds, wins, losses >= 0, unless they take back results added earlier
+    // MODIFIES: this
+    // EFFECTS: Adds the results of games matches to the roster's games played, rounds played, wins and losses
+    void addMatchResults(int games, int rounds, int wins, int losses) {
+        results.add(games, rounds, wins, losses);
+    }
+
     // MODIFIES: this
     // EFFECTS: Increments gamesPlayed by 1
     public void incrementGamesPlayed() {
-        this.gamesPlayed++;
+        results.add(1, 0, 0, 0);
     }
 
     // REQUIRES: rounds >= 0
     // MODIFIES: this
     // EFFECTS: Increments roundsPlayed by rounds
     public void incrementRoundsPlayed(int rounds) {
-        this.roundsPlayed += rounds;
+        results.add(0, rounds, 0, 0);
     }
 
     // MODIFIES: this
     // EFFECTS: Increments wins by 1
     public void incrementWins() {
-        this.wins++;
+        results.add(0, 0, 1, 0);
     }
 
     // MODIFIES: this
     // EFFECTS: Increments losses by 1
     public void incrementLosses() {
-        this.losses++;
+        results.add(0, 0, 0, 1);
+    }
+
+    // REQUIRES: name is not null, no other thread is using this roster yet
+    // MODIFIES: this
+    // EFFECTS: Sets the stat stored under the JSON key name to value, unknown keys are ignored
+    public void loadStat(String name, long value) {
+        switch (name) {
+            case "gamesPlayed":
+                results.load(GAMES, value);
+                break;
+            case "roundsPlayed":
+                results.load(ROUNDS, value);
+                break;
+            case "wins":
+                results.load(WINS, value);
+                break;
+            case "losses":
+                results.load(LOSSES, value);
+                break;
+            default:
+                break;
+        }
     }
 
     public String getId() {
@@ -81,30 +168,49 @@ public class Roster implements Writable, Readable {
 
     // EFFECTS: Returns win rate percentage value to 1 decimal point
     public double getWinRate() {
-        if (gamesPlayed == 0) {
+        long[] totals = results.snapshot();
+        if (totals[GAMES] == 0) {
             return 0;
         }
-        return Math.floor((double) wins / (double) gamesPlayed * 1000) / 10;
+        return Math.floor((double) totals[WINS] / (double) totals[GAMES] * 1000) / 10;
     }
 
     public int getGamesPlayed() {
-        return gamesPlayed;
+        return results.getInt(GAMES);
     }
 
     public int getRoundsPlayed() {
-        return roundsPlayed;
+        return results.getInt(ROUNDS);
     }
 
     public int getWins() {
-        return wins;
+        return results.getInt(WINS);
     }
 
     public int getLosses() {
-        return losses;
+        return results.getInt(LOSSES);
     }
 
     public int getTies() {
-        return gamesPlayed - wins - losses;
+        long[] totals = results.snapshot();
+        return (int) (totals[GAMES] - totals[WINS] - totals[LOSSES]);
+    }
+
+    // EFFECTS: Returns the roster's games played, rounds played, wins and losses as 64-bit totals, consistent with
+    //          each other even while results are being added
+    public long[] getResults() {
+        return results.snapshot();
+    }
+
+    // REQUIRES: expected is in the order of getResults
+    // MODIFIES: this
+    // EFFECTS: Sets the roster's results to expected, returns true if they differed
+    boolean repairResults(long[] expected) {
+        if (Arrays.equals(results.snapshot(), expected)) {
+            return false;
+        }
+        results.setAll(expected);
+        return true;
     }
 
     @Override
@@ -115,23 +221,45 @@ public class Roster implements Writable, Readable {
 
         JSONArray jsonArray = new JSONArray();
         for (Player player : players) {
-            jsonArray.put(player.getUsername());
+            jsonArray.put(player.getId());
         }
-        json.put("players", jsonArray);
+        json.put("playerIds", jsonArray);
 
-        json.put("gamesPlayed", gamesPlayed);
-        json.put("roundsPlayed", roundsPlayed);
-        json.put("wins", wins);
-        json.put("losses", losses);
+        long[] stored = results.snapshot();
+        json.put("gamesPlayed", stored[GAMES]);
+        json.put("roundsPlayed", stored[ROUNDS]);
+        json.put("wins", stored[WINS]);
+        json.put("losses", stored[LOSSES]);
 
         return json;
     }
 
+    @Override
+    public void writeJson(JsonTokenWriter writer) throws IOException {
+        writer.beginObject();
+
+        writer.name("id").value(id);
+
+        writer.name("playerIds").beginArray();
+        for (Player player : players) {
+            writer.value(player.getId());
+        }
+        writer.endArray();
+
+        long[] stored = results.snapshot();
+        writer.name("gamesPlayed").value(stored[GAMES]);
+        writer.name("roundsPlayed").value(stored[ROUNDS]);
+        writer.name("wins").value(stored[WINS]);
+        writer.name("losses").value(stored[LOSSES]);
+
+        writer.endObject();
+    }
+
     @Override
     public void fromJson(JSONObject jsonObject) {
-        this.gamesPlayed = jsonObject.getInt("gamesPlayed");
-        this.roundsPlayed = jsonObject.getInt("roundsPlayed");
-        this.wins = jsonObject.getInt("wins");
-        this.losses = jsonObject.getInt("losses");
+        results.load(GAMES, jsonObject.getLong("gamesPlayed"));
+        results.load(ROUNDS, jsonObject.getLong("roundsPlayed"));
+        results.load(WINS, jsonObject.getLong("wins"));
+        results.load(LOSSES, jsonObject.getLong("losses"));
     }
 }
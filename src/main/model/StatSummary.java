@@ -0,0 +1,50 @@
+package model;
+
+// Represents the count, sum, extremes and spread of a performance stat over a set of match performances
+public class StatSummary {
+    private final int count;
+    private final long sum;
+    private final int min;
+    private final int max;
+    private final double sumOfSquares;
+
+    // REQUIRES: count >= 0, min and max are 0 if count is 0
+    // EFFECTS: Constructs a summary of count values with the provided sum, extremes and sum of squares
+    StatSummary(int count, long sum, int min, int max, double sumOfSquares) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.sumOfSquares = sumOfSquares;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    // EFFECTS: Returns the mean of the summarized values, or 0 if there are none
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // EFFECTS: Returns the population variance of the summarized values, or 0 if there are none
+    public double getVariance() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = getMean();
+        return Math.max(0, sumOfSquares / count - mean * mean);
+    }
+}
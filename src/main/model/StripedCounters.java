@@ -0,0 +1,227 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Represents a fixed number of 64-bit counters that any number of threads may add to at once without losing updates
+// or taking a shared lock. The counters are held in stripes, each led by a sequence number that is odd while an add
+// to that stripe is in progress. An add changes all of its counters within one stripe, so reading every stripe at an
+// even, unchanged sequence number and summing gives totals of whole adds only. There is a single stripe until two
+// threads collide on it, after which the counters are spread over one stripe per processor, picked by thread.
+final class StripedCounters {
+    private static final long MOVED = -1;
+    private static final long[] NO_VALUES = new long[0];
+    private static final int LINE_LONGS = 8;
+    private static final int MAX_STRIPES = Integer.highestOneBit(Math.max(1,
+            Runtime.getRuntime().availableProcessors() * 2 - 1));
+    private final int counters;
+    private volatile AtomicLongArray cells;
+
+    // REQUIRES: counters > 0
+    // EFFECTS: Constructs counters counters, all 0
+    StripedCounters(int counters) {
+        this.counters = counters;
+        this.cells = new AtomicLongArray(counters + 1);
+    }
+
+    // REQUIRES: deltas has one entry for each counter
+    // MODIFIES: this
+    // EFFECTS: Adds each delta to its counter, all as one change that no read sees half done
+    void add(long... deltas) {
+        while (true) {
+            AtomicLongArray current = cells;
+            int base = stripeOf(current);
+            long sequence = current.get(base);
+            if (sequence == MOVED) {
+                continue;
+            }
+            if ((sequence & 1) != 0 || !current.compareAndSet(base, sequence, sequence + 1)) {
+                spread(current);
+                continue;
+            }
+
+            for (int i = 0; i < deltas.length; i++) {
+                current.getAndAdd(base + 1 + i, deltas[i]);
+            }
+            current.set(base, sequence + 2);
+            return;
+        }
+    }
+
+    // REQUIRES: 0 <= counter < number of counters
+    // EFFECTS: Returns the current total of counter
+    long get(int counter) {
+        return snapshot()[counter];
+    }
+
+    // REQUIRES: 0 <= counter < number of counters
+    // EFFECTS: Returns the current total of counter, clamped to the range of an int
+    int getInt(int counter) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, get(counter)));
+    }
+
+    // EFFECTS: Returns the totals of every counter, which together reflect a set of whole adds
+    long[] snapshot() {
+        while (true) {
+            AtomicLongArray current = cells;
+            long[] totals = new long[counters];
+            if (sumStripes(current, totals)) {
+                return totals;
+            }
+        }
+    }
+
+    // REQUIRES: 0 <= counter < number of counters
+    // MODIFIES: this
+    // EFFECTS: Sets counter to value, as one change that no read or add sees half done
+    void set(int counter, long value) {
+        while (true) {
+            AtomicLongArray current = cells;
+            if (replace(current, stripesOf(current), counter, new long[] {value})) {
+                return;
+            }
+        }
+    }
+
+    // REQUIRES: 0 <= counter < number of counters, no other thread is using these counters
+    // MODIFIES: this
+    // EFFECTS: Sets counter to value by writing its cells in place, without the copy set publishes, for filling in
+    //          counters that are not shared yet
+    void load(int counter, long value) {
+        AtomicLongArray current = cells;
+        int stride = strideOf(current);
+        current.set(1 + counter, value);
+        for (int base = stride; base < current.length(); base += stride) {
+            current.set(base + 1 + counter, 0);
+        }
+    }
+
+    // REQUIRES: values has one entry for each counter
+    // MODIFIES: this
+    // EFFECTS: Sets each counter to its value, all as one change that no read or add sees half done
+    void setAll(long... values) {
+        while (true) {
+            AtomicLongArray current = cells;
+            if (replace(current, stripesOf(current), 0, values)) {
+                return;
+            }
+        }
+    }
+
+    // EFFECTS: Adds the totals of every stripe of current to totals, returns false if current has been replaced
+    private boolean sumStripes(AtomicLongArray current, long[] totals) {
+        int stride = strideOf(current);
+        for (int base = 0; base < current.length(); base += stride) {
+            long before;
+            long[] stripe = new long[counters];
+            do {
+                before = awaitEven(current, base);
+                if (before == MOVED) {
+                    return false;
+                }
+                for (int i = 0; i < counters; i++) {
+                    stripe[i] = current.get(base + 1 + i);
+                }
+            } while (current.get(base) != before);
+
+            for (int i = 0; i < counters; i++) {
+                totals[i] += stripe[i];
+            }
+        }
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Spreads the counters over MAX_STRIPES stripes if current still holds them in fewer
+    private void spread(AtomicLongArray current) {
+        if (stripesOf(current) < MAX_STRIPES) {
+            replace(current, MAX_STRIPES, 0, NO_VALUES);
+        } else {
+            Thread.onSpinWait();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Waits out every add in progress on current and holds off new ones, then publishes a copy of its totals
+    //          spread over stripes stripes, with the counters from first on set to values. Marks current as moved so
+    //          adds and reads retry on the copy. Returns false and changes nothing if current has been replaced.
+    private boolean replace(AtomicLongArray current, int stripes, int first, long[] values) {
+        if (!holdAll(current)) {
+            return false;
+        }
+
+        AtomicLongArray copy = new AtomicLongArray(stripes == 1 ? counters + 1 : stripes * paddedStride());
+        int stride = strideOf(current);
+        for (int base = 0; base < current.length(); base += stride) {
+            for (int i = 0; i < counters; i++) {
+                copy.getAndAdd(1 + i, current.get(base + 1 + i));
+            }
+        }
+        for (int i = 0; i < values.length; i++) {
+            copy.set(1 + first + i, values[i]);
+        }
+        cells = copy;
+        for (int base = 0; base < current.length(); base += stride) {
+            current.set(base, MOVED);
+        }
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Marks every stripe of current as being added to once no add to it is in progress, in order, and
+    //          returns true. Releases the stripes it marked and returns false if current has been replaced or
+    //          another thread marks a stripe first.
+    private boolean holdAll(AtomicLongArray current) {
+        int stride = strideOf(current);
+        int held = 0;
+        for (; held < current.length(); held += stride) {
+            long sequence = awaitEven(current, held);
+            if (sequence == MOVED || !current.compareAndSet(held, sequence, sequence + 1)) {
+                break;
+            }
+        }
+        if (held == current.length()) {
+            return true;
+        }
+
+        for (int base = 0; base < held; base += stride) {
+            current.getAndIncrement(base);
+        }
+        return false;
+    }
+
+    // EFFECTS: Returns the sequence number at base once no add to that stripe is in progress, or MOVED
+    private static long awaitEven(AtomicLongArray current, int base) {
+        long sequence = current.get(base);
+        while (sequence != MOVED && (sequence & 1) != 0) {
+            Thread.onSpinWait();
+            sequence = current.get(base);
+        }
+        return sequence;
+    }
+
+    // EFFECTS: Returns the index of the sequence number of the calling thread's stripe in current
+    private int stripeOf(AtomicLongArray current) {
+        int stripes = stripesOf(current);
+        if (stripes == 1) {
+            return 0;
+        }
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return ((hash >>> 16) & (stripes - 1)) * paddedStride();
+    }
+
+    // EFFECTS: Returns the number of stripes current holds
+    private int stripesOf(AtomicLongArray current) {
+        return current.length() / strideOf(current);
+    }
+
+    // EFFECTS: Returns the distance between the starts of two stripes of current
+    private int strideOf(AtomicLongArray current) {
+        return current.length() == counters + 1 ? counters + 1 : paddedStride();
+    }
+
+    // EFFECTS: Returns the distance between stripes once spread, a whole number of cache lines so that threads
+    //          adding to different stripes do not write to the same line
+    private int paddedStride() {
+        return (counters + LINE_LONGS) / LINE_LONGS * LINE_LONGS;
+    }
+}
@@ -0,0 +1,78 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Represents a dictionary of distinct strings, each given a small integer code in the order it was first added. Each
+// string is held once, so code holders share one instance per string and compare codes instead of characters.
+// Lookups may run concurrently with each other and with additions.
+class SymbolTable {
+    private static final int INITIAL_CAPACITY = 16;
+    private final ConcurrentHashMap<String, Integer> codes;
+    private volatile String[] names;
+    private int size;
+
+    // EFFECTS: Constructs an empty table
+    SymbolTable() {
+        codes = new ConcurrentHashMap<>();
+        names = new String[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    // REQUIRES: name is not null
+    // MODIFIES: this
+    // EFFECTS: Returns the code of name, adding name with the next unused code if the table does not hold it
+    int codeOf(String name) {
+        Integer code = codes.get(name);
+        return code == null ? add(name) : code;
+    }
+
+    // REQUIRES: name is not null
+    // EFFECTS: Returns the code of name, or -1 if the table does not hold it
+    int find(String name) {
+        Integer code = codes.get(name);
+        return code == null ? -1 : code;
+    }
+
+    // REQUIRES: code was returned by codeOf on this table
+    // EFFECTS: Returns the string with code
+    String nameOf(int code) {
+        return names[code];
+    }
+
+    // REQUIRES: name is not null
+    // MODIFIES: this
+    // EFFECTS: Returns the instance of name held by the table, adding name first if the table does not hold it
+    String canonical(String name) {
+        return nameOf(codeOf(name));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes every string from the table, after which codes are given out from 0 again
+    synchronized void clear() {
+        codes.clear();
+        names = new String[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds name with the next unused code if no other thread has added it since it was looked up, and
+    //          returns its code. The name is stored before its code is published, so any thread that sees the code
+    //          also sees the name.
+    private synchronized int add(String name) {
+        Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+
+        String[] grown = size == names.length ? Arrays.copyOf(names, size * 2) : names;
+        grown[size] = name;
+        names = grown;
+        codes.put(name, size);
+        return size++;
+    }
+}
@@ -0,0 +1,490 @@
+package persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import model.*;
+import exceptions.AppDataInvalidException;
+import exceptions.MatchNotFoundException;
+
+// Represents the versioned binary snapshot format for app data. A snapshot is the magic bytes "TGO" and a version
+// byte, the journal sequence, a symbol table holding each username, roster id and map name once, then the players,
+// rosters and matches. Integers are varints, zigzag-encoded where they may be negative, and entities refer to
+// strings by symbol index and to players by their position in the players section. Since version 2 each player's
+// match history is prefixed with its length in bytes so it can be skipped and decoded later, since version 3
+// each match records the roster that played it, since version 4 each player records its id, and since version 5
+// aggregate stats are written at their full 64 bits. Earlier versions wrote them clamped to an int, and as varints
+// of the same encoding they read back unchanged.
+public class BinaryStoreCodec {
+    private static final byte[] MAGIC = {'T', 'G', 'O'};
+    private static final int VERSION = 5;
+    private static final int FIRST_FRAMED_VERSION = 2;
+    private static final int FIRST_MATCH_ROSTER_VERSION = 3;
+    private static final int FIRST_PLAYER_ID_VERSION = 4;
+    static final String[] PLAYER_STATS = {"gamesPlayed", "roundsPlayed", "wins", "losses",
+            "totalDamageDealt", "totalPoints", "totalKills", "totalAssists", "totalDeaths",
+            "mostValuablePlayerAwards"};
+    static final String[] ROSTER_STATS = {"gamesPlayed", "roundsPlayed", "wins", "losses"};
+    private int version;
+    private CountingInputStream counter;
+    private LazyStoreFile historyFile;
+
+    // REQUIRES: appData is not null, out is open for writing
+    // EFFECTS: Writes a binary snapshot of appData to out, throws IOException if an error occurs while writing data
+    //          or a roster or match references a player that is not in appData. The snapshot is written under appData's
+    //          read lock, after any deferred match stats are decoded, so no change to appData runs while it is written.
+    public void encode(AppData appData, OutputStream out) throws IOException {
+        try {
+            appData.readDecoded(() -> {
+                try {
+                    encodeEntities(appData, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // REQUIRES: the calling thread holds appData's read lock and appData has no deferred match stats
+    // EFFECTS: Writes the snapshot encode describes to out
+    private void encodeEntities(AppData appData, OutputStream out) throws IOException {
+        HashMap<String, Integer> symbols = collectSymbols(appData);
+        IdentityHashMap<Player, Integer> ordinals = new IdentityHashMap<>();
+
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeUnsigned(out, appData.getJournalSequence());
+        writeSymbols(out, symbols);
+
+        writeUnsigned(out, appData.getPlayers().size());
+        for (Player player : appData.getPlayers()) {
+            ordinals.put(player, ordinals.size());
+            encodePlayer(out, player, symbols);
+        }
+        writeUnsigned(out, appData.getRosters().size());
+        for (Roster roster : appData.getRosters()) {
+            encodeRoster(out, roster, symbols, ordinals);
+        }
+        writeUnsigned(out, appData.getMatches().size());
+        for (Match match : appData.getMatches()) {
+            encodeMatch(out, match, symbols, ordinals);
+        }
+    }
+
+    // REQUIRES: appData is not null, in is open for reading
+    // MODIFIES: appData
+    // EFFECTS: Replaces the contents of appData with the binary snapshot read from in, throws
+    //          AppDataInvalidException if the snapshot has an unknown header or version or references a missing
+    //          symbol or player, throws IOException if an error occurs while reading data
+    public void decode(InputStream in, AppData appData) throws IOException, AppDataInvalidException {
+        decode(in, appData, null);
+    }
+
+    // REQUIRES: appData is not null, in is open for reading and reads from the start of historyFile if it is not
+    //           null
+    // MODIFIES: this, appData
+    // EFFECTS: Same as decode(in, appData), but leaves each player's match history to be decoded from historyFile
+    //          on demand unless historyFile is null or the snapshot predates framed histories
+    void decode(InputStream in, AppData appData, LazyStoreFile historyFile) throws IOException,
+            AppDataInvalidException {
+        this.counter = new CountingInputStream(in);
+        this.historyFile = historyFile;
+        DataInputStream data = new DataInputStream(counter);
+        version = readHeader(data);
+
+        appData.clear();
+        appData.setJournalSequence(readUnsigned(data));
+        ArrayList<String> symbols = readSymbols(data);
+
+        ArrayList<Player> players = new ArrayList<>();
+        for (long i = readUnsigned(data); i > 0; i--) {
+            Player player = decodePlayer(data, symbols);
+            players.add(player);
+            appData.loadPlayer(player);
+        }
+        for (long i = readUnsigned(data); i > 0; i--) {
+            appData.loadRoster(decodeRoster(data, symbols, players));
+        }
+        for (long i = readUnsigned(data); i > 0; i--) {
+            appData.loadMatch(decodeMatch(data, symbols, players));
+        }
+    }
+
+    // EFFECTS: Returns every username, roster id, map name and match roster id in appData mapped to its symbol
+    //          index, numbered in order of first appearance
+    static HashMap<String, Integer> collectSymbols(AppData appData) {
+        HashMap<String, Integer> symbols = new HashMap<>();
+        for (Player player : appData.getPlayers()) {
+            symbols.putIfAbsent(player.getUsername(), symbols.size());
+        }
+        for (Roster roster : appData.getRosters()) {
+            symbols.putIfAbsent(roster.getId(), symbols.size());
+        }
+        for (Match match : appData.getMatches()) {
+            symbols.putIfAbsent(match.getMap(), symbols.size());
+            if (match.getRosterId() != null) {
+                symbols.putIfAbsent(match.getRosterId(), symbols.size());
+            }
+        }
+        return symbols;
+    }
+
+    // EFFECTS: Writes the symbol table as a count followed by each symbol's UTF-8 length and bytes, in index order
+    private void writeSymbols(OutputStream out, HashMap<String, Integer> symbols) throws IOException {
+        String[] ordered = new String[symbols.size()];
+        for (String symbol : symbols.keySet()) {
+            ordered[symbols.get(symbol)] = symbol;
+        }
+
+        writeUnsigned(out, ordered.length);
+        for (String symbol : ordered) {
+            byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    // EFFECTS: Writes player's username symbol, id, aggregate stats and per-match stats in ascending match id
+    //          order, with each match id stored as the gap from the previous one
+    private void encodePlayer(OutputStream out, Player player, HashMap<String, Integer> symbols) throws IOException {
+        writeUnsigned(out, symbols.get(player.getUsername()));
+        writeUnsigned(out, player.getId());
+        for (long stat : playerStats(player)) {
+            writeSigned(out, stat);
+        }
+
+        ByteArrayOutputStream history = new ByteArrayOutputStream();
+        int[] matchIds = player.getMatchIds();
+        writeUnsigned(history, matchIds.length);
+        int previous = 0;
+        for (int matchId : matchIds) {
+            writeSigned(history, (long) matchId - previous);
+            previous = matchId;
+            encodeMatchPerformance(history, getMatchStats(player, matchId));
+        }
+
+        writeUnsigned(out, history.size());
+        history.writeTo(out);
+    }
+
+    // EFFECTS: Returns player's aggregate stats in the order of PLAYER_STATS
+    static long[] playerStats(Player player) {
+        long[] results = player.getResults();
+        long[] totals = player.getTotals();
+        long[] stats = Arrays.copyOf(results, results.length + totals.length);
+        System.arraycopy(totals, 0, stats, results.length, totals.length);
+        return stats;
+    }
+
+    // EFFECTS: Writes the six fields of perf
+    private void encodeMatchPerformance(OutputStream out, MatchPerformance perf) throws IOException {
+        writeSigned(out, perf.getTotalDamageDealt());
+        writeSigned(out, perf.getTotalPoints());
+        writeSigned(out, perf.getTotalKills());
+        writeSigned(out, perf.getTotalAssists());
+        writeSigned(out, perf.getTotalDeaths());
+        writeSigned(out, perf.getMostValuablePlayerAwards());
+    }
+
+    // EFFECTS: Writes roster's id symbol, member ordinals and stats
+    private void encodeRoster(OutputStream out, Roster roster, HashMap<String, Integer> symbols,
+                              IdentityHashMap<Player, Integer> ordinals) throws IOException {
+        writeUnsigned(out, symbols.get(roster.getId()));
+        writePlayers(out, roster.getPlayers(), ordinals);
+        for (long stat : roster.getResults()) {
+            writeSigned(out, stat);
+        }
+    }
+
+    // EFFECTS: Writes match's id, result, map symbol, player ordinals and roster symbol plus one, or 0 if match has no
+    //          recorded roster
+    private void encodeMatch(OutputStream out, Match match, HashMap<String, Integer> symbols,
+                             IdentityHashMap<Player, Integer> ordinals) throws IOException {
+        writeSigned(out, match.getMatchId());
+        writeSigned(out, match.getRoundsWon());
+        writeSigned(out, match.getRoundsLost());
+        writeUnsigned(out, symbols.get(match.getMap()));
+        writePlayers(out, match.getPlayers(), ordinals);
+        writeUnsigned(out, match.getRosterId() == null ? 0 : symbols.get(match.getRosterId()) + 1);
+    }
+
+    // EFFECTS: Writes a count followed by the ordinal of each player, throws IOException if a player has no ordinal
+    private void writePlayers(OutputStream out, List<Player> players, IdentityHashMap<Player, Integer> ordinals)
+            throws IOException {
+        writeUnsigned(out, players.size());
+        for (Player player : players) {
+            Integer ordinal = ordinals.get(player);
+            if (ordinal == null) {
+                throw new IOException("Player \"" + player.getUsername() + "\" is referenced but not stored");
+            }
+            writeUnsigned(out, ordinal);
+        }
+    }
+
+    // EFFECTS: Returns player's stats for matchId, which is one of player's match ids
+    static MatchPerformance getMatchStats(Player player, int matchId) {
+        try {
+            return player.getMatchStatsById(matchId);
+        } catch (MatchNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // EFFECTS: Consumes the magic bytes and version and returns the version, throws AppDataInvalidException if
+    //          either is not recognized
+    private int readHeader(DataInputStream data) throws IOException, AppDataInvalidException {
+        for (byte expected : MAGIC) {
+            if (data.readByte() != expected) {
+                throw new AppDataInvalidException();
+            }
+        }
+
+        int snapshotVersion = data.readUnsignedByte();
+        if (snapshotVersion < 1 || snapshotVersion > VERSION) {
+            throw new AppDataInvalidException();
+        }
+        return snapshotVersion;
+    }
+
+    // EFFECTS: Reads the symbol table and returns the symbols in index order
+    private ArrayList<String> readSymbols(DataInputStream data) throws IOException, AppDataInvalidException {
+        ArrayList<String> symbols = new ArrayList<>();
+        for (long i = readUnsigned(data); i > 0; i--) {
+            byte[] bytes = new byte[readCount(data)];
+            data.readFully(bytes);
+            symbols.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return symbols;
+    }
+
+    // EFFECTS: Reads a player and its match stats and returns it
+    private Player decodePlayer(DataInputStream data, ArrayList<String> symbols) throws IOException,
+            AppDataInvalidException {
+        Player player = new Player(symbol(data, symbols));
+        if (version >= FIRST_PLAYER_ID_VERSION) {
+            player.loadId(readCount(data));
+        }
+        for (String stat : PLAYER_STATS) {
+            player.loadStat(stat, readSignedLong(data));
+        }
+
+        if (version < FIRST_FRAMED_VERSION) {
+            decodeMatchHistory(data, player);
+        } else if (historyFile == null) {
+            readCount(data);
+            decodeMatchHistory(data, player);
+        } else {
+            int length = readCount(data);
+            long offset = counter.getCount();
+            skipFully(data, length);
+            historyFile.retain();
+            player.loadMatchStatsLater(new BinaryMatchHistory(historyFile, offset, length));
+        }
+        return player;
+    }
+
+    // MODIFIES: player
+    // EFFECTS: Reads a match history into player
+    private static void decodeMatchHistory(DataInputStream data, Player player) throws IOException,
+            AppDataInvalidException {
+        int matchId = 0;
+        for (long i = readUnsigned(data); i > 0; i--) {
+            matchId += readSigned(data);
+            player.loadMatchStats(matchId, new MatchPerformance(readSigned(data), readSigned(data),
+                    readSigned(data), readSigned(data), readSigned(data), readSigned(data)));
+        }
+    }
+
+    // EFFECTS: Reads a roster and returns it
+    private Roster decodeRoster(DataInputStream data, ArrayList<String> symbols, ArrayList<Player> players)
+            throws IOException, AppDataInvalidException {
+        Roster roster = new Roster(symbol(data, symbols), readPlayers(data, players));
+        for (String stat : ROSTER_STATS) {
+            roster.loadStat(stat, readSignedLong(data));
+        }
+        return roster;
+    }
+
+    // EFFECTS: Reads a match and returns it
+    private Match decodeMatch(DataInputStream data, ArrayList<String> symbols, ArrayList<Player> players)
+            throws IOException, AppDataInvalidException {
+        int matchId = readSigned(data);
+        int roundsWon = readSigned(data);
+        int roundsLost = readSigned(data);
+        String map = symbol(data, symbols);
+        ArrayList<Player> referenced = readPlayers(data, players);
+        String rosterId = null;
+        if (version >= FIRST_MATCH_ROSTER_VERSION) {
+            long rosterSymbol = readUnsigned(data);
+            if (rosterSymbol > 0) {
+                rosterId = symbols.get(checkIndex(rosterSymbol - 1, symbols.size()));
+            }
+        }
+        return new Match(matchId, rosterId, referenced, roundsWon, roundsLost, map);
+    }
+
+    // EFFECTS: Reads a count followed by that many player ordinals and returns the players they refer to
+    private ArrayList<Player> readPlayers(DataInputStream data, ArrayList<Player> players) throws IOException,
+            AppDataInvalidException {
+        ArrayList<Player> referenced = new ArrayList<>();
+        for (long i = readUnsigned(data); i > 0; i--) {
+            referenced.add(players.get(checkIndex(readUnsigned(data), players.size())));
+        }
+        return referenced;
+    }
+
+    // EFFECTS: Reads a symbol index and returns the symbol it refers to
+    private String symbol(DataInputStream data, ArrayList<String> symbols) throws IOException,
+            AppDataInvalidException {
+        return symbols.get(checkIndex(readUnsigned(data), symbols.size()));
+    }
+
+    // EFFECTS: Returns index as an int, throws AppDataInvalidException if it is not below size
+    private static int checkIndex(long index, int size) throws AppDataInvalidException {
+        if (index >= size) {
+            throw new AppDataInvalidException();
+        }
+        return (int) index;
+    }
+
+    // EFFECTS: Consumes length bytes, throws EOFException if the stream ends first
+    private static void skipFully(DataInputStream data, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = data.skipBytes(remaining);
+            if (skipped == 0) {
+                data.readByte();
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    // EFFECTS: Reads a length that must fit in an int, throws AppDataInvalidException if it does not
+    private static int readCount(DataInputStream data) throws IOException, AppDataInvalidException {
+        return checkIndex(readUnsigned(data), Integer.MAX_VALUE);
+    }
+
+    // REQUIRES: value >= 0
+    // EFFECTS: Writes value as a varint, seven bits per byte with the high bit set on all but the last byte
+    private static void writeUnsigned(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // EFFECTS: Writes value as a zigzag-encoded varint, so values near zero take one byte whatever their sign
+    private static void writeSigned(OutputStream out, long value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    // EFFECTS: Reads a varint written by writeUnsigned, throws AppDataInvalidException if it runs past 64 bits
+    private static long readUnsigned(DataInputStream data) throws IOException, AppDataInvalidException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new AppDataInvalidException();
+    }
+
+    // EFFECTS: Reads a zigzag varint written by writeSigned and returns it as an int
+    private static int readSigned(DataInputStream data) throws IOException, AppDataInvalidException {
+        return (int) readSignedLong(data);
+    }
+
+    // EFFECTS: Reads a zigzag varint written by writeSigned and returns it
+    private static long readSignedLong(DataInputStream data) throws IOException, AppDataInvalidException {
+        long zigzag = readUnsigned(data);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    // Represents a player's match history left in a binary store, decoded the first time it is needed
+    private static class BinaryMatchHistory implements MatchHistorySource {
+        private final LazyStoreFile file;
+        private final long offset;
+        private final int length;
+
+        // EFFECTS: Constructs history stored in the length bytes at offset of file
+        private BinaryMatchHistory(LazyStoreFile file, long offset, int length) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void load(Player player) throws IOException {
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(file.read(offset, length)));
+            try {
+                decodeMatchHistory(data, player);
+            } catch (AppDataInvalidException e) {
+                throw new IOException("Stored match history is malformed", e);
+            }
+            file.release();
+        }
+
+        @Override
+        public void release() throws IOException {
+            file.release();
+        }
+    }
+
+    // Represents an input stream that counts the bytes read or skipped through it
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        // EFFECTS: Constructs stream reading from in, having counted no bytes
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
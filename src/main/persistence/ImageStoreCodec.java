@@ -0,0 +1,511 @@
+package persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import model.*;
+import exceptions.AppDataInvalidException;
+
+// Represents the fixed-layout image format for app data, which is mapped into memory and decoded in place rather
+// than streamed through heap buffers. An image is a header of counts followed by fixed-size symbol, player, match
+// stats, roster and match records, the player ordinals referenced by rosters and matches, and the UTF-8 bytes of
+// every symbol. Every field is a little-endian int apart from the journal sequence and the aggregate stats of players
+// and rosters, so each section starts at an offset computed from the counts and record i of a section sits at that
+// offset plus i times the record size. Since version 2 each match record ends with the symbol of the roster that
+// played it plus one, or 0 if none, since version 3 each player record ends with the player's id, and since
+// version 4 aggregate stats are longs rather than ints clamped to their range.
+public class ImageStoreCodec {
+    private static final int MAGIC = 0x49474F54;
+    private static final int VERSION = 4;
+    private static final int FIRST_MATCH_ROSTER_VERSION = 2;
+    private static final int FIRST_PLAYER_ID_VERSION = 3;
+    private static final int FIRST_LONG_STATS_VERSION = 4;
+    private static final int HEADER_SIZE = 48;
+    private static final int SYMBOL_SIZE = 2 * Integer.BYTES;
+    private static final int STATS_SIZE = 7 * Integer.BYTES;
+    private static final int MATCH_SIZE = 7 * Integer.BYTES;
+    private static final int UNRECORDED_ROSTER_MATCH_SIZE = 6 * Integer.BYTES;
+    private int statWidth;
+    private boolean playerIds;
+    private int playerSize;
+    private int rosterSize;
+    private int matchSize;
+
+    // EFFECTS: Constructs a codec for images of the current version
+    public ImageStoreCodec() {
+        useVersion(VERSION);
+    }
+
+    // REQUIRES: appData is not null, channel is open for reading and writing
+    // MODIFIES: channel
+    // EFFECTS: Replaces the contents of channel's file with an image of appData, throws IOException if an error
+    //          occurs while writing data, the image would not fit in a single mapping, or a roster or match
+    //          references a player that is not in appData. The image is written under appData's read lock, after any
+    //          deferred match stats are decoded, so no change to appData runs while it is written.
+    public void encode(AppData appData, FileChannel channel) throws IOException {
+        try {
+            appData.readDecoded(() -> {
+                try {
+                    encodeImage(appData, channel);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // REQUIRES: the calling thread holds appData's read lock and appData has no deferred match stats
+    // MODIFIES: channel
+    // EFFECTS: Writes the image encode describes to channel
+    private void encodeImage(AppData appData, FileChannel channel) throws IOException {
+        useVersion(VERSION);
+        HashMap<String, Integer> symbols = BinaryStoreCodec.collectSymbols(appData);
+        byte[][] symbolBytes = encodeSymbols(symbols);
+        Layout layout = new Layout(symbols.size(), appData.getPlayers().size(), countStats(appData),
+                appData.getRosters().size(), appData.getMatches().size(), countReferences(appData),
+                totalLength(symbolBytes));
+        if (layout.size > Integer.MAX_VALUE) {
+            throw new IOException("App data is too large for a single image");
+        }
+
+        channel.truncate(0);
+        MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+        image.order(ByteOrder.LITTLE_ENDIAN);
+
+        writeHeader(image, appData, layout);
+        writeSymbols(image, layout, symbolBytes);
+        IdentityHashMap<Player, Integer> ordinals = writePlayers(image, layout, appData, symbols);
+        int references = writeRosters(image, layout, appData, symbols, ordinals);
+        writeMatches(image, layout, appData, symbols, ordinals, references);
+        image.force();
+    }
+
+    // REQUIRES: appData is not null, channel is open for reading
+    // MODIFIES: appData
+    // EFFECTS: Maps channel's file and replaces the contents of appData with the image it holds, throws
+    //          AppDataInvalidException if the image has an unknown header or version, is truncated, or references
+    //          a missing symbol or player, throws IOException if the file cannot be mapped
+    public void decode(FileChannel channel, AppData appData) throws IOException, AppDataInvalidException {
+        decode(channel, appData, false);
+    }
+
+    // REQUIRES: appData is not null, channel is open for reading
+    // MODIFIES: appData
+    // EFFECTS: Same as decode(channel, appData), but if lazy leaves each player's match stats in the mapping, to be
+    //          decoded when first needed, which keeps the mapping alive until then
+    public void decode(FileChannel channel, AppData appData, boolean lazy) throws IOException,
+            AppDataInvalidException {
+        MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        image.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            decodeImage(image, appData, lazy);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException
+                | BufferUnderflowException e) {
+            throw new AppDataInvalidException();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the stat width and record sizes to those of images of version. A player record is its username
+    //          symbol, its aggregate stats, the first and count of its match stats records and, since version 3, its
+    //          id. A roster record is its id symbol, its results and the start and count of its player references.
+    private void useVersion(int version) {
+        statWidth = version >= FIRST_LONG_STATS_VERSION ? Long.BYTES : Integer.BYTES;
+        playerIds = version >= FIRST_PLAYER_ID_VERSION;
+        playerSize = playerStatsEnd() + (playerIds ? 3 : 2) * Integer.BYTES;
+        rosterSize = Integer.BYTES + BinaryStoreCodec.ROSTER_STATS.length * statWidth + 2 * Integer.BYTES;
+        matchSize = version >= FIRST_MATCH_ROSTER_VERSION ? MATCH_SIZE : UNRECORDED_ROSTER_MATCH_SIZE;
+    }
+
+    // EFFECTS: Returns the offset within a player record just past its aggregate stats
+    private int playerStatsEnd() {
+        return Integer.BYTES + BinaryStoreCodec.PLAYER_STATS.length * statWidth;
+    }
+
+    // EFFECTS: Returns the aggregate stat at, read at the stat width of the image being decoded
+    private long getStat(ByteBuffer image, int at) {
+        return statWidth == Long.BYTES ? image.getLong(at) : image.getInt(at);
+    }
+
+    // EFFECTS: Returns the UTF-8 bytes of each symbol, in symbol index order
+    private byte[][] encodeSymbols(HashMap<String, Integer> symbols) {
+        byte[][] symbolBytes = new byte[symbols.size()][];
+        for (String symbol : symbols.keySet()) {
+            symbolBytes[symbols.get(symbol)] = symbol.getBytes(StandardCharsets.UTF_8);
+        }
+        return symbolBytes;
+    }
+
+    // EFFECTS: Returns the combined length of symbolBytes
+    private long totalLength(byte[][] symbolBytes) {
+        long length = 0;
+        for (byte[] bytes : symbolBytes) {
+            length += bytes.length;
+        }
+        return length;
+    }
+
+    // EFFECTS: Returns the number of match stats records held by players in appData
+    private long countStats(AppData appData) {
+        long count = 0;
+        for (Player player : appData.getPlayers()) {
+            count += player.getMatchIds().length;
+        }
+        return count;
+    }
+
+    // EFFECTS: Returns the number of player references held by rosters and matches in appData
+    private long countReferences(AppData appData) {
+        long count = 0;
+        for (Roster roster : appData.getRosters()) {
+            count += roster.getPlayers().size();
+        }
+        for (Match match : appData.getMatches()) {
+            count += match.getPlayers().size();
+        }
+        return count;
+    }
+
+    // MODIFIES: image
+    // EFFECTS: Writes the header describing layout
+    private void writeHeader(ByteBuffer image, AppData appData, Layout layout) {
+        image.putInt(0, MAGIC);
+        image.putInt(4, VERSION);
+        image.putLong(8, appData.getJournalSequence());
+        image.putInt(16, layout.symbolCount);
+        image.putInt(20, layout.playerCount);
+        image.putInt(24, layout.statsCount);
+        image.putInt(28, layout.rosterCount);
+        image.putInt(32, layout.matchCount);
+        image.putInt(36, layout.referenceCount);
+        image.putInt(40, layout.stringLength);
+    }
+
+    // MODIFIES: image
+    // EFFECTS: Writes a record holding the offset and length of each symbol, followed by the symbol bytes
+    private void writeSymbols(ByteBuffer image, Layout layout, byte[][] symbolBytes) {
+        ByteBuffer strings = image.duplicate();
+        strings.position(layout.stringsAt);
+
+        for (int i = 0; i < symbolBytes.length; i++) {
+            int at = layout.symbolsAt + i * SYMBOL_SIZE;
+            image.putInt(at, strings.position() - layout.stringsAt);
+            image.putInt(at + 4, symbolBytes[i].length);
+            strings.put(symbolBytes[i]);
+        }
+    }
+
+    // MODIFIES: image
+    // EFFECTS: Writes a record for each player and its match stats, returns each player's ordinal
+    private IdentityHashMap<Player, Integer> writePlayers(ByteBuffer image, Layout layout, AppData appData,
+                                                          HashMap<String, Integer> symbols) {
+        IdentityHashMap<Player, Integer> ordinals = new IdentityHashMap<>();
+        int stats = 0;
+
+        for (Player player : appData.getPlayers()) {
+            int at = layout.playersAt + ordinals.size() * playerSize;
+            ordinals.put(player, ordinals.size());
+            image.putInt(at, symbols.get(player.getUsername()));
+            long[] playerStats = BinaryStoreCodec.playerStats(player);
+            for (int i = 0; i < playerStats.length; i++) {
+                image.putLong(at + Integer.BYTES + i * Long.BYTES, playerStats[i]);
+            }
+
+            int[] matchIds = player.getMatchIds();
+            int end = at + playerStatsEnd();
+            image.putInt(end, stats);
+            image.putInt(end + 4, matchIds.length);
+            image.putInt(end + 8, player.getId());
+            for (int matchId : matchIds) {
+                writeMatchPerformance(image, layout.statsAt + stats++ * STATS_SIZE, matchId,
+                        BinaryStoreCodec.getMatchStats(player, matchId));
+            }
+        }
+        return ordinals;
+    }
+
+    // MODIFIES: image
+    // EFFECTS: Writes a match stats record for matchId and perf at
+    private void writeMatchPerformance(ByteBuffer image, int at, int matchId, MatchPerformance perf) {
+        image.putInt(at, matchId);
+        image.putInt(at + 4, perf.getTotalDamageDealt());
+        image.putInt(at + 8, perf.getTotalPoints());
+        image.putInt(at + 12, perf.getTotalKills());
+        image.putInt(at + 16, perf.getTotalAssists());
+        image.putInt(at + 20, perf.getTotalDeaths());
+        image.putInt(at + 24, perf.getMostValuablePlayerAwards());
+    }
+
+    // MODIFIES: image
+    // EFFECTS: Writes a record for each roster and its player references, returns the number of references written
+    private int writeRosters(ByteBuffer image, Layout layout, AppData appData, HashMap<String, Integer> symbols,
+                             IdentityHashMap<Player, Integer> ordinals) throws IOException {
+        int references = 0;
+        for (int i = 0; i < layout.rosterCount; i++) {
+            Roster roster = appData.getRosters().get(i);
+            int at = layout.rostersAt + i * rosterSize;
+            image.putInt(at, symbols.get(roster.getId()));
+            long[] results = roster.getResults();
+            for (int j = 0; j < results.length; j++) {
+                image.putLong(at + Integer.BYTES + j * Long.BYTES, results[j]);
+            }
+            references = writeReferences(image, layout, at + rosterSize - 2 * Integer.BYTES, references,
+                    roster.getPlayers(), ordinals);
+        }
+        return references;
+    }
+
+    // MODIFIES: image
+    // EFFECTS: Writes a record for each match and its player references, starting at reference index references
+    private void writeMatches(ByteBuffer image, Layout layout, AppData appData, HashMap<String, Integer> symbols,
+                              IdentityHashMap<Player, Integer> ordinals, int references) throws IOException {
+        for (int i = 0; i < layout.matchCount; i++) {
+            Match match = appData.getMatches().get(i);
+            int at = layout.matchesAt + i * matchSize;
+            image.putInt(at, match.getMatchId());
+            image.putInt(at + 4, match.getRoundsWon());
+            image.putInt(at + 8, match.getRoundsLost());
+            image.putInt(at + 12, symbols.get(match.getMap()));
+            references = writeReferences(image, layout, at + 16, references, match.getPlayers(), ordinals);
+            image.putInt(at + 24, match.getRosterId() == null ? 0 : symbols.get(match.getRosterId()) + 1);
+        }
+    }
+
+    // MODIFIES: image
+    // EFFECTS: Writes the start and count of players' references at, then their ordinals from reference index
+    //          start, returns the next free reference index, throws IOException if a player has no ordinal
+    private int writeReferences(ByteBuffer image, Layout layout, int at, int start, List<Player> players,
+                                IdentityHashMap<Player, Integer> ordinals) throws IOException {
+        image.putInt(at, start);
+        image.putInt(at + 4, players.size());
+
+        int next = start;
+        for (Player player : players) {
+            Integer ordinal = ordinals.get(player);
+            if (ordinal == null) {
+                throw new IOException("Player \"" + player.getUsername() + "\" is referenced but not stored");
+            }
+            image.putInt(layout.referencesAt + next++ * Integer.BYTES, ordinal);
+        }
+        return next;
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Validates the header of image and loads the records it describes into appData
+    private void decodeImage(ByteBuffer image, AppData appData, boolean lazy) throws AppDataInvalidException {
+        if (image.capacity() < HEADER_SIZE || image.getInt(0) != MAGIC) {
+            throw new AppDataInvalidException();
+        }
+        int version = image.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new AppDataInvalidException();
+        }
+        useVersion(version);
+        Layout layout = new Layout(image.getInt(16), image.getInt(20), image.getInt(24), image.getInt(28),
+                image.getInt(32), image.getInt(36), image.getInt(40));
+        if (!layout.isValid() || layout.size > image.capacity()) {
+            throw new AppDataInvalidException();
+        }
+
+        appData.clear();
+        appData.setJournalSequence(image.getLong(8));
+        String[] symbols = readSymbols(image, layout);
+        ArrayList<Player> players = readPlayers(image, layout, symbols, lazy);
+        for (Player player : players) {
+            appData.loadPlayer(player);
+        }
+        readRosters(image, layout, symbols, players, appData);
+        readMatches(image, layout, symbols, players, appData);
+    }
+
+    // EFFECTS: Decodes every symbol from the string section of image
+    private String[] readSymbols(ByteBuffer image, Layout layout) {
+        String[] symbols = new String[layout.symbolCount];
+        ByteBuffer strings = image.duplicate();
+
+        for (int i = 0; i < symbols.length; i++) {
+            int at = layout.symbolsAt + i * SYMBOL_SIZE;
+            int offset = image.getInt(at);
+            int length = image.getInt(at + 4);
+            if (offset < 0 || length < 0 || offset > layout.stringLength - length) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            byte[] bytes = new byte[length];
+            strings.position(layout.stringsAt + offset);
+            strings.get(bytes);
+            symbols[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return symbols;
+    }
+
+    // EFFECTS: Decodes every player record from image, along with its match stats unless lazy
+    private ArrayList<Player> readPlayers(ByteBuffer image, Layout layout, String[] symbols, boolean lazy) {
+        ArrayList<Player> players = new ArrayList<>(layout.playerCount);
+
+        for (int i = 0; i < layout.playerCount; i++) {
+            int at = layout.playersAt + i * playerSize;
+            Player player = new Player(symbols[image.getInt(at)]);
+            int end = at + playerStatsEnd();
+            if (playerIds && image.getInt(end + 8) >= 0) {
+                player.loadId(image.getInt(end + 8));
+            }
+            for (int j = 0; j < BinaryStoreCodec.PLAYER_STATS.length; j++) {
+                player.loadStat(BinaryStoreCodec.PLAYER_STATS[j], getStat(image, at + Integer.BYTES + j * statWidth));
+            }
+
+            int count = image.getInt(end + 4);
+            int first = checkRange(image.getInt(end), count, layout.statsCount);
+            MappedMatchHistory history = new MappedMatchHistory(image, layout.statsAt + first * STATS_SIZE, count);
+            if (lazy) {
+                player.loadMatchStatsLater(history);
+            } else {
+                history.load(player);
+            }
+            players.add(player);
+        }
+        return players;
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Decodes every roster record from image and adds it to appData
+    private void readRosters(ByteBuffer image, Layout layout, String[] symbols, ArrayList<Player> players,
+                             AppData appData) {
+        for (int i = 0; i < layout.rosterCount; i++) {
+            int at = layout.rostersAt + i * rosterSize;
+            Roster roster = new Roster(symbols[image.getInt(at)],
+                    readReferences(image, layout, at + rosterSize - 2 * Integer.BYTES, players));
+            for (int j = 0; j < BinaryStoreCodec.ROSTER_STATS.length; j++) {
+                roster.loadStat(BinaryStoreCodec.ROSTER_STATS[j], getStat(image, at + Integer.BYTES + j * statWidth));
+            }
+            appData.loadRoster(roster);
+        }
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Decodes every match record from image and adds it to appData
+    private void readMatches(ByteBuffer image, Layout layout, String[] symbols, ArrayList<Player> players,
+                             AppData appData) {
+        for (int i = 0; i < layout.matchCount; i++) {
+            int at = layout.matchesAt + i * matchSize;
+            int rosterSymbol = matchSize == MATCH_SIZE ? image.getInt(at + 24) : 0;
+            appData.loadMatch(new Match(image.getInt(at), rosterSymbol == 0 ? null : symbols[rosterSymbol - 1],
+                    readReferences(image, layout, at + 16, players), image.getInt(at + 4), image.getInt(at + 8),
+                    symbols[image.getInt(at + 12)]));
+        }
+    }
+
+    // EFFECTS: Returns the players referenced by the start and count stored at
+    private ArrayList<Player> readReferences(ByteBuffer image, Layout layout, int at, ArrayList<Player> players) {
+        int count = image.getInt(at + 4);
+        int first = checkRange(image.getInt(at), count, layout.referenceCount);
+
+        ArrayList<Player> referenced = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            referenced.add(players.get(image.getInt(layout.referencesAt + (first + i) * Integer.BYTES)));
+        }
+        return referenced;
+    }
+
+    // EFFECTS: Returns first if first and count describe records within a section of size records, throws
+    //          IndexOutOfBoundsException otherwise
+    private static int checkRange(int first, int count, int size) {
+        if (first < 0 || count < 0 || first > size - count) {
+            throw new IndexOutOfBoundsException();
+        }
+        return first;
+    }
+
+    // Represents the section offsets and total size of an image with the given record counts and the codec's player
+    // and match record sizes
+    private class Layout {
+        private final int symbolCount;
+        private final int playerCount;
+        private final int statsCount;
+        private final int rosterCount;
+        private final int matchCount;
+        private final int referenceCount;
+        private final int stringLength;
+        private final int symbolsAt;
+        private final int playersAt;
+        private final int statsAt;
+        private final int rostersAt;
+        private final int matchesAt;
+        private final int referencesAt;
+        private final int stringsAt;
+        private final long size;
+
+        // EFFECTS: Constructs layout for the given counts, with size past Integer.MAX_VALUE if the image is too large
+        //          to map, in which case the offsets are meaningless
+        private Layout(long symbolCount, long playerCount, long statsCount, long rosterCount, long matchCount,
+                       long referenceCount, long stringLength) {
+            this.symbolCount = (int) symbolCount;
+            this.playerCount = (int) playerCount;
+            this.statsCount = (int) statsCount;
+            this.rosterCount = (int) rosterCount;
+            this.matchCount = (int) matchCount;
+            this.referenceCount = (int) referenceCount;
+            this.stringLength = (int) stringLength;
+
+            long playersAt = HEADER_SIZE + symbolCount * SYMBOL_SIZE;
+            long statsAt = playersAt + playerCount * playerSize;
+            long rostersAt = statsAt + statsCount * STATS_SIZE;
+            long matchesAt = rostersAt + rosterCount * rosterSize;
+            long referencesAt = matchesAt + matchCount * matchSize;
+            long stringsAt = referencesAt + referenceCount * Integer.BYTES;
+            this.size = stringsAt + stringLength;
+
+            this.symbolsAt = HEADER_SIZE;
+            this.playersAt = (int) playersAt;
+            this.statsAt = (int) statsAt;
+            this.rostersAt = (int) rostersAt;
+            this.matchesAt = (int) matchesAt;
+            this.referencesAt = (int) referencesAt;
+            this.stringsAt = (int) stringsAt;
+        }
+
+        // EFFECTS: Returns true if no count is negative
+        private boolean isValid() {
+            return symbolCount >= 0 && playerCount >= 0 && statsCount >= 0 && rosterCount >= 0 && matchCount >= 0
+                    && referenceCount >= 0 && stringLength >= 0;
+        }
+    }
+
+    // Represents a player's match stats records in a mapped image, decoded the first time they are needed
+    private static class MappedMatchHistory implements MatchHistorySource {
+        private final ByteBuffer image;
+        private final int offset;
+        private final int count;
+
+        // EFFECTS: Constructs history of the count match stats records starting at offset of image
+        private MappedMatchHistory(ByteBuffer image, int offset, int count) {
+            this.image = image;
+            this.offset = offset;
+            this.count = count;
+        }
+
+        @Override
+        public void load(Player player) {
+            for (int i = 0; i < count; i++) {
+                int at = offset + i * STATS_SIZE;
+                player.loadMatchStats(image.getInt(at), new MatchPerformance(image.getInt(at + 4),
+                        image.getInt(at + 8), image.getInt(at + 12), image.getInt(at + 16), image.getInt(at + 20),
+                        image.getInt(at + 24)));
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import model.AppData;
+import exceptions.AppDataInvalidException;
+
+// Represents a background job that folds a store's journal into a new snapshot once the journal grows past a size
+// or age threshold. Compaction works from the files on disk, so the live app data keeps serving reads and
+// journaling mutations while it runs.
+public class JournalCompactor {
+    private static final String COMPACT_EXTENSION = ".compact";
+    private final String snapshotPath;
+    private final StoreJournal journal;
+    private final long maxJournalBytes;
+    private final long maxJournalAgeMillis;
+    private ScheduledExecutorService scheduler;
+    private long journalSeenAt;
+    private int compactionCount;
+    private long lastCompactionMillis;
+    private long totalCompactionMillis;
+    private long lastBytesReclaimed;
+    private long totalBytesReclaimed;
+    private Exception lastFailure;
+
+    // REQUIRES: journal is the journal of the snapshot at snapshotPath, maxJournalBytes >= 0,
+    //           maxJournalAgeMillis >= 0
+    // EFFECTS: Constructs compactor that compacts once the journal reaches maxJournalBytes or has held records
+    //          for maxJournalAgeMillis
+    public JournalCompactor(String snapshotPath, StoreJournal journal, long maxJournalBytes, long maxJournalAgeMillis) {
+        this.snapshotPath = snapshotPath;
+        this.journal = journal;
+        this.maxJournalBytes = maxJournalBytes;
+        this.maxJournalAgeMillis = maxJournalAgeMillis;
+        this.journalSeenAt = -1;
+    }
+
+    // REQUIRES: checkIntervalMillis > 0
+    // MODIFIES: this
+    // EFFECTS: Starts checking the thresholds every checkIntervalMillis on a background thread, does nothing if
+    //          already started
+    public synchronized void start(long checkIntervalMillis) {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runScheduledCheck, checkIntervalMillis, checkIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Stops the background thread, letting a compaction in progress finish
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Compacts if the journal has reached the size or age threshold and returns true if it did
+    public synchronized boolean compactIfDue() throws IOException, AppDataInvalidException {
+        long journalBytes = journal.size();
+        long now = System.currentTimeMillis();
+
+        if (journalBytes == 0) {
+            journalSeenAt = -1;
+            return false;
+        }
+        if (journalSeenAt < 0) {
+            journalSeenAt = now;
+        }
+        if (journalBytes < maxJournalBytes && now - journalSeenAt < maxJournalAgeMillis) {
+            return false;
+        }
+
+        compact();
+        journalSeenAt = -1;
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Folds the committed journal into a new snapshot, then swaps it in and drops the folded records
+    //          while holding the journal's lock
+    public synchronized void compact() throws IOException, AppDataInvalidException {
+        long start = System.nanoTime();
+        Path snapshot = Paths.get(snapshotPath);
+        long compactedLength = journal.size();
+        long bytesBefore = Files.size(snapshot) + compactedLength;
+
+        AppData folded = new AppData();
+        new StoreReader(snapshotPath).readSnapshot(folded);
+        journal.replay(folded, compactedLength);
+
+        StoreWriter writer = new StoreWriter(snapshotPath + COMPACT_EXTENSION, StoreFormat.forPath(snapshotPath));
+        writer.open();
+        writer.write(folded);
+        writer.close();
+        journal.replaceSnapshot(Paths.get(snapshotPath + COMPACT_EXTENSION), snapshot, compactedLength);
+
+        recordCompaction(System.nanoTime() - start, bytesBefore - Files.size(snapshot) - journal.size());
+    }
+
+    // REQUIRES: appData is not null, writer writes to this compactor's snapshot
+    // MODIFIES: this
+    // EFFECTS: Writes a full snapshot of appData with writer, never overlapping a compaction
+    public synchronized void writeSnapshot(AppData appData, StoreWriter writer) throws IOException {
+        writer.open();
+        writer.write(appData);
+        writer.close();
+    }
+
+    public synchronized int getCompactionCount() {
+        return compactionCount;
+    }
+
+    public synchronized long getLastCompactionMillis() {
+        return lastCompactionMillis;
+    }
+
+    public synchronized long getTotalCompactionMillis() {
+        return totalCompactionMillis;
+    }
+
+    // EFFECTS: Returns how many bytes the snapshot and journal shrank by in the last compaction, negative if the
+    //          new snapshot outgrew the records it absorbed
+    public synchronized long getLastBytesReclaimed() {
+        return lastBytesReclaimed;
+    }
+
+    public synchronized long getTotalBytesReclaimed() {
+        return totalBytesReclaimed;
+    }
+
+    // EFFECTS: Returns the exception that failed the last scheduled compaction, or null if it succeeded
+    public synchronized Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Runs a scheduled threshold check, recording rather than propagating failures so checks continue
+    private synchronized void runScheduledCheck() {
+        try {
+            compactIfDue();
+            lastFailure = null;
+        } catch (IOException | AppDataInvalidException | RuntimeException e) {
+            lastFailure = e;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Updates the compaction metrics with a compaction that took elapsedNanos and reclaimed bytesReclaimed
+    private void recordCompaction(long elapsedNanos, long bytesReclaimed) {
+        compactionCount++;
+        lastCompactionMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        totalCompactionMillis += lastCompactionMillis;
+        lastBytesReclaimed = bytesReclaimed;
+        totalBytesReclaimed += bytesReclaimed;
+    }
+}
@@ -0,0 +1,318 @@
+package persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.json.JSONException;
+
+import model.*;
+import exceptions.AppDataInvalidException;
+import exceptions.PlayerNotFoundException;
+
+// Represents a parser that builds app data entity by entity from a stream of JSON tokens
+public class JsonStoreParser {
+    private final JsonTokenReader reader;
+    private final AppData appData;
+    private final LazyStoreFile historyFile;
+    private final ArrayList<EntityFields> pendingRosters;
+    private final ArrayList<EntityFields> pendingMatches;
+    private boolean playersLoaded;
+
+    // REQUIRES: reader is positioned at the start of an app data JSON object, appData is not null
+    // EFFECTS: Constructs parser that loads the app data object read from reader into appData
+    public JsonStoreParser(JsonTokenReader reader, AppData appData) {
+        this(reader, appData, null);
+    }
+
+    // REQUIRES: reader is positioned at the start of an app data JSON object and reads from the start of
+    //           historyFile if it is not null, appData is not null
+    // EFFECTS: Constructs parser that loads the app data object read from reader into appData, leaving each
+    //          player's match stats to be decoded from historyFile on demand unless historyFile is null
+    JsonStoreParser(JsonTokenReader reader, AppData appData, LazyStoreFile historyFile) {
+        this.reader = reader;
+        this.appData = appData;
+        this.historyFile = historyFile;
+        this.pendingRosters = new ArrayList<>();
+        this.pendingMatches = new ArrayList<>();
+        this.playersLoaded = false;
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Replaces the contents of appData with the app data object read from reader, throws
+    //          AppDataInvalidException if a roster or match references a player that does not exist
+    public void parse() throws IOException, AppDataInvalidException {
+        appData.clear();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("players")) {
+                parsePlayers();
+            } else if (name.equals("rosters")) {
+                parseRosters();
+            } else if (name.equals("matches")) {
+                parseMatches();
+            } else if (name.equals("journalSequence")) {
+                appData.setJournalSequence(reader.nextLong());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        resolvePending();
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Reads the players array, adding each player to appData as soon as it is complete
+    private void parsePlayers() throws IOException, AppDataInvalidException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            appData.loadPlayer(parsePlayer());
+        }
+        reader.endArray();
+
+        playersLoaded = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Reads a single player object and returns the player it describes
+    private Player parsePlayer() throws IOException {
+        Player player = new Player("");
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("id")) {
+                player.loadId(reader.nextInt());
+            } else if (name.equals("username")) {
+                player.setUsername(reader.nextString());
+            } else if (name.equals("matchStats")) {
+                parseOrDeferMatchStats(player);
+            } else {
+                player.loadStat(name, reader.nextLong());
+            }
+        }
+        reader.endObject();
+
+        return player;
+    }
+
+    // MODIFIES: this, player
+    // EFFECTS: Reads player's match stats object, or skips it and records where it lies if loading lazily
+    private void parseOrDeferMatchStats(Player player) throws IOException {
+        if (historyFile == null) {
+            parseMatchStats(reader, player);
+            return;
+        }
+
+        long start = reader.valuePosition();
+        reader.skipValue();
+        historyFile.retain();
+        player.loadMatchStatsLater(new JsonMatchHistory(historyFile, start, (int) (reader.position() - start)));
+    }
+
+    // MODIFIES: reader, player
+    // EFFECTS: Reads a match stats object keyed by match id into player
+    private static void parseMatchStats(JsonTokenReader reader, Player player) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int matchId = Integer.parseInt(reader.nextName());
+            player.loadMatchStats(matchId, parseMatchPerformance(reader));
+        }
+        reader.endObject();
+    }
+
+    // MODIFIES: reader
+    // EFFECTS: Reads a single match performance object and returns it
+    private static MatchPerformance parseMatchPerformance(JsonTokenReader reader) throws IOException {
+        HashMap<String, Integer> stats = new HashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            stats.put(name, reader.nextInt());
+        }
+        reader.endObject();
+
+        return new MatchPerformance(stats.getOrDefault("totalDamageDealt", 0),
+                stats.getOrDefault("totalPoints", 0), stats.getOrDefault("totalKills", 0),
+                stats.getOrDefault("totalAssists", 0), stats.getOrDefault("totalDeaths", 0),
+                stats.getOrDefault("mostValuablePlayerAwards", 0));
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Reads the rosters array, adding each roster to appData as soon as it is complete if players have been
+    //          read and otherwise once they have
+    private void parseRosters() throws IOException, AppDataInvalidException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            EntityFields fields = parseEntity();
+            if (playersLoaded) {
+                appData.loadRoster(buildRoster(fields));
+            } else {
+                pendingRosters.add(fields);
+            }
+        }
+        reader.endArray();
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Reads the matches array, adding each match to appData as soon as it is complete if players have been
+    //          read and otherwise once they have
+    private void parseMatches() throws IOException, AppDataInvalidException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            EntityFields fields = parseEntity();
+            if (playersLoaded) {
+                appData.loadMatch(buildMatch(fields));
+            } else {
+                pendingMatches.add(fields);
+            }
+        }
+        reader.endArray();
+    }
+
+    // EFFECTS: Returns the roster described by fields, throws AppDataInvalidException if it references a player
+    //          that does not exist
+    private Roster buildRoster(EntityFields fields) throws AppDataInvalidException {
+        Roster roster = new Roster(fields.getString("id"), resolve(fields));
+        for (String name : fields.numbers.keySet()) {
+            roster.loadStat(name, fields.numbers.get(name));
+        }
+        return roster;
+    }
+
+    // EFFECTS: Returns the match described by fields, throws AppDataInvalidException if it references a player
+    //          that does not exist
+    private Match buildMatch(EntityFields fields) throws AppDataInvalidException {
+        return new Match(fields.getInt("matchId"), fields.strings.get("roster"), resolve(fields),
+                fields.getInt("roundsWon"), fields.getInt("roundsLost"), fields.getString("map"));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Reads a roster or match object whose values are numbers, strings, an array of player ids or an array
+    //          of usernames
+    private EntityFields parseEntity() throws IOException {
+        EntityFields fields = new EntityFields();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("playerIds")) {
+                fields.playerIds = parsePlayerIds();
+            } else if (name.equals("players")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    fields.usernames.add(reader.nextString());
+                }
+                reader.endArray();
+            } else if (reader.peekString()) {
+                fields.strings.put(name, reader.nextString());
+            } else {
+                fields.numbers.put(name, reader.nextLong());
+            }
+        }
+        reader.endObject();
+
+        return fields;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Reads an array of player ids and returns them in order
+    private ArrayList<Integer> parsePlayerIds() throws IOException {
+        ArrayList<Integer> playerIds = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            playerIds.add(reader.nextInt());
+        }
+        reader.endArray();
+
+        return playerIds;
+    }
+
+    // MODIFIES: this, appData
+    // EFFECTS: Adds the rosters and matches read before the players array to appData, in the order they were read
+    private void resolvePending() throws AppDataInvalidException {
+        for (EntityFields fields : pendingRosters) {
+            appData.loadRoster(buildRoster(fields));
+        }
+        for (EntityFields fields : pendingMatches) {
+            appData.loadMatch(buildMatch(fields));
+        }
+        pendingRosters.clear();
+        pendingMatches.clear();
+    }
+
+    // EFFECTS: Returns the players with the player ids in fields, or with its usernames if it was written before
+    //          players had ids, throws AppDataInvalidException if one does not belong to a loaded player
+    private ArrayList<Player> resolve(EntityFields fields) throws AppDataInvalidException {
+        ArrayList<Player> playerList = new ArrayList<>();
+        try {
+            if (fields.playerIds != null) {
+                for (int id : fields.playerIds) {
+                    playerList.add(appData.getPlayerById(id));
+                }
+            } else {
+                for (String username : fields.usernames) {
+                    playerList.add(appData.getPlayerByUsername(username));
+                }
+            }
+        } catch (PlayerNotFoundException e) {
+            throw new AppDataInvalidException();
+        }
+        return playerList;
+    }
+
+    // Represents a player's match stats object left in a JSON store, decoded the first time it is needed
+    private static class JsonMatchHistory implements MatchHistorySource {
+        private final LazyStoreFile file;
+        private final long offset;
+        private final int length;
+
+        // EFFECTS: Constructs history stored in the length bytes at offset of file
+        private JsonMatchHistory(LazyStoreFile file, long offset, int length) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void load(Player player) throws IOException {
+            JsonTokenReader reader = new JsonTokenReader(Channels.newChannel(
+                    new ByteArrayInputStream(file.read(offset, length))));
+            try {
+                parseMatchStats(reader, player);
+            } catch (JSONException | NumberFormatException e) {
+                throw new IOException("Stored match stats are malformed", e);
+            }
+            file.release();
+        }
+
+        @Override
+        public void release() throws IOException {
+            file.release();
+        }
+    }
+
+    // Represents the fields of a roster or match object read before the entity is constructed
+    private static class EntityFields {
+        private final HashMap<String, Long> numbers = new HashMap<>();
+        private final HashMap<String, String> strings = new HashMap<>();
+        private final ArrayList<String> usernames = new ArrayList<>();
+        private ArrayList<Integer> playerIds;
+
+        // EFFECTS: Returns the string field with name, or "" if it was not present
+        private String getString(String name) {
+            return strings.getOrDefault(name, "");
+        }
+
+        // EFFECTS: Returns the number field with name as an int, or 0 if it was not present
+        private int getInt(String name) {
+            return (int) (long) numbers.getOrDefault(name, 0L);
+        }
+    }
+}
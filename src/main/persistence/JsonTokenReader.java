@@ -0,0 +1,349 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.json.JSONException;
+
+// Represents a pull tokenizer that reads JSON values one at a time from a buffered byte channel
+public class JsonTokenReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long bufferOffset;
+    private byte[] text;
+    private int textLength;
+
+    // REQUIRES: channel is open for reading
+    // EFFECTS: Constructs tokenizer reading from the current position of channel
+    public JsonTokenReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.limit(0);
+        this.bufferOffset = 0;
+        this.text = new byte[256];
+        this.textLength = 0;
+    }
+
+    // EFFECTS: Returns the number of bytes consumed from the channel so far
+    public long position() {
+        return bufferOffset + buffer.position();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Skips whitespace and returns the byte position at which the next value starts
+    public long valuePosition() throws IOException {
+        peekToken();
+        return position();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes the start of an object, throws JSONException if the next value is not an object
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes the end of an object, throws JSONException if the object has more members
+    public void endObject() throws IOException {
+        expect('}');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes the start of an array, throws JSONException if the next value is not an array
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes the end of an array, throws JSONException if the array has more elements
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Skips a separating comma if present, returns true if the current object or array has another
+    //          member or element
+    public boolean hasNext() throws IOException {
+        int next = peekToken();
+        if (next == ',') {
+            readByte();
+            next = peekToken();
+        }
+        return next != '}' && next != ']';
+    }
+
+    // EFFECTS: Returns true if the next value is a string
+    public boolean peekString() throws IOException {
+        return peekToken() == '"';
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes an object member name and its colon and returns the name
+    public String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes a string value and returns it, throws JSONException if the next value is not a string
+    public String nextString() throws IOException {
+        expect('"');
+        textLength = 0;
+
+        int b = readByte();
+        while (b != '"') {
+            if (b == '\\') {
+                readEscape();
+            } else {
+                appendText(b);
+            }
+            b = readByte();
+        }
+
+        return new String(text, 0, textLength, StandardCharsets.UTF_8);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes a number value and returns it as an int, truncating any fractional part
+    public int nextInt() throws IOException {
+        return (int) nextLong();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes a number value and returns it as a long, truncating any fractional part
+    public long nextLong() throws IOException {
+        String number = nextScalar();
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(number);
+            } catch (NumberFormatException ex) {
+                throw new JSONException("Expected a number at byte " + position() + " but found " + number);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes and discards the next value, including any nested objects and arrays
+    public void skipValue() throws IOException {
+        int next = peekToken();
+        if (next == '"') {
+            nextString();
+        } else if (next == '{' || next == '[') {
+            skipContainer();
+        } else {
+            nextScalar();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Closes the underlying channel
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes an object or array without decoding its contents
+    private void skipContainer() throws IOException {
+        int depth = 0;
+        do {
+            int b = peekToken();
+            if (b == '"') {
+                skipString();
+                continue;
+            }
+            readByte();
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes a string without decoding it
+    private void skipString() throws IOException {
+        expect('"');
+        int b = readByte();
+        while (b != '"') {
+            if (b == '\\') {
+                readByte();
+            }
+            b = readByte();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes a bare literal (number, true, false or null) and returns its text
+    private String nextScalar() throws IOException {
+        peekToken();
+        StringBuilder scalar = new StringBuilder();
+
+        int b = peekByte();
+        while (b != -1 && b != ',' && b != '}' && b != ']' && !isWhitespace(b)) {
+            scalar.append((char) readByte());
+            b = peekByte();
+        }
+
+        if (scalar.length() == 0) {
+            throw new JSONException("Expected a value at byte " + position());
+        }
+        return scalar.toString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes the character after a backslash in a string and appends the character it encodes
+    private void readEscape() throws IOException {
+        int b = readByte();
+        switch (b) {
+            case 'b':
+                appendText('\b');
+                break;
+            case 'f':
+                appendText('\f');
+                break;
+            case 'n':
+                appendText('\n');
+                break;
+            case 'r':
+                appendText('\r');
+                break;
+            case 't':
+                appendText('\t');
+                break;
+            case 'u':
+                appendCodePoint(readUnicodeEscape());
+                break;
+            default:
+                appendText(b);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes the hex digits of a unicode escape, joining a following low surrogate escape if present
+    private int readUnicodeEscape() throws IOException {
+        char high = readHexChar();
+        if (!Character.isHighSurrogate(high) || peekByte() != '\\') {
+            return high;
+        }
+
+        readByte();
+        expect('u');
+        char low = readHexChar();
+        if (!Character.isLowSurrogate(low)) {
+            throw new JSONException("Unpaired surrogate at byte " + position());
+        }
+        return Character.toCodePoint(high, low);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes four hex digits and returns the char they encode
+    private char readHexChar() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(readByte(), 16);
+            if (digit < 0) {
+                throw new JSONException("Invalid unicode escape at byte " + position());
+            }
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Appends the UTF-8 encoding of codePoint to the string being decoded
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            appendText(codePoint);
+        } else if (codePoint < 0x800) {
+            appendText(0xC0 | (codePoint >> 6));
+            appendText(0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            appendText(0xE0 | (codePoint >> 12));
+            appendText(0x80 | ((codePoint >> 6) & 0x3F));
+            appendText(0x80 | (codePoint & 0x3F));
+        } else {
+            appendText(0xF0 | (codePoint >> 18));
+            appendText(0x80 | ((codePoint >> 12) & 0x3F));
+            appendText(0x80 | ((codePoint >> 6) & 0x3F));
+            appendText(0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Appends a raw byte to the string being decoded, growing the scratch array if needed
+    private void appendText(int b) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[textLength++] = (byte) b;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes expected after any whitespace, throws JSONException if a different byte is found
+    private void expect(char expected) throws IOException {
+        int b = peekToken();
+        if (b != expected) {
+            throw new JSONException("Expected '" + expected + "' at byte " + position() + " but found "
+                    + (b == -1 ? "end of input" : "'" + (char) b + "'"));
+        }
+        readByte();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Skips whitespace and returns the next byte without consuming it, or -1 at end of input
+    private int peekToken() throws IOException {
+        int b = peekByte();
+        while (isWhitespace(b)) {
+            readByte();
+            b = peekByte();
+        }
+        return b;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Consumes and returns the next byte, throws JSONException at end of input
+    private int readByte() throws IOException {
+        if (!fill()) {
+            throw new JSONException("Unexpected end of input at byte " + position());
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Returns the next byte without consuming it, or -1 at end of input
+    private int peekByte() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Refills the buffer from the channel if it is exhausted, returns false at end of input
+    private boolean fill() throws IOException {
+        while (!buffer.hasRemaining()) {
+            bufferOffset += buffer.limit();
+            buffer.clear();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: Returns true if b is JSON whitespace
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
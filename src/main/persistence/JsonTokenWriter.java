@@ -0,0 +1,196 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+// Represents a writer that emits JSON tokens straight to an underlying character stream, either indented or compact
+public class JsonTokenWriter implements Closeable {
+    private final Writer out;
+    private final int indent;
+    private boolean[] hasElements;
+    private int depth;
+    private boolean afterName;
+
+    // REQUIRES: out is open for writing, indent >= 0
+    // EFFECTS: Constructs writer emitting to out, indenting nested values by indent spaces, or compact if indent is 0
+    public JsonTokenWriter(Writer out, int indent) {
+        this.out = out;
+        this.indent = indent;
+        this.hasElements = new boolean[16];
+        this.depth = 0;
+        this.afterName = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes the start of an object
+    public JsonTokenWriter beginObject() throws IOException {
+        return openLevel('{');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes the end of the current object
+    public JsonTokenWriter endObject() throws IOException {
+        return closeLevel('}');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes the start of an array
+    public JsonTokenWriter beginArray() throws IOException {
+        return openLevel('[');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes the end of the current array
+    public JsonTokenWriter endArray() throws IOException {
+        return closeLevel(']');
+    }
+
+    // REQUIRES: name is not null, the current container is an object
+    // MODIFIES: this
+    // EFFECTS: Writes an object member name, to be followed by exactly one value
+    public JsonTokenWriter name(String name) throws IOException {
+        beforeValue();
+        writeString(name);
+        out.write(indent > 0 ? ": " : ":");
+        afterName = true;
+        return this;
+    }
+
+    // REQUIRES: value is not null
+    // MODIFIES: this
+    // EFFECTS: Writes a string value
+    public JsonTokenWriter value(String value) throws IOException {
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes an int value
+    public JsonTokenWriter value(int value) throws IOException {
+        beforeValue();
+        out.write(Integer.toString(value));
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes a long value
+    public JsonTokenWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Flushes buffered output to the underlying stream
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Flushes and closes the underlying stream
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes bracket opening a new nesting level
+    private JsonTokenWriter openLevel(char bracket) throws IOException {
+        beforeValue();
+        out.write(bracket);
+
+        depth++;
+        if (depth == hasElements.length) {
+            hasElements = Arrays.copyOf(hasElements, depth * 2);
+        }
+        hasElements[depth] = false;
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes bracket closing the current nesting level, on its own line if the level had elements
+    private JsonTokenWriter closeLevel(char bracket) throws IOException {
+        boolean hadElements = hasElements[depth];
+        depth--;
+
+        if (hadElements) {
+            newline();
+        }
+        out.write(bracket);
+        return this;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes the separator and indentation that precede a value or member name
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth == 0) {
+            return;
+        }
+
+        if (hasElements[depth]) {
+            out.write(',');
+        }
+        hasElements[depth] = true;
+        newline();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Starts a new line indented to the current depth, does nothing in compact mode
+    private void newline() throws IOException {
+        if (indent == 0) {
+            return;
+        }
+
+        out.write('\n');
+        for (int i = 0; i < depth * indent; i++) {
+            out.write(' ');
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes value as a quoted JSON string, escaping quotes, backslashes and control characters
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                out.write(value, start, i - start);
+                writeEscape(c);
+                start = i + 1;
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes the escape sequence for c
+    private void writeEscape(char c) throws IOException {
+        switch (c) {
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            case '"':
+            case '\\':
+                out.write('\\');
+                out.write(c);
+                break;
+            default:
+                out.write(String.format("\\u%04x", (int) c));
+        }
+    }
+}
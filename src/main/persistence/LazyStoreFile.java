@@ -0,0 +1,49 @@
+package persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Represents a store file kept open after loading so match histories left in it can be decoded on demand. The file
+// is closed once the reader and every history it handed out have released it. Saves replace the store file rather
+// than rewriting it, so the bytes read here stay those of the snapshot that was loaded.
+class LazyStoreFile {
+    private final FileChannel channel;
+    private int holders;
+
+    // REQUIRES: channel is open for reading
+    // EFFECTS: Constructs file reading from channel, held by the reader that opened it
+    LazyStoreFile(FileChannel channel) {
+        this.channel = channel;
+        this.holders = 1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Registers another holder that will release the file once done with it
+    synchronized void retain() {
+        holders++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Releases one holder's claim on the file, closing it once no holders remain
+    synchronized void release() throws IOException {
+        holders--;
+        if (holders == 0) {
+            channel.close();
+        }
+    }
+
+    // REQUIRES: offset >= 0, length >= 0
+    // EFFECTS: Returns the length bytes stored at offset, throws EOFException if the file ends before them; safe to
+    //          call from several threads at once
+    byte[] read(long offset, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, offset + bytes.position()) == -1) {
+                throw new EOFException();
+            }
+        }
+        return bytes.array();
+    }
+}
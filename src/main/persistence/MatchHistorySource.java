@@ -0,0 +1,18 @@
+package persistence;
+
+import java.io.IOException;
+
+import model.Player;
+
+// Represents a player's match history left undecoded in a store until it is first needed
+public interface MatchHistorySource {
+    // MODIFIES: player
+    // EFFECTS: Decodes the stored match history into player with loadMatchStats, throws IOException if it cannot
+    //          be read or is malformed
+    void load(Player player) throws IOException;
+
+    // EFFECTS: Gives up the history without decoding it, releasing anything held open to read it later, throws
+    //          IOException if that cannot be closed. Does nothing by default.
+    default void release() throws IOException {
+    }
+}
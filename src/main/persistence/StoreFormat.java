@@ -0,0 +1,22 @@
+package persistence;
+
+// Represents the on-disk formats an app data store can be written in, chosen by the store's file extension
+public enum StoreFormat {
+    JSON,
+    BINARY,
+    IMAGE;
+
+    public static final String BINARY_EXTENSION = ".tgo";
+    public static final String IMAGE_EXTENSION = ".tgi";
+
+    // REQUIRES: filePath is not null
+    // EFFECTS: Returns BINARY or IMAGE if filePath ends with their extension, JSON otherwise
+    public static StoreFormat forPath(String filePath) {
+        if (filePath.endsWith(BINARY_EXTENSION)) {
+            return BINARY;
+        } else if (filePath.endsWith(IMAGE_EXTENSION)) {
+            return IMAGE;
+        }
+        return JSON;
+    }
+}
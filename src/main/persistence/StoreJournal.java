@@ -0,0 +1,294 @@
+package persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import model.*;
+import exceptions.*;
+
+// Represents an append-only journal of app data mutations kept next to a snapshot written by StoreWriter. Records
+// are numbered with the app data's journal sequence, and a snapshot stores the last sequence number it reflects, so
+// records already folded into a snapshot are skipped on replay.
+public class StoreJournal {
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private final Path journalPath;
+    private final StringBuilder pending;
+
+    // EFFECTS: Constructs journal for the snapshot at snapshotPath, stored at snapshotPath + ".journal"
+    public StoreJournal(String snapshotPath) {
+        this.journalPath = Paths.get(snapshotPath + JOURNAL_EXTENSION);
+        this.pending = new StringBuilder();
+    }
+
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    // REQUIRES: record is not null
+    // MODIFIES: this
+    // EFFECTS: Queues record to be appended to the journal file on the next commit
+    public synchronized void append(JSONObject record) {
+        pending.append(record.toString()).append('\n');
+    }
+
+    // EFFECTS: Returns true if there are records that have not been committed
+    public synchronized boolean hasPending() {
+        return pending.length() > 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Drops records that have not been committed
+    public synchronized void discardPending() {
+        pending.setLength(0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Appends queued records to the journal file and forces them to disk, throws IOException if they
+    //          cannot be written, in which case they stay queued
+    public synchronized void commit() throws IOException {
+        if (!hasPending()) {
+            return;
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+
+        discardPending();
+    }
+
+    // EFFECTS: Returns the size in bytes of the committed journal, 0 if there is no journal file
+    public synchronized long size() throws IOException {
+        return Files.exists(journalPath) ? Files.size(journalPath) : 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Deletes the journal file, used once its records are folded into a new snapshot
+    public synchronized void truncate() throws IOException {
+        Files.deleteIfExists(journalPath);
+    }
+
+    // REQUIRES: newSnapshot reflects every record in the first compactedLength bytes of the journal
+    // MODIFIES: this
+    // EFFECTS: Replaces snapshot with newSnapshot and drops the first compactedLength bytes of the journal, keeping
+    //          records committed since; commits wait until both files are in place. A crash between the two moves
+    //          leaves records the new snapshot already reflects, which replay skips by sequence number.
+    public synchronized void replaceSnapshot(Path newSnapshot, Path snapshot, long compactedLength) throws IOException {
+        Path remainder = Paths.get(journalPath + TEMP_EXTENSION);
+        try (FileChannel source = FileChannel.open(journalPath, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(remainder, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = compactedLength;
+            while (position < source.size()) {
+                position += source.transferTo(position, source.size() - position, target);
+            }
+            target.force(false);
+        }
+
+        Files.move(newSnapshot, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(remainder, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // REQUIRES: appData holds the snapshot this journal was recorded against
+    // MODIFIES: appData
+    // EFFECTS: Applies every committed record newer than appData's journal sequence to appData in order without
+    //          journaling them again, throws AppDataInvalidException if a record is malformed or references a
+    //          missing entity
+    public void replay(AppData appData) throws IOException, AppDataInvalidException {
+        replay(appData, Long.MAX_VALUE);
+    }
+
+    // REQUIRES: appData holds the snapshot this journal was recorded against, length is a record boundary such as
+    //           a size() returned earlier
+    // MODIFIES: appData
+    // EFFECTS: Same as replay(appData), but stops after the first length bytes of the journal
+    public void replay(AppData appData, long length) throws IOException, AppDataInvalidException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+
+        StoreJournal attached = appData.getJournal();
+        appData.setJournal(null);
+        try (BufferedReader reader = new BufferedReader(Channels.newReader(FileChannel.open(journalPath,
+                StandardOpenOption.READ), StandardCharsets.UTF_8.newDecoder(), -1))) {
+            long consumed = 0;
+            String line = reader.readLine();
+            while (line != null && (consumed += line.getBytes(StandardCharsets.UTF_8).length + 1) <= length) {
+                applyLine(appData, line);
+                line = reader.readLine();
+            }
+        } finally {
+            appData.setJournal(attached);
+        }
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Parses and applies a single journal line, blank lines and records appData already reflects are
+    //          ignored
+    private void applyLine(AppData appData, String line) throws AppDataInvalidException {
+        if (line.isBlank()) {
+            return;
+        }
+
+        try {
+            JSONObject record = new JSONObject(line);
+            long sequence = record.optLong("seq", appData.getJournalSequence() + 1);
+            if (sequence <= appData.getJournalSequence()) {
+                return;
+            }
+
+            apply(appData, record);
+            appData.setJournalSequence(sequence);
+        } catch (JSONException | PlayerNotFoundException | RosterNotFoundException e) {
+            throw new AppDataInvalidException();
+        }
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Applies record to appData by calling the mutation it was recorded from
+    private void apply(AppData appData, JSONObject record) throws AppDataInvalidException,
+            PlayerNotFoundException, RosterNotFoundException {
+        switch (record.getString("op")) {
+            case "addPlayer":
+                appData.addPlayer(record.getString("username"));
+                break;
+            case "renamePlayer":
+                appData.getPlayerByUsername(record.getString("from")).setUsername(record.getString("to"));
+                break;
+            case "setMatchStats":
+                applySetMatchStats(appData, record);
+                break;
+            case "addMatch":
+                applyAddMatch(appData, record);
+                break;
+            case "deleteMatch":
+            case "editMatchResult":
+                applyMatchChange(appData, record);
+                break;
+            default:
+                applyRosterRecord(appData, record);
+        }
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Applies a record that creates, deletes or changes the members of a roster, or passes any other record
+    //          on to applyAggregates
+    private void applyRosterRecord(AppData appData, JSONObject record) throws AppDataInvalidException,
+            PlayerNotFoundException, RosterNotFoundException {
+        switch (record.getString("op")) {
+            case "addRoster":
+                appData.addRoster(record.getString("id"), getPlayers(appData, record.getJSONArray("players")));
+                break;
+            case "deleteRoster":
+                appData.deleteRoster(appData.getRosterById(record.getString("id")));
+                break;
+            case "addRosterPlayer":
+                appData.getRosterById(record.getString("roster"))
+                        .addPlayer(appData.getPlayerByUsername(record.getString("player")));
+                break;
+            case "removeRosterPlayer":
+                appData.getRosterById(record.getString("roster"))
+                        .removePlayer(appData.getPlayerByUsername(record.getString("player")));
+                break;
+            default:
+                applyAggregates(appData, record);
+        }
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Applies an addMatch record, throws AppDataInvalidException if the match would get a different id
+    private void applyAddMatch(AppData appData, JSONObject record) throws AppDataInvalidException,
+            RosterNotFoundException {
+        if (record.getInt("matchId") != appData.getNextMatchId()) {
+            throw new AppDataInvalidException();
+        }
+
+        appData.addMatch(appData.getRosterById(record.getString("roster")), record.getInt("roundsWon"),
+                record.getInt("roundsLost"), record.getString("map"));
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Applies a deleteMatch or editMatchResult record, throws AppDataInvalidException if the match does not
+    //          exist or the corrected result is invalid
+    private void applyMatchChange(AppData appData, JSONObject record) throws AppDataInvalidException {
+        try {
+            if (record.getString("op").equals("deleteMatch")) {
+                appData.deleteMatch(record.getInt("matchId"));
+            } else {
+                appData.editMatchResult(record.getInt("matchId"), record.getInt("roundsWon"),
+                        record.getInt("roundsLost"));
+            }
+        } catch (MatchNotFoundException | MatchInvalidException e) {
+            throw new AppDataInvalidException();
+        }
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Applies a setPlayerAggregates or setRosterResults record, throws AppDataInvalidException if it holds
+    //          the wrong number of values or is any other record
+    private void applyAggregates(AppData appData, JSONObject record) throws AppDataInvalidException,
+            PlayerNotFoundException, RosterNotFoundException {
+        String op = record.getString("op");
+        if (op.equals("setPlayerAggregates")) {
+            Player player = appData.getPlayerByUsername(record.getString("player"));
+            long[] results = toLongs(record.getJSONArray("results"), player.getResults().length);
+            appData.setPlayerAggregates(player, results, toLongs(record.getJSONArray("totals"),
+                    player.getTotals().length));
+        } else if (op.equals("setRosterResults")) {
+            Roster roster = appData.getRosterById(record.getString("roster"));
+            appData.setRosterResults(roster, toLongs(record.getJSONArray("results"), roster.getResults().length));
+        } else {
+            throw new AppDataInvalidException();
+        }
+    }
+
+    // EFFECTS: Returns the values of array, throws AppDataInvalidException unless there are exactly length of them
+    private static long[] toLongs(JSONArray array, int length) throws AppDataInvalidException {
+        if (array.length() != length) {
+            throw new AppDataInvalidException();
+        }
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = array.getLong(i);
+        }
+        return values;
+    }
+
+    // EFFECTS: Returns the players with the usernames in usernames, in order
+    private ArrayList<Player> getPlayers(AppData appData, JSONArray usernames) throws PlayerNotFoundException {
+        ArrayList<Player> players = new ArrayList<>();
+        for (int i = 0; i < usernames.length(); i++) {
+            players.add(appData.getPlayerByUsername(usernames.getString(i)));
+        }
+        return players;
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Applies a setMatchStats record to the player it names
+    private void applySetMatchStats(AppData appData, JSONObject record) throws PlayerNotFoundException {
+        JSONObject stats = record.getJSONObject("stats");
+
+        appData.getPlayerByUsername(record.getString("player")).setMatchStats(record.getInt("matchId"),
+                stats.getInt("totalDamageDealt"), stats.getInt("totalPoints"), stats.getInt("totalKills"),
+                stats.getInt("totalAssists"), stats.getInt("totalDeaths"), stats.getInt("mostValuablePlayerAwards"));
+    }
+}
@@ -1,43 +1,121 @@
 package persistence;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
-import java.util.stream.Stream;
-import org.json.*;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
 
 import model.*;
 import exceptions.AppDataInvalidException;
 
-// Represents a reader that reads app data from a JSON file
+// Represents a reader that reads app data from a JSON, binary or image file
 public class StoreReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
     private final String filePath;
+    private final StoreFormat format;
+    private final boolean lazyMatchHistory;
+    private final ForkJoinPool pool;
 
-    // EFFECTS: Constructs reader to read from source file
+    // EFFECTS: Constructs reader to read from source file in the format its extension selects
     public StoreReader(String filePath) {
+        this(filePath, StoreFormat.forPath(filePath), false, null);
+    }
+
+    // EFFECTS: Constructs reader to read from source file in the format its extension selects, leaving each
+    //          player's match stats in the file until first needed if lazyMatchHistory
+    public StoreReader(String filePath, boolean lazyMatchHistory) {
+        this(filePath, StoreFormat.forPath(filePath), lazyMatchHistory, null);
+    }
+
+    // REQUIRES: pool is not null
+    // EFFECTS: Constructs reader to read from source file in the format its extension selects, scanning players,
+    //          rosters and matches in one pass and then decoding players' match stats concurrently on pool
+    public StoreReader(String filePath, ForkJoinPool pool) {
+        this(filePath, StoreFormat.forPath(filePath), false, pool);
+    }
+
+    // EFFECTS: Constructs reader to read from source file in format
+    public StoreReader(String filePath, StoreFormat format) {
+        this(filePath, format, false, null);
+    }
+
+    // EFFECTS: Constructs reader to read from source file in format, leaving each player's match stats in the
+    //          file until first needed if lazyMatchHistory, or decoding them concurrently on pool if it is not null
+    private StoreReader(String filePath, StoreFormat format, boolean lazyMatchHistory, ForkJoinPool pool) {
         this.filePath = filePath;
+        this.format = format;
+        this.lazyMatchHistory = lazyMatchHistory;
+        this.pool = pool;
     }
 
     // REQUIRES: appData is not null
     // MODIFIES: appData
-    // EFFECTS: Reads app data from file and returns it, throws IOException if an error occurs while reading data
+    // EFFECTS: Reads app data from file and replays any journaled mutations on top of it, throws IOException if
+    //          an error occurs while reading data
     public void read(AppData appData) throws IOException, AppDataInvalidException {
-        String jsonData = readFile(filePath);
-        JSONObject jsonObject = new JSONObject(jsonData);
+        readSnapshot(appData);
 
-        appData.fromJson(jsonObject);
+        new StoreJournal(filePath).replay(appData);
     }
 
-    // REQUIRES: filePath is not null
-    // EFFECTS: Reads source file as a string and returns it
-    private String readFile(String filePath) throws IOException {
-        StringBuilder contentBuilder = new StringBuilder();
+    // REQUIRES: appData is not null
+    // MODIFIES: appData
+    // EFFECTS: Reads app data from file without replaying the journal, throws IOException if an error occurs
+    //          while reading data. When loading match history lazily, the file stays open until every deferred
+    //          history has been decoded.
+    public void readSnapshot(AppData appData) throws IOException, AppDataInvalidException {
+        FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        LazyStoreFile historyFile = defersMatchHistory() && format != StoreFormat.IMAGE
+                ? new LazyStoreFile(channel) : null;
 
-        try (Stream<String> stream = Files.lines(Paths.get(filePath), StandardCharsets.UTF_8)) {
-            stream.forEach(contentBuilder::append);
+        boolean loaded = false;
+        try {
+            decode(channel, historyFile, appData);
+            if (pool != null) {
+                loadMatchHistoryInParallel(appData);
+            }
+            loaded = true;
+        } finally {
+            if (historyFile == null || !loaded) {
+                channel.close();
+            } else {
+                historyFile.release();
+            }
         }
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Decodes the snapshot read from channel into appData, deferring match histories to historyFile if it
+    //          is not null, or to the mapping if loading an image lazily
+    private void decode(FileChannel channel, LazyStoreFile historyFile, AppData appData) throws IOException,
+            AppDataInvalidException {
+        if (format == StoreFormat.BINARY) {
+            new BinaryStoreCodec().decode(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE),
+                    appData, historyFile);
+        } else if (format == StoreFormat.IMAGE) {
+            new ImageStoreCodec().decode(channel, appData, defersMatchHistory());
+        } else {
+            new JsonStoreParser(new JsonTokenReader(channel), appData, historyFile).parse();
+        }
+    }
 
-        return contentBuilder.toString();
+    // EFFECTS: Returns true if players' match stats are left undecoded by the first pass over the file
+    private boolean defersMatchHistory() {
+        return lazyMatchHistory || pool != null;
+    }
+
+    // MODIFIES: appData
+    // EFFECTS: Decodes the deferred match stats of every player in appData concurrently on pool, throws IOException
+    //          if one cannot be read
+    private void loadMatchHistoryInParallel(AppData appData) throws IOException {
+        try {
+            appData.loadPendingMatchStats(pool);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 }
@@ -1,49 +1,99 @@
 package persistence;
 
 import java.io.*;
-
-import model.Event;
-import model.EventLog;
-import org.json.JSONObject;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import model.AppData;
 
-// Represents a writer that writes app data to a JSON file
+// Represents a writer that writes app data to a JSON, binary or image file. Data is written next to the file and
+// moved over it on close, so readers that still hold the previous file keep seeing its contents.
 public class StoreWriter {
+    private static final String TEMP_EXTENSION = ".tmp";
     private static final int INDENT = 4;
-    private PrintWriter writer;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private OutputStream out;
+    private RandomAccessFile image;
+    private JsonTokenWriter writer;
     private final String filePath;
+    private final StoreFormat format;
+    private final boolean compact;
 
-    // EFFECTS: Constructs writer to write data to file at filePath
+    // EFFECTS: Constructs writer to write data to file at filePath in the format its extension selects, JSON
+    //          being indented
     public StoreWriter(String filePath) {
+        this(filePath, StoreFormat.forPath(filePath), false);
+    }
+
+    // EFFECTS: Constructs writer to write data to file at filePath in the format its extension selects, JSON
+    //          being written without indentation or line breaks if compact
+    public StoreWriter(String filePath, boolean compact) {
+        this(filePath, StoreFormat.forPath(filePath), compact);
+    }
+
+    // EFFECTS: Constructs writer to write data to file at filePath in format, JSON being indented
+    public StoreWriter(String filePath, StoreFormat format) {
+        this(filePath, format, false);
+    }
+
+    // EFFECTS: Constructs writer to write data to file at filePath in format, JSON being written without
+    //          indentation or line breaks if compact
+    private StoreWriter(String filePath, StoreFormat format, boolean compact) {
         this.filePath = filePath;
+        this.format = format;
+        this.compact = compact;
     }
 
     // MODIFIES: this
     // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
     // be opened for writing
     public void open() throws FileNotFoundException {
-        writer = new PrintWriter(filePath);
+        if (format == StoreFormat.IMAGE) {
+            image = new RandomAccessFile(filePath + TEMP_EXTENSION, "rw");
+            return;
+        }
+
+        FileOutputStream file = new FileOutputStream(filePath + TEMP_EXTENSION);
+        if (format == StoreFormat.BINARY) {
+            out = new BufferedOutputStream(Channels.newOutputStream(file.getChannel()), BUFFER_SIZE);
+            return;
+        }
+
+        Writer channelWriter = Channels.newWriter(file.getChannel(), StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+        writer = new JsonTokenWriter(new BufferedWriter(channelWriter, BUFFER_SIZE), compact ? 0 : INDENT);
     }
 
     // REQUIRES: appData is not null
     // MODIFIES: this
-    // EFFECTS: Writes JSON representation of appData to file
-    public void write(AppData appData) {
-        JSONObject json = appData.toJson();
-        saveToFile(json.toString(INDENT));
+    // EFFECTS: Writes representation of appData to file one entity at a time, throws IOException if an
+    //          error occurs while writing data
+    public void write(AppData appData) throws IOException {
+        if (format == StoreFormat.BINARY) {
+            new BinaryStoreCodec().encode(appData, out);
+        } else if (format == StoreFormat.IMAGE) {
+            new ImageStoreCodec().encode(appData, image.getChannel());
+        } else {
+            appData.writeJson(writer);
+        }
     }
 
     // MODIFIES: this
-    // EFFECTS: Closes writer
-    public void close() {
-        writer.close();
-    }
+    // EFFECTS: Closes writer, replaces the file with the data written, and truncates the journal the new snapshot
+    //          supersedes, throws IOException if buffered data cannot be written
+    public void close() throws IOException {
+        if (format == StoreFormat.BINARY) {
+            out.close();
+        } else if (format == StoreFormat.IMAGE) {
+            image.close();
+        } else {
+            writer.close();
+        }
+        Files.move(Paths.get(filePath + TEMP_EXTENSION), Paths.get(filePath), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
 
-    // REQUIRES: data is not null
-    // MODIFIES: this
-    // EFFECTS: Writes data string to file
-    private void saveToFile(String data) {
-        writer.print(data);
+        new StoreJournal(filePath).truncate();
     }
 }
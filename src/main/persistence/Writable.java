@@ -1,8 +1,13 @@
 package persistence;
 
+import java.io.IOException;
 import org.json.JSONObject;
 
 public interface Writable {
     // EFFECTS: returns this as JSON object
     JSONObject toJson();
+
+    // MODIFIES: writer
+    // EFFECTS: writes this as a JSON value to writer, with the same members as toJson
+    void writeJson(JsonTokenWriter writer) throws IOException;
 }
\ No newline at end of file
@@ -10,15 +10,23 @@ import persistence.*;
 // Represents the console interface for the application
 public class ConsoleInterface {
     private static final String DATA_STORE_PATH = "./data/app_data.json";
+    private static final long COMPACTION_JOURNAL_BYTES = 4 * 1024 * 1024;
+    private static final long COMPACTION_JOURNAL_AGE_MILLIS = 30 * 60 * 1000;
+    private static final long COMPACTION_CHECK_INTERVAL_MILLIS = 60 * 1000;
     private final StoreReader storeReader;
     private final StoreWriter storeWriter;
+    private final StoreJournal storeJournal;
+    private final JournalCompactor journalCompactor;
     private final Scanner scanner;
     private final AppData appData;
 
     // EFFECTS: Initializes app, displays welcome message and displays application main menu
     public ConsoleInterface() {
-        this.storeReader = new StoreReader(DATA_STORE_PATH);
+        this.storeReader = new StoreReader(DATA_STORE_PATH, true);
         this.storeWriter = new StoreWriter(DATA_STORE_PATH);
+        this.storeJournal = new StoreJournal(DATA_STORE_PATH);
+        this.journalCompactor = new JournalCompactor(DATA_STORE_PATH, storeJournal, COMPACTION_JOURNAL_BYTES,
+                COMPACTION_JOURNAL_AGE_MILLIS);
 
         this.scanner = new Scanner(System.in);
         this.appData = new AppData();
@@ -96,8 +104,12 @@ public class ConsoleInterface {
     private void handleLoadFromFile() {
         try {
             storeReader.read(appData);
+            storeJournal.discardPending();
+            appData.setJournal(storeJournal);
+            journalCompactor.start(COMPACTION_CHECK_INTERVAL_MILLIS);
             System.out.println("Data loaded successfully from " + DATA_STORE_PATH + ".");
         } catch (IOException | AppDataInvalidException e) {
+            detachJournal();
             System.out.println("An error occurred while loading data from " + DATA_STORE_PATH + ": " + e);
         }
     }
@@ -110,21 +122,42 @@ public class ConsoleInterface {
         displayMainMenu();
     }
 
+    // MODIFIES: this
+    // EFFECTS: Stops journaling changes to the app data, dropping any not yet committed, so changes made to what a
+    //          failed load left behind are only saved by writing a full snapshot
+    private void detachJournal() {
+        appData.setJournal(null);
+        storeJournal.discardPending();
+        journalCompactor.stop();
+    }
+
     // EFFECTS: Handles saving data to file from application
     private void handleSaveToFile() {
         try {
-            storeWriter.open();
-            storeWriter.write(appData);
-            storeWriter.close();
+            saveAppData();
             System.out.println("Data saved successfully to " + DATA_STORE_PATH + ".");
         } catch (IOException e) {
             System.out.println("An error occurred while saving data to " + DATA_STORE_PATH + ": " + e);
         }
     }
 
+    // EFFECTS: Appends changes made since the last load or save to the journal, or writes a full snapshot if
+    //          app data is not yet backed by one
+    private void saveAppData() throws IOException {
+        if (appData.getJournal() == storeJournal) {
+            storeJournal.commit();
+            return;
+        }
+
+        journalCompactor.writeSnapshot(appData, storeWriter);
+        storeJournal.discardPending();
+        appData.setJournal(storeJournal);
+        journalCompactor.start(COMPACTION_CHECK_INTERVAL_MILLIS);
+    }
+
     // EFFECTS: Displays matches overview
     private void displayMatchesOverviewMenu() {
-        ArrayList<Match> matches = appData.getMatches();
+        List<Match> matches = appData.getMatches();
 
         if (matches.isEmpty()) {
             System.out.println("No matches have been added yet. \n");
@@ -151,7 +184,7 @@ public class ConsoleInterface {
 
     // REQUIRES: matches is not null
     // EFFECTS: Displays match overview table
-    private void handleMatchesOverviewTable(ArrayList<Match> matches) {
+    private void handleMatchesOverviewTable(List<Match> matches) {
         String overviewFormat = "| %-8d | %-15s | %-9s |%n";
 
         System.out.format("+----------+-----------------+-----------+%n");
@@ -213,7 +246,7 @@ public class ConsoleInterface {
     // EFFECTS: Displays match details table
     private void handleMatchDetailsTable(Match match) {
         String overviewFormat = "| %-15s | %-9s | %-20s | %-5s | %-3s | %-4s |%n";
-        ArrayList<Player> players = match.getPlayers();
+        List<Player> players = match.getPlayers();
 
         System.out.format("+-----------------+-----------+----------------------+-------+-----+------+%n");
         System.out.format("| Map             | Score     | Players              | K/D   | ADR | MVPs |%n");
@@ -491,6 +524,22 @@ public class ConsoleInterface {
         System.out.println("Enter a roster identifier (id): \n");
         String id = scanner.nextLine();
 
+        ArrayList<Player> playersArrayList = readRosterPlayers();
+        if (playersArrayList == null || isDuplicateRoster(playersArrayList)) {
+            displayRosterAddMenu();
+            return;
+        }
+
+        appData.addRoster(id, playersArrayList);
+
+        System.out.println("\nRoster created successfully. To edit this roster, go to the \"Edit rosters\" menu.");
+        System.out.println("Returning to rosters overview. \n");
+        displayRostersOverviewMenu();
+    }
+
+    // EFFECTS: Asks for the usernames of a roster's players and returns those players, or tells the user which
+    //          username has no player and returns null
+    private ArrayList<Player> readRosterPlayers() {
         System.out.println("\nThe usernames of the players in this roster, separated by commas: \n");
         String players = scanner.nextLine();
 
@@ -504,16 +553,23 @@ public class ConsoleInterface {
                 playersArrayList.add(player);
             } catch (PlayerNotFoundException e) {
                 System.out.println("\nNo player with the username " + username + " exists. Try again. \n");
-                displayRosterAddMenu();
-                return;
+                return null;
             }
         }
+        return playersArrayList;
+    }
 
-        appData.addRoster(id, playersArrayList);
-
-        System.out.println("\nRoster created successfully. To edit this roster, go to the \"Edit rosters\" menu.");
-        System.out.println("Returning to rosters overview. \n");
-        displayRostersOverviewMenu();
+    // EFFECTS: Returns true and tells the user which roster it is if a roster with exactly the players in
+    //          playersArrayList already exists
+    private boolean isDuplicateRoster(ArrayList<Player> playersArrayList) {
+        try {
+            Roster existing = appData.getRosterByPlayers(playersArrayList);
+            System.out.println("\nThe roster " + existing.getId() + " already has exactly these players. "
+                    + "Try again. \n");
+            return true;
+        } catch (RosterNotFoundException e) {
+            return false;
+        }
     }
 
     // EFFECTS: Displays roster edit interface
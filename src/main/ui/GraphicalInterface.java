@@ -1,7 +1,9 @@
 package ui;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -11,6 +13,8 @@ import exceptions.PlayerNotFoundException;
 import exceptions.RosterNotFoundException;
 import model.*;
 import model.Event;
+import persistence.JournalCompactor;
+import persistence.StoreJournal;
 import persistence.StoreReader;
 import persistence.StoreWriter;
 import exceptions.AppDataInvalidException;
@@ -18,8 +22,13 @@ import exceptions.AppDataInvalidException;
 // Represents the graphical user interface for Track:GO
 public class GraphicalInterface extends JFrame implements ActionListener {
     private static final String DATA_STORE_PATH = "./data/app_data.json";
+    private static final long COMPACTION_JOURNAL_BYTES = 4 * 1024 * 1024;
+    private static final long COMPACTION_JOURNAL_AGE_MILLIS = 30 * 60 * 1000;
+    private static final long COMPACTION_CHECK_INTERVAL_MILLIS = 60 * 1000;
     private final StoreReader storeReader;
     private final StoreWriter storeWriter;
+    private final StoreJournal storeJournal;
+    private final JournalCompactor journalCompactor;
     private AppData appData;
 
     HashMap<String, Object> rostersOverviewFilters;
@@ -37,8 +46,11 @@ public class GraphicalInterface extends JFrame implements ActionListener {
     public GraphicalInterface() {
         super("Track:GO");
 
-        this.storeReader = new StoreReader(DATA_STORE_PATH);
+        this.storeReader = new StoreReader(DATA_STORE_PATH, true);
         this.storeWriter = new StoreWriter(DATA_STORE_PATH);
+        this.storeJournal = new StoreJournal(DATA_STORE_PATH);
+        this.journalCompactor = new JournalCompactor(DATA_STORE_PATH, storeJournal, COMPACTION_JOURNAL_BYTES,
+                COMPACTION_JOURNAL_AGE_MILLIS);
 
         appData = new AppData();
 
@@ -226,14 +238,14 @@ public class GraphicalInterface extends JFrame implements ActionListener {
         playersOverviewMenu.removeAll();
         String[] columnTitles = {"Player", "Games Played", "Games Won", "Games Lost", "Games Tied", "MVPs"};
 
-        ArrayList<Player> playerList = appData.getPlayers();
+        List<Player> playerList = appData.getSnapshot().getPlayers();
         Object[][] tableData = new Object[playerList.size()][6];
 
         for (int i = 0; i < playerList.size(); i++) {
             Player player = playerList.get(i);
-            Object[] playerData = {player.getUsername(), player.getGamesPlayed(), player.getWins(),
-                    player.getLosses(), (player.getGamesPlayed() - player.getWins() - player.getLosses()),
-                    player.getMostValuablePlayerAwards()};
+            long[] results = player.getResults();
+            Object[] playerData = {player.getUsername(), results[0], results[2], results[3],
+                    (results[0] - results[2] - results[3]), player.getMostValuablePlayerAwards()};
             tableData[i] = playerData;
         }
 
@@ -363,19 +375,19 @@ public class GraphicalInterface extends JFrame implements ActionListener {
     // REQUIRES: rostersOverviewFilters is not null
     // EFFECTS: Gets and puts roster data that fulfills any active filters into tableData 2D array
     private Object[][] populateRostersOverviewTableData(HashMap<String, Object> rostersOverviewFilters) {
-        ArrayList<Roster> rostersList = (ArrayList<Roster>) appData.getRosters().clone();
+        Collection<Roster> rostersList = appData.getSnapshot().getRosters();
 
-        // Filter rostersList for required player
+        // Narrow rostersList to the rosters of the required player
         if (rostersOverviewFilters.get("requiredPlayer") != null) {
-            rostersList.removeIf(r -> !r.getPlayers().contains((Player) rostersOverviewFilters.get("requiredPlayer")));
+            rostersList = appData.getRostersForPlayer((Player) rostersOverviewFilters.get("requiredPlayer"));
         }
 
         Object[][] tableData = new Object[rostersList.size()][3];
 
-        for (int i = 0; i < rostersList.size(); i++) {
-            Roster roster = rostersList.get(i);
+        int i = 0;
+        for (Roster roster : rostersList) {
             Object[] playerData = {roster.getId(), roster.getWinRate(), roster.getPlayers()};
-            tableData[i] = playerData;
+            tableData[i++] = playerData;
         }
 
         return tableData;
@@ -391,7 +403,7 @@ public class GraphicalInterface extends JFrame implements ActionListener {
         JComboBox requiredPlayerSelect = new JComboBox();
         requiredPlayerSelect.addItem("N/A");
 
-        for (Player player : appData.getPlayers()) {
+        for (Player player : appData.getSnapshot().getPlayers()) {
             requiredPlayerSelect.addItem(player.getUsername());
         }
 
@@ -425,13 +437,13 @@ public class GraphicalInterface extends JFrame implements ActionListener {
         addPlayerToRosterMenu.setBorder(BorderFactory.createTitledBorder("Add Player to Roster"));
         JComboBox playerSelect = new JComboBox();
 
-        for (Player player : appData.getPlayers()) {
+        for (Player player : appData.getSnapshot().getPlayers()) {
             playerSelect.addItem(player.getUsername());
         }
 
         JComboBox rosterSelect = new JComboBox();
 
-        for (Roster roster : appData.getRosters()) {
+        for (Roster roster : appData.getSnapshot().getRosters()) {
             rosterSelect.addItem(roster.getId());
         }
 
@@ -478,7 +490,7 @@ public class GraphicalInterface extends JFrame implements ActionListener {
             throw new RuntimeException(e);
         }
 
-        if (selectedRoster.getPlayers().contains(selectedPlayer)) {
+        if (selectedRoster.hasPlayer(selectedPlayer)) {
             JOptionPane.showMessageDialog(contentContainer, selectedPlayer.getUsername() + " is already in "
                     + selectedRoster.getId() + ".", "Error", JOptionPane.WARNING_MESSAGE);
             return;
@@ -496,13 +508,13 @@ public class GraphicalInterface extends JFrame implements ActionListener {
         removePlayerFromRosterMenu.setBorder(BorderFactory.createTitledBorder("Remove Player from Roster"));
         JComboBox playerSelect = new JComboBox();
 
-        for (Player player : appData.getPlayers()) {
+        for (Player player : appData.getSnapshot().getPlayers()) {
             playerSelect.addItem(player.getUsername());
         }
 
         JComboBox rosterSelect = new JComboBox();
 
-        for (Roster roster : appData.getRosters()) {
+        for (Roster roster : appData.getSnapshot().getRosters()) {
             rosterSelect.addItem(roster.getId());
         }
 
@@ -527,7 +539,7 @@ public class GraphicalInterface extends JFrame implements ActionListener {
             throw new RuntimeException(e);
         }
 
-        if (!selectedRoster.getPlayers().contains(selectedPlayer)) {
+        if (!selectedRoster.hasPlayer(selectedPlayer)) {
             JOptionPane.showMessageDialog(contentContainer, selectedPlayer.getUsername() + " is not in "
                     + selectedRoster.getId() + ".", "Error", JOptionPane.WARNING_MESSAGE);
             return;
@@ -591,12 +603,16 @@ public class GraphicalInterface extends JFrame implements ActionListener {
     private void handleLoadFromFile() {
         try {
             storeReader.read(appData);
+            storeJournal.discardPending();
+            appData.setJournal(storeJournal);
+            journalCompactor.start(COMPACTION_CHECK_INTERVAL_MILLIS);
             JOptionPane.showMessageDialog(contentContainer,
                     "Data loaded successfully from " + DATA_STORE_PATH + ".",
                     "Load Successful",
                     JOptionPane.INFORMATION_MESSAGE);
             ((CardLayout) (contentContainer.getLayout())).show(contentContainer, "mainMenu");
         } catch (IOException | AppDataInvalidException e) {
+            detachJournal();
             JOptionPane.showMessageDialog(contentContainer,
                     "An error occurred while loading data from " + DATA_STORE_PATH + ": " + e,
                     "Load Failed",
@@ -604,12 +620,19 @@ public class GraphicalInterface extends JFrame implements ActionListener {
         }
     }
 
+    // MODIFIES: this
+    // EFFECTS: Stops journaling changes to the app data, dropping any not yet committed, so changes made to what a
+    //          failed load left behind are only saved by writing a full snapshot
+    private void detachJournal() {
+        appData.setJournal(null);
+        storeJournal.discardPending();
+        journalCompactor.stop();
+    }
+
     // EFFECTS: Handles saving data to file from application
     private void handleSaveToFile() {
         try {
-            storeWriter.open();
-            storeWriter.write(appData);
-            storeWriter.close();
+            saveAppData();
             JOptionPane.showMessageDialog(contentContainer,
                     "Data saved successfully to " + DATA_STORE_PATH + ".",
                     "Save Successful",
@@ -622,4 +645,19 @@ public class GraphicalInterface extends JFrame implements ActionListener {
                     JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    // MODIFIES: this
+    // EFFECTS: Appends changes made since the last load or save to the journal, or writes a full snapshot if
+    //          app data is not yet backed by one
+    private void saveAppData() throws IOException {
+        if (appData.getJournal() == storeJournal) {
+            storeJournal.commit();
+            return;
+        }
+
+        journalCompactor.writeSnapshot(appData, storeWriter);
+        storeJournal.discardPending();
+        appData.setJournal(storeJournal);
+        journalCompactor.start(COMPACTION_CHECK_INTERVAL_MILLIS);
+    }
 }
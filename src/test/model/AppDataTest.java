@@ -1,12 +1,21 @@
 package model;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.json.JSONObject;
+
 import exceptions.*;
+import persistence.MatchHistorySource;
+import persistence.StoreReader;
 
 public class AppDataTest {
     private AppData appData;
@@ -253,4 +262,876 @@ public class AppDataTest {
             // expected
         }
     }
+
+    @Test
+    void testGetPlayerByUsernameAfterRename() {
+        appData.addPlayer("TestPlayer");
+
+        try {
+            Player player = appData.getPlayerByUsername("TestPlayer");
+            player.setUsername("RenamedPlayer");
+
+            assertEquals(player, appData.getPlayerByUsername("RenamedPlayer"));
+        } catch (PlayerNotFoundException e) {
+            fail("PlayerNotFoundException should not have been thrown");
+        }
+
+        try {
+            appData.getPlayerByUsername("TestPlayer");
+
+            fail("PlayerNotFoundException should have been thrown");
+        } catch (PlayerNotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void testGetRosterByIdAfterDelete() {
+        ArrayList<Player> players = new ArrayList<>();
+        players.add(new Player("TestPlayer1"));
+
+        appData.addRoster("TestRoster", players);
+
+        try {
+            appData.deleteRoster(appData.getRosterById("TestRoster"));
+            appData.getRosterById("TestRoster");
+
+            fail("RosterNotFoundException should have been thrown");
+        } catch (RosterNotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void testGetMatchByIdAfterFromJson() {
+        ArrayList<Player> players = new ArrayList<>();
+        appData.addPlayer("TestPlayer");
+        players.add(appData.getPlayers().get(0));
+        appData.addRoster("TestRoster", players);
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "TestMap");
+        appData.addMatch(appData.getRosters().get(0), 10, 16, "OtherTestMap");
+
+        AppData loaded = new AppData();
+
+        try {
+            loaded.fromJson(appData.toJson());
+
+            assertEquals("OtherTestMap", loaded.getMatchById(1).getMap());
+            assertEquals("TestPlayer", loaded.getPlayerByUsername("TestPlayer").getUsername());
+            assertEquals("TestRoster", loaded.getRosterById("TestRoster").getId());
+        } catch (AppDataInvalidException | MatchNotFoundException | PlayerNotFoundException
+                 | RosterNotFoundException e) {
+            fail("No exception should have been thrown");
+        }
+    }
+
+    @Test
+    void testParallelFromJsonMatchesSequential() {
+        for (int i = 0; i < 50; i++) {
+            appData.addPlayer("Player" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            appData.addRoster("Roster" + i, new ArrayList<>(appData.getPlayers().subList(i, i + 5)));
+        }
+        for (int i = 0; i < 40; i++) {
+            Roster roster = appData.getRosters().get(i % 10);
+            appData.addMatch(roster, 16, i % 17, "Map" + (i % 3));
+            roster.getPlayers().get(0).setMatchStats(i, 100 * i, i, i % 30, 2, 11, i % 2);
+        }
+
+        AppData sequential = new AppData();
+        AppData parallel = new AppData();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            sequential.fromJson(appData.toJson());
+            parallel.fromJson(appData.toJson(), pool);
+
+            assertTrue(sequential.toJson().similar(parallel.toJson()));
+            assertEquals(sequential.getNextMatchId(), parallel.getNextMatchId());
+            assertSame(parallel.getPlayerByUsername("Player7"), parallel.getRosterById("Roster3").getPlayers().get(4));
+            assertSame(parallel.getPlayerByUsername("Player3"), parallel.getMatchById(13).getPlayers().get(0));
+        } catch (AppDataInvalidException | MatchNotFoundException | PlayerNotFoundException
+                 | RosterNotFoundException e) {
+            fail("No exception should have been thrown");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelFromJsonMissingPlayer() {
+        appData.addPlayer("TestPlayer");
+        appData.addRoster("TestRoster", new ArrayList<>(appData.getPlayers()));
+        JSONObject json = appData.toJson();
+        json.getJSONArray("rosters").getJSONObject(0).getJSONArray("playerIds").put(99);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new AppData().fromJson(json, pool);
+            fail("AppDataInvalidException should have been thrown");
+        } catch (AppDataInvalidException e) {
+            // expected
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testMatchStatsFootprintReport() {
+        assertTrue(appData.getMatchStatsFootprintReport().startsWith("0 match stats across 0 players"));
+
+        appData.addPlayer("TestPlayer");
+        for (int i = 0; i < 100; i++) {
+            appData.getPlayers().get(0).setMatchStats(i, 1000, 30, 10, 2, 8, 0);
+        }
+        String report = appData.getMatchStatsFootprintReport();
+        assertTrue(report.startsWith("100 match stats across 1 players"));
+        assertFalse(report.endsWith("(0% saved)"));
+    }
+
+    @Test
+    void testAverageDamagePerRound() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 4, "Dust2");
+        appData.addMatch(appData.getRosters().get(0), 10, 16, "Inferno");
+        appData.addMatch(appData.getRosters().get(0), 16, 14, "Dust2");
+        appData.getPlayers().get(0).setMatchStats(0, 2000, 0, 0, 0, 0, 0);
+        appData.getPlayers().get(1).setMatchStats(0, 1000, 0, 0, 0, 0, 0);
+        appData.getPlayers().get(0).setMatchStats(1, 9999, 0, 0, 0, 0, 0);
+        appData.getPlayers().get(1).setMatchStats(2, 3000, 0, 0, 0, 0, 0);
+
+        assertEquals(6000.0 / 70, appData.getAverageDamagePerRound("Dust2"), 1e-9);
+        assertEquals(9999.0 / 26, appData.getAverageDamagePerRound("Inferno"), 1e-9);
+        assertEquals(0.0, appData.getAverageDamagePerRound("Mirage"));
+    }
+
+    @Test
+    void testLoadPlayerKeepsMatchStats() {
+        Player player = new Player("Player1");
+        player.setMatchStats(0, 2000, 40, 15, 3, 9, 1);
+        loadStored(player);
+        appData.addMatch(new Roster("Roster1", new ArrayList<>(appData.getPlayers())), 16, 4, "Dust2");
+
+        try {
+            assertEquals(2000, player.getMatchStatsById(0).getTotalDamageDealt());
+            assertEquals(9, player.getMatchStatsById(0).getTotalDeaths());
+            assertEquals(100.0, appData.getAverageDamagePerRound("Dust2"));
+        } catch (MatchNotFoundException e) {
+            fail("MatchNotFoundException should not have been thrown");
+        }
+    }
+
+    @Test
+    void testClearAndReloadReleasePendingMatchStats() {
+        AtomicInteger released = new AtomicInteger();
+        Player player1 = new Player("Player1");
+        player1.loadMatchStatsLater(countingReleases(released));
+        loadStored(player1);
+
+        appData.clear();
+        assertEquals(1, released.get());
+        assertFalse(player1.hasPendingMatchStats());
+
+        Player player2 = new Player("Player2");
+        player2.loadMatchStatsLater(countingReleases(released));
+        loadStored(player2);
+        try {
+            appData.fromJson(new AppData().toJson());
+        } catch (AppDataInvalidException e) {
+            fail("AppDataInvalidException should not have been thrown");
+        }
+        assertEquals(2, released.get());
+        assertFalse(player2.hasPendingMatchStats());
+    }
+
+    @Test
+    void testQueriesDecodeUnderWriteLock() {
+        AtomicBoolean readerBlocked = new AtomicBoolean();
+        Player player = new Player("Player1");
+        player.loadMatchStatsLater(decoded -> {
+            Thread reader = new Thread(() -> appData.read(() -> null));
+            reader.start();
+            try {
+                reader.join(100);
+            } catch (InterruptedException e) {
+                fail("InterruptedException should not have been thrown");
+            }
+            readerBlocked.set(reader.isAlive());
+            decoded.loadMatchStats(0, new MatchPerformance(900, 0, 0, 0, 0, 0));
+        });
+        loadStored(player);
+
+        assertEquals(900, appData.summarizeStat(PerformanceStat.DAMAGE).getSum());
+        assertTrue(readerBlocked.get());
+        assertFalse(player.hasPendingMatchStats());
+        try {
+            assertEquals(900, player.getMatchStatsById(0).getTotalDamageDealt());
+        } catch (MatchNotFoundException e) {
+            fail("MatchNotFoundException should not have been thrown");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Loads player into appData as a store would, failing the test if its id is already taken
+    private void loadStored(Player player) {
+        try {
+            appData.loadPlayer(player);
+        } catch (AppDataInvalidException e) {
+            fail("AppDataInvalidException should not have been thrown");
+        }
+    }
+
+    private MatchHistorySource countingReleases(AtomicInteger released) {
+        return new MatchHistorySource() {
+            @Override
+            public void load(Player player) {
+                fail("Match stats should not have been decoded");
+            }
+
+            @Override
+            public void release() {
+                released.incrementAndGet();
+            }
+        };
+    }
+
+    @Test
+    void testSummarizeStat() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addPlayer("Player3");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers().subList(0, 2)));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers().subList(1, 3)));
+        appData.addMatch(appData.getRosters().get(0), 16, 4, "Dust2");
+        appData.addMatch(appData.getRosters().get(1), 10, 16, "Inferno");
+        appData.getPlayers().get(0).setMatchStats(0, 0, 0, 20, 0, 0, 0);
+        appData.getPlayers().get(1).setMatchStats(0, 0, 0, 10, 0, 0, 0);
+        appData.getPlayers().get(1).setMatchStats(1, 0, 0, 5, 0, 0, 0);
+        appData.getPlayers().get(2).setMatchStats(1, 0, 0, 15, 0, 0, 0);
+
+        StatSummary kills = appData.summarizeStat(PerformanceStat.KILLS);
+        assertEquals(4, kills.getCount());
+        assertEquals(50, kills.getSum());
+        assertEquals(5, kills.getMin());
+        assertEquals(20, kills.getMax());
+        assertEquals(30, appData.summarizeStatOnMap(PerformanceStat.KILLS, "Dust2").getSum());
+        assertEquals(0, appData.summarizeStatOnMap(PerformanceStat.KILLS, "Mirage").getCount());
+        assertEquals(20, appData.summarizeStatForRoster(PerformanceStat.KILLS, appData.getRosters().get(1)).getSum());
+        appData.addRoster("Roster3",
+                new ArrayList<>(List.of(appData.getPlayers().get(2), appData.getPlayers().get(1))));
+        assertEquals(20, appData.summarizeStatForRoster(PerformanceStat.KILLS, appData.getRosters().get(2)).getSum());
+        List<Player> selected = List.of(appData.getPlayers().get(0), appData.getPlayers().get(2),
+                appData.getPlayers().get(0));
+        assertEquals(35, appData.summarizeStatForPlayers(PerformanceStat.KILLS, selected).getSum());
+    }
+
+    @Test
+    void testAddMatches() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addPlayer("Player3");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers().subList(0, 2)));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers().subList(1, 3)));
+        appData.addMatch(appData.getRosters().get(0), 16, 4, "Dust2");
+        Player player2 = appData.getPlayers().get(1);
+
+        MatchDescriptor first = new MatchDescriptor(appData.getRosters().get(0), 10, 16, "Inferno");
+        first.setPlayerStats(player2, new MatchPerformance(1800, 40, 14, 2, 17, 0));
+        MatchDescriptor second = new MatchDescriptor(appData.getRosters().get(1), 16, 14, "Dust2");
+        MatchDescriptor third = new MatchDescriptor(appData.getRosters().get(0), 15, 15, "Mirage");
+        try {
+            appData.addMatches(List.of(first, second, third));
+
+            assertEquals(4, appData.getNextMatchId());
+            assertEquals("Mirage", appData.getMatchById(3).getMap());
+            assertEquals(1800, player2.getMatchStatsById(1).getTotalDamageDealt());
+            assertEquals(1800, player2.getTotalDamageDealt());
+            assertEquals(4, player2.getGamesPlayed());
+            assertEquals(106, player2.getRoundsPlayed());
+            assertEquals(2, player2.getWins());
+            assertEquals(1, player2.getLosses());
+            assertEquals(3, appData.getRosters().get(0).getGamesPlayed());
+            assertEquals(1, appData.getRosters().get(1).getWins());
+            assertEquals(1, appData.getPlayers().get(2).getGamesPlayed());
+        } catch (MatchInvalidException | MatchNotFoundException e) {
+            fail("No exception should have been thrown");
+        }
+    }
+
+    @Test
+    void testAddMatchesInvalid() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers().subList(0, 1)));
+        Roster roster = appData.getRosters().get(0);
+        MatchDescriptor valid = new MatchDescriptor(roster, 16, 4, "Dust2");
+        MatchDescriptor outsider = new MatchDescriptor(roster, 16, 4, "Dust2");
+        outsider.setPlayerStats(appData.getPlayers().get(1), new MatchPerformance(0, 0, 0, 0, 0, 0));
+
+        List<List<MatchDescriptor>> batches = List.of(List.of(valid, outsider),
+                List.of(valid, new MatchDescriptor(roster, 17, 4, "Dust2")),
+                List.of(valid, new MatchDescriptor(roster, 16, 4, null)),
+                List.of(valid, new MatchDescriptor(new Roster("Unstored", new ArrayList<>()), 16, 4, "Dust2")));
+        for (List<MatchDescriptor> batch : batches) {
+            try {
+                appData.addMatches(batch);
+                fail("MatchInvalidException should have been thrown");
+            } catch (MatchInvalidException e) {
+                // expected
+            }
+        }
+
+        assertEquals(0, appData.getNextMatchId());
+        assertEquals(0, appData.getMatches().size());
+        assertEquals(0, appData.getPlayers().get(0).getGamesPlayed());
+        assertEquals(0, roster.getGamesPlayed());
+    }
+
+    @Test
+    void testMatchIdIndexes() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addPlayer("Player3");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers().subList(0, 2)));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers().subList(1, 3)));
+        Roster roster1 = appData.getRosters().get(0);
+        Roster roster2 = appData.getRosters().get(1);
+        appData.addMatch(roster1, 16, 4, "Dust2");
+        appData.addMatch(roster2, 10, 16, "Inferno");
+        try {
+            appData.addMatches(List.of(new MatchDescriptor(roster1, 16, 14, "Dust2")));
+        } catch (MatchInvalidException e) {
+            fail("MatchInvalidException should not have been thrown");
+        }
+
+        Player player2 = appData.getPlayers().get(1);
+        assertArrayEquals(new int[] {0, 1, 2}, appData.getMatchIdsForPlayer(player2));
+        assertArrayEquals(new int[] {1}, appData.getMatchIdsForPlayer(appData.getPlayers().get(2)));
+        assertArrayEquals(new int[] {0, 2}, appData.getMatchIdsForRoster(roster1));
+        assertArrayEquals(new int[0], appData.getMatchIdsForPlayer(new Player("Unstored")));
+        assertEquals("Inferno", appData.getMatchesForPlayer(player2).get(1).getMap());
+
+        AppData loaded = new AppData();
+        try {
+            loaded.fromJson(appData.toJson());
+            assertArrayEquals(new int[] {0, 2}, loaded.getMatchIdsForRoster(loaded.getRosterById("Roster1")));
+            assertArrayEquals(new int[] {1}, loaded.getMatchIdsForPlayer(loaded.getPlayerByUsername("Player3")));
+        } catch (AppDataInvalidException | RosterNotFoundException | PlayerNotFoundException e) {
+            fail("No exception should have been thrown");
+        }
+
+        appData.clear();
+        assertArrayEquals(new int[0], appData.getMatchIdsForRoster(roster1));
+    }
+
+    @Test
+    void testDeleteRosterDetachesItsMatches() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("A", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 4, "Dust2");
+        appData.deleteRoster(appData.getRosters().get(0));
+        appData.addRoster("A", new ArrayList<>(appData.getPlayers().subList(1, 2)));
+        Roster reused = appData.getRosters().get(0);
+
+        assertArrayEquals(new int[0], appData.getMatchIdsForRoster(reused));
+        assertNull(appData.getMatches().get(0).getRosterId());
+        assertNull(appData.getSnapshot().getMatches().get(0).getRosterId());
+        assertArrayEquals(new int[] {0}, appData.getMatchIdsForPlayer(appData.getPlayers().get(0)));
+
+        AppData loaded = new AppData();
+        try {
+            loaded.fromJson(appData.toJson());
+            assertArrayEquals(new int[0], loaded.getMatchIdsForRoster(loaded.getRosterById("A")));
+        } catch (AppDataInvalidException | RosterNotFoundException e) {
+            fail("No exception should have been thrown");
+        }
+    }
+
+    @Test
+    void testRostersForPlayer() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        Player player1 = appData.getPlayers().get(0);
+        Player player2 = appData.getPlayers().get(1);
+        appData.addRoster("Roster1", new ArrayList<>(List.of(player1)));
+        appData.addRoster("Roster2", new ArrayList<>(List.of(player1, player2)));
+        appData.addRoster("Roster3", new ArrayList<>(List.of(player2)));
+        Roster roster1 = appData.getRosters().get(0);
+        Roster roster2 = appData.getRosters().get(1);
+        Roster roster3 = appData.getRosters().get(2);
+
+        assertEquals(List.of(roster1, roster2), new ArrayList<>(appData.getRostersForPlayer(player1)));
+        assertEquals(List.of(roster2, roster3), new ArrayList<>(appData.getRostersForPlayer(player2)));
+        assertTrue(appData.getRostersForPlayer(new Player("Unstored")).isEmpty());
+
+        roster3.addPlayer(player1);
+        roster1.addPlayer(player2);
+        assertEquals(List.of(roster1, roster2, roster3), new ArrayList<>(appData.getRostersForPlayer(player2)));
+        assertEquals(List.of(roster1, roster2, roster3), new ArrayList<>(appData.getRostersForPlayer(player1)));
+
+        roster3.addPlayer(player1);
+        roster3.removePlayer(player1);
+        assertTrue(appData.getRostersForPlayer(player1).contains(roster3));
+        roster3.removePlayer(player1);
+        appData.deleteRoster(roster2);
+        assertEquals(List.of(roster1), new ArrayList<>(appData.getRostersForPlayer(player1)));
+        assertEquals(List.of(roster1, roster3), new ArrayList<>(appData.getRostersForPlayer(player2)));
+        assertEquals(List.of(roster1, roster3), appData.getSnapshot().getRosters());
+
+        appData.clear();
+        assertTrue(appData.getRostersForPlayer(player1).isEmpty());
+    }
+
+    @Test
+    void testRosterMemberSets() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addPlayer("Player3");
+        Player player1 = appData.getPlayers().get(0);
+        Player player2 = appData.getPlayers().get(1);
+        Player player3 = appData.getPlayers().get(2);
+        appData.addRoster("Roster1", new ArrayList<>(List.of(player1, player2)));
+        appData.addRoster("Roster2", new ArrayList<>(List.of(player1, player2, player3)));
+        appData.addRoster("Roster3", new ArrayList<>(List.of(player2, player1)));
+        Roster roster1 = appData.getRosters().get(0);
+        Roster roster2 = appData.getRosters().get(1);
+
+        try {
+            assertSame(roster1, appData.getRosterByPlayers(List.of(player2, player1, player2)));
+            assertSame(roster2, appData.getRosterByPlayers(List.of(player3, player2, player1)));
+        } catch (RosterNotFoundException e) {
+            fail("RosterNotFoundException should not have been thrown");
+        }
+        assertEquals(List.of(roster2), appData.getRostersWithAllPlayers(List.of(player1, player3)));
+        assertEquals(3, appData.getRostersWithAllPlayers(List.of(player1)).size());
+        assertEquals(3, appData.getRostersWithAllPlayers(List.of()).size());
+        assertEquals(0, appData.getRostersWithAllPlayers(List.of(new Player("Unstored"))).size());
+        assertTrue(roster1.hasPlayer(player2));
+        assertFalse(roster1.hasPlayer(player3));
+
+        roster2.removePlayer(player3);
+        roster1.addPlayer(player3);
+        assertTrue(roster1.hasPlayer(player3));
+        assertEquals(List.of(roster1), appData.getRostersWithAllPlayers(List.of(player3)));
+        try {
+            assertSame(roster2, appData.getRosterByPlayers(List.of(player1, player2)));
+            assertSame(roster1, appData.getRosterByPlayers(List.of(player1, player2, player3)));
+            appData.deleteRoster(roster1);
+            appData.getRosterByPlayers(List.of(player1, player2, player3));
+            fail("RosterNotFoundException should have been thrown");
+        } catch (RosterNotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void testPlayerIds() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        Player stored = new Player("Player3");
+        stored.loadId(7);
+        loadStored(stored);
+        appData.addPlayer("Player4");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.getPlayers().get(1).setUsername("Renamed");
+
+        try {
+            assertEquals(0, appData.getPlayers().get(0).getId());
+            assertSame(stored, appData.getPlayerById(7));
+            assertEquals(8, appData.getPlayers().get(3).getId());
+
+            AppData loaded = new AppData();
+            loaded.fromJson(appData.toJson());
+            assertEquals("Renamed", loaded.getPlayerById(1).getUsername());
+            assertSame(loaded.getPlayerById(7), loaded.getRosterById("Roster1").getPlayers().get(2));
+            appData.getPlayerById(2);
+            fail("PlayerNotFoundException should have been thrown");
+        } catch (PlayerNotFoundException e) {
+            // expected
+        } catch (AppDataInvalidException | RosterNotFoundException e) {
+            fail("No other exception should have been thrown");
+        }
+    }
+
+    @Test
+    void testDuplicatePlayerIdRejected() {
+        Player first = new Player("Player1");
+        first.loadId(3);
+        Player second = new Player("Player2");
+        second.loadId(3);
+        loadStored(first);
+
+        try {
+            appData.loadPlayer(second);
+            fail("AppDataInvalidException should have been thrown");
+        } catch (AppDataInvalidException e) {
+            // expected
+        }
+        assertEquals(1, appData.getPlayers().size());
+        assertEquals(3, first.getId());
+
+        JSONObject stored = new AppData().toJson();
+        stored.getJSONArray("players").put(first.toJson()).put(second.toJson());
+        try {
+            new AppData().fromJson(stored);
+            fail("AppDataInvalidException should have been thrown");
+        } catch (AppDataInvalidException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void testMatchesShareLineups() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+        appData.addMatch(appData.getRosters().get(1), 12, 16, "Inferno");
+        appData.loadMatch(new Match(2, new ArrayList<>(appData.getPlayers()), 16, 0, "Mirage"));
+        appData.getRosters().get(0).removePlayer(appData.getPlayers().get(1));
+        appData.addMatch(appData.getRosters().get(0), 16, 4, "Nuke");
+
+        Lineup lineup = appData.getMatches().get(0).getPlayers();
+        assertSame(lineup, appData.getMatches().get(1).getPlayers());
+        assertSame(lineup, appData.getMatches().get(2).getPlayers());
+        assertEquals(List.of(appData.getPlayers().get(0)), appData.getMatches().get(3).getPlayers());
+
+        try {
+            AppData loaded = new AppData();
+            loaded.fromJson(appData.toJson());
+            assertSame(loaded.getMatches().get(0).getPlayers(), loaded.getMatches().get(2).getPlayers());
+            assertNotSame(loaded.getMatches().get(0).getPlayers(), loaded.getMatches().get(3).getPlayers());
+        } catch (AppDataInvalidException e) {
+            fail("AppDataInvalidException should not have been thrown");
+        }
+    }
+
+    @Test
+    void testMatchesShareSymbols() {
+        appData.addPlayer("Player1");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, new String("Vertigo"));
+        appData.addMatch(appData.getRosters().get(0), 12, 16, new String("Vertigo"));
+
+        try {
+            AppData loaded = new AppData();
+            loaded.fromJson(appData.toJson());
+            Match first = loaded.getMatchById(0);
+            Match second = loaded.getMatchById(1);
+            assertEquals("Vertigo", first.getMap());
+            assertSame(first.getMap(), second.getMap());
+            assertSame(loaded.getRosterById("Roster1").getId(), first.getRosterId());
+            assertSame(first.getRosterId(), second.getRosterId());
+        } catch (AppDataInvalidException | MatchNotFoundException | RosterNotFoundException e) {
+            fail("No exception should have been thrown");
+        }
+        assertEquals(0, appData.getAverageDamagePerRound("Overpass"));
+    }
+
+    @Test
+    void testMapNamesBelongToAppData() {
+        appData.addPlayer("Player1");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Vertigo");
+        AppData other = new AppData();
+        other.addPlayer("Player1");
+        other.addRoster("Roster1", new ArrayList<>(other.getPlayers()));
+        other.addMatch(other.getRosters().get(0), 16, 10, "Nuke");
+        other.addMatch(other.getRosters().get(0), 16, 10, "Vertigo");
+
+        assertEquals(0, appData.getMatches().get(0).getMapCode());
+        assertEquals(1, other.getMatches().get(1).getMapCode());
+
+        appData.clear();
+        appData.addPlayer("Player1");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Nuke");
+        assertEquals(0, appData.getMatches().get(0).getMapCode());
+        assertEquals(0, appData.getAverageDamagePerRound("Vertigo"));
+    }
+
+    @Test
+    void testConcurrentReadersSeeConsistentCounters() {
+        appData.addPlayer("Player1");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        Player player = appData.getPlayers().get(0);
+        Roster roster = appData.getRosters().get(0);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger inconsistent = new AtomicInteger();
+
+        ArrayList<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(new Thread(() -> {
+                while (writing.get()) {
+                    boolean consistent = appData.read(() -> appData.getMatches().size() == player.getGamesPlayed()
+                            && player.getGamesPlayed() == roster.getGamesPlayed());
+                    if (!consistent || appData.snapshotMatches().size() > appData.getNextMatchId()) {
+                        inconsistent.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        for (int i = 0; i < 2000; i++) {
+            appData.addMatch(roster, 16, i % 16, "Dust2");
+            player.setMatchStats(i, 100, 1, 1, 0, 1, 0);
+        }
+        writing.set(false);
+
+        try {
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        } catch (InterruptedException e) {
+            fail("InterruptedException should not have been thrown");
+        }
+        assertEquals(0, inconsistent.get());
+        assertEquals(2000, appData.getMatchIdsForPlayer(player).length);
+        assertEquals(2000, appData.summarizeStat(PerformanceStat.DAMAGE).getCount());
+    }
+
+    @Test
+    void testSnapshots() {
+        AppDataSnapshot empty = appData.getSnapshot();
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers().subList(0, 1)));
+        Roster roster = appData.getRosters().get(0);
+        appData.addMatch(roster, 16, 10, "Dust2");
+        AppDataSnapshot before = appData.getSnapshot();
+        appData.deleteRoster(appData.getRosters().get(1));
+        appData.addMatch(roster, 12, 16, "Inferno");
+        AppDataSnapshot after = appData.getSnapshot();
+
+        assertTrue(empty.getPlayers().isEmpty());
+        assertTrue(empty.getMatches().isEmpty());
+        assertEquals(appData.getPlayers(), before.getPlayers());
+        assertSame(before.getPlayers(), after.getPlayers());
+        assertEquals(2, before.getRosters().size());
+        assertEquals(List.of(roster), after.getRosters());
+        assertEquals(1, before.getMatches().size());
+        assertEquals(1, before.getNextMatchId());
+        assertEquals(appData.getMatches(), after.getMatches());
+        assertEquals(2, after.getNextMatchId());
+
+        appData.clear();
+        assertTrue(appData.getSnapshot().getRosters().isEmpty());
+        assertEquals(2, after.getMatches().size());
+    }
+
+    @Test
+    void testSnapshotAfterLoad() {
+        appData.addPlayer("Player1");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+
+        try {
+            AppData loaded = new AppData();
+            loaded.fromJson(appData.toJson());
+            assertEquals(loaded.getMatches(), loaded.getSnapshot().getMatches());
+            assertEquals(loaded.getPlayers(), loaded.getSnapshot().getPlayers());
+            assertEquals(1, loaded.getSnapshot().getNextMatchId());
+        } catch (AppDataInvalidException e) {
+            fail("AppDataInvalidException should not have been thrown");
+        }
+    }
+
+    @Test
+    void testRepairAggregates() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers().subList(1, 2)));
+        Player player1 = appData.getPlayers().get(0);
+        Player player2 = appData.getPlayers().get(1);
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+        appData.addMatch(appData.getRosters().get(1), 8, 16, "Inferno");
+        player1.setMatchStats(0, 2000, 40, 20, 3, 10, 1);
+        player2.setMatchStats(1, 1500, 30, 12, 1, 15, 0);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(0, appData.repairAggregates(pool).getRepairedCount());
+
+            player1.loadStat("wins", 7);
+            player2.loadStat("totalKills", 99);
+            appData.getRosters().get(1).loadStat("gamesPlayed", 0);
+            RepairReport report = appData.repairAggregates(pool);
+            assertEquals(3, report.getRepairedCount());
+            assertTrue(report.getUnverifiedRosters().isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(new long[] {1, 26, 1, 0}, player1.getResults());
+        assertArrayEquals(new long[] {2, 50, 1, 1}, player2.getResults());
+        assertArrayEquals(new long[] {1500, 30, 12, 1, 15, 0}, player2.getTotals());
+        assertArrayEquals(new long[] {1, 24, 0, 1}, appData.getRosters().get(1).getResults());
+    }
+
+    @Test
+    void testRepairAggregatesLeavesRostersOfMatchesWithoutRoster() {
+        try {
+            new StoreReader("./data/tests/all_stats.json").read(appData);
+            Roster roster = appData.getRosterById("Roster1");
+
+            RepairReport report = appData.repairAggregates(ForkJoinPool.commonPool());
+            assertEquals(0, report.getRepairedCount());
+            assertEquals(2, report.getUnverifiedRosters().size());
+            assertArrayEquals(new long[] {0, 0, 0, 0}, report.getUnverifiedRosters().get("Roster1"));
+            assertArrayEquals(new long[] {1, 26, 1, 0}, roster.getResults());
+            assertArrayEquals(new long[] {1, 26, 0, 1}, appData.getRosterById("Roster2").getResults());
+        } catch (IOException | AppDataInvalidException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testDeleteMatch() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        Roster roster = appData.getRosters().get(0);
+        Player player = appData.getPlayers().get(0);
+        appData.addMatch(roster, 16, 10, "Dust2");
+        appData.addMatch(roster, 8, 16, "Inferno");
+        appData.addMatch(roster, 16, 14, "Dust2");
+        player.setMatchStats(1, 1500, 30, 12, 1, 15, 0);
+        player.setMatchStats(2, 2000, 40, 20, 3, 10, 1);
+
+        try {
+            appData.deleteMatch(1);
+            appData.getMatchById(1);
+            fail("MatchNotFoundException should have been thrown");
+        } catch (MatchNotFoundException e) {
+            // expected
+        }
+        assertEquals(2, appData.getMatches().size());
+        assertEquals(2, appData.getSnapshot().getMatches().size());
+        assertArrayEquals(new long[] {2, 56, 2, 0}, roster.getResults());
+        assertArrayEquals(new long[] {2, 56, 2, 0}, appData.getPlayers().get(1).getResults());
+        assertArrayEquals(new long[] {2000, 40, 20, 3, 10, 1}, player.getTotals());
+        assertArrayEquals(new int[] {0, 2}, appData.getMatchIdsForPlayer(player));
+        assertArrayEquals(new int[] {0, 2}, appData.getMatchIdsForRoster(roster));
+        assertArrayEquals(new int[] {2}, player.getMatchIds());
+        assertEquals(3, appData.getNextMatchId());
+        assertEquals(0, appData.repairAggregates(ForkJoinPool.commonPool()).getRepairedCount());
+    }
+
+    @Test
+    void testChangeMatchOfDeletedRoster() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("A", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+        appData.addMatch(appData.getRosters().get(0), 16, 12, "Inferno");
+        appData.deleteRoster(appData.getRosters().get(0));
+        appData.addRoster("A", new ArrayList<>(appData.getPlayers().subList(1, 2)));
+        Roster reused = appData.getRosters().get(0);
+
+        try {
+            appData.editMatchResult(1, 10, 16);
+            appData.deleteMatch(0);
+        } catch (MatchNotFoundException | MatchInvalidException e) {
+            fail("No exception should have been thrown");
+        }
+        assertArrayEquals(new long[] {0, 0, 0, 0}, reused.getResults());
+        assertArrayEquals(new long[] {1, 26, 0, 1}, appData.getPlayers().get(0).getResults());
+    }
+
+    @Test
+    void testDeleteMatchRemovesStatsOutsideLineup() {
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers().subList(0, 1)));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+        Player outsider = appData.getPlayers().get(1);
+        outsider.setMatchStats(0, 1500, 30, 12, 1, 15, 0);
+
+        try {
+            appData.deleteMatch(0);
+        } catch (MatchNotFoundException e) {
+            fail("MatchNotFoundException should not have been thrown");
+        }
+        appData.addMatch(appData.getRosters().get(0), 8, 16, "Inferno");
+        assertArrayEquals(new long[] {0, 0, 0, 0, 0, 0}, outsider.getTotals());
+        assertArrayEquals(new int[0], outsider.getMatchIds());
+    }
+
+    @Test
+    void testDeleteLatestMatchAndReload() {
+        appData.addPlayer("Player1");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+        appData.addMatch(appData.getRosters().get(0), 8, 16, "Inferno");
+
+        try {
+            appData.deleteMatch(0);
+            appData.deleteMatch(1);
+            appData.deleteMatch(1);
+            fail("MatchNotFoundException should have been thrown");
+        } catch (MatchNotFoundException e) {
+            // expected
+        }
+        assertEquals(0, appData.getNextMatchId());
+        assertTrue(appData.getMatches().isEmpty());
+        assertEquals(0, appData.getRosters().get(0).getGamesPlayed());
+
+        appData.addMatch(appData.getRosters().get(0), 16, 0, "Mirage");
+        appData.addMatch(appData.getRosters().get(0), 16, 1, "Mirage");
+        try {
+            appData.deleteMatch(0);
+            AppData loaded = new AppData();
+            loaded.fromJson(appData.toJson());
+            assertEquals(2, loaded.getNextMatchId());
+            assertEquals(appData.getNextMatchId(), loaded.getNextMatchId());
+        } catch (MatchNotFoundException | AppDataInvalidException e) {
+            fail("No exception should have been thrown");
+        }
+    }
+
+    @Test
+    void testEditMatchResult() {
+        appData.addPlayer("Player1");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        Roster roster = appData.getRosters().get(0);
+        appData.addMatch(roster, 16, 10, "Dust2");
+        appData.addMatch(roster, 15, 15, "Inferno");
+        AppDataSnapshot before = appData.getSnapshot();
+
+        try {
+            appData.editMatchResult(0, 10, 16);
+            appData.editMatchResult(1, 16, 15);
+            assertEquals(10, appData.getMatchById(0).getRoundsWon());
+            assertEquals("Dust2", appData.getMatchById(0).getMap());
+            assertSame(appData.getMatchById(1), appData.getSnapshot().getMatches().get(1));
+        } catch (MatchNotFoundException | MatchInvalidException e) {
+            fail("No exception should have been thrown");
+        }
+        assertEquals(16, before.getMatches().get(0).getRoundsWon());
+        assertArrayEquals(new long[] {2, 57, 1, 1}, roster.getResults());
+        assertArrayEquals(new long[] {2, 57, 1, 1}, appData.getPlayers().get(0).getResults());
+
+        try {
+            appData.editMatchResult(0, 17, 0);
+            fail("MatchInvalidException should have been thrown");
+        } catch (MatchInvalidException e) {
+            // expected
+        } catch (MatchNotFoundException e) {
+            fail("MatchNotFoundException should not have been thrown");
+        }
+        try {
+            appData.editMatchResult(5, 16, 0);
+            fail("MatchNotFoundException should have been thrown");
+        } catch (MatchNotFoundException e) {
+            // expected
+        } catch (MatchInvalidException e) {
+            fail("MatchInvalidException should not have been thrown");
+        }
+        assertArrayEquals(new long[] {2, 57, 1, 1}, roster.getResults());
+    }
 }
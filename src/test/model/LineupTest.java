@@ -0,0 +1,61 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineupTest {
+    private Player player1;
+    private Player player2;
+    private ArrayList<Player> players;
+
+    @BeforeEach
+    void runBefore() {
+        player1 = new Player("Player1");
+        player2 = new Player("Player2");
+        players = new ArrayList<>(List.of(player1, player2));
+    }
+
+    @Test
+    void testCopyOf() {
+        Lineup lineup = Lineup.copyOf(players);
+        assertEquals(2, lineup.size());
+        assertSame(player1, lineup.get(0));
+        assertSame(player2, lineup.get(1));
+        assertSame(lineup, Lineup.copyOf(lineup));
+
+        players.add(new Player("Player3"));
+        assertEquals(2, lineup.size());
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        Lineup lineup = Lineup.copyOf(players);
+        assertEquals(players, lineup);
+        assertEquals(lineup, players);
+        assertEquals(players.hashCode(), lineup.hashCode());
+        assertEquals(lineup, Lineup.copyOf(new ArrayList<>(players)));
+        assertNotEquals(lineup, Lineup.copyOf(List.of(player2, player1)));
+        assertNotEquals(lineup, Lineup.copyOf(List.of(player1, new Player("Player2"))));
+    }
+
+    @Test
+    void testImmutable() {
+        Lineup lineup = Lineup.copyOf(players);
+        try {
+            lineup.add(new Player("Player3"));
+            fail("UnsupportedOperationException should have been thrown");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            lineup.set(0, player2);
+            fail("UnsupportedOperationException should have been thrown");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchIdListTest {
+    private MatchIdList matchIds;
+
+    @BeforeEach
+    void runBefore() {
+        matchIds = new MatchIdList();
+    }
+
+    @Test
+    void testAddInOrder() {
+        for (int i = 0; i < 10; i++) {
+            matchIds.add(i * 2);
+        }
+
+        assertEquals(10, matchIds.size());
+        assertArrayEquals(new int[] {0, 2, 4, 6, 8, 10, 12, 14, 16, 18}, matchIds.toArray());
+        assertTrue(matchIds.contains(8));
+        assertFalse(matchIds.contains(9));
+    }
+
+    @Test
+    void testAddOutOfOrderAndDuplicates() {
+        matchIds.add(5);
+        matchIds.add(1);
+        matchIds.add(9);
+        matchIds.add(5);
+        matchIds.add(3);
+        matchIds.add(9);
+
+        assertEquals(4, matchIds.size());
+        assertArrayEquals(new int[] {1, 3, 5, 9}, matchIds.toArray());
+    }
+
+    @Test
+    void testRemove() {
+        matchIds.add(1);
+        matchIds.add(3);
+        matchIds.add(5);
+        matchIds.remove(3);
+        matchIds.remove(4);
+
+        assertEquals(2, matchIds.size());
+        assertArrayEquals(new int[] {1, 5}, matchIds.toArray());
+        assertFalse(matchIds.contains(3));
+    }
+}
@@ -0,0 +1,125 @@
+package model;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchIngestQueueTest {
+    private AppData appData;
+    private Roster roster;
+    private ArrayList<AppDataSnapshot> notifications;
+    private MatchIngestQueue queue;
+
+    @BeforeEach
+    void runBefore() {
+        appData = new AppData();
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+        roster = appData.getRosters().get(0);
+        notifications = new ArrayList<>();
+        queue = new MatchIngestQueue(appData, 4, 3, snapshot -> notifications.add(snapshot));
+    }
+
+    @Test
+    void testOfferUntilFull() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(new MatchDescriptor(roster, 16, i, "Dust2")));
+        }
+        assertFalse(queue.offer(new MatchDescriptor(roster, 16, 4, "Dust2")));
+        assertEquals(4, queue.size());
+
+        assertEquals(3, queue.drain());
+        assertEquals(1, queue.size());
+        assertTrue(queue.offer(new MatchDescriptor(roster, 16, 5, "Dust2")));
+        assertEquals(2, queue.drain());
+        assertEquals(0, queue.drain());
+
+        assertEquals(5, appData.getMatches().size());
+        assertEquals(5, roster.getGamesPlayed());
+        assertEquals(5, queue.getAppliedCount());
+        assertEquals(2, notifications.size());
+        assertEquals(3, notifications.get(0).getMatches().size());
+        assertEquals(5, notifications.get(1).getMatches().size());
+    }
+
+    @Test
+    void testDrainSkipsInvalidDescriptors() {
+        MatchDescriptor withStats = new MatchDescriptor(roster, 16, 8, "Inferno");
+        withStats.setPlayerStats(appData.getPlayers().get(0), new MatchPerformance(2000, 50, 20, 4, 10, 1));
+        queue.offer(withStats);
+        queue.offer(new MatchDescriptor(roster, 17, 8, "Inferno"));
+        queue.offer(new MatchDescriptor(roster, 10, 16, "Mirage"));
+
+        assertEquals(3, queue.drain());
+        assertEquals(2, appData.getMatches().size());
+        assertEquals(2, queue.getAppliedCount());
+        assertEquals(1, queue.getRejectedCount());
+        assertEquals(2000, appData.getPlayers().get(0).getTotalDamageDealt());
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    void testCapacityMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new MatchIngestQueue(appData, 6, 3, snapshot -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new MatchIngestQueue(appData, 0, 3, snapshot -> { }));
+    }
+
+    @Test
+    void testApplierSurvivesFailingListener() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException("listener failed");
+        queue = new MatchIngestQueue(appData, 4, 1, snapshot -> {
+            notifications.add(snapshot);
+            if (notifications.size() == 1) {
+                throw failure;
+            }
+        });
+        queue.start();
+        queue.submit(new MatchDescriptor(roster, 16, 4, "Dust2"));
+        queue.submit(new MatchDescriptor(roster, 16, 5, "Dust2"));
+        while (queue.getAppliedCount() < 2) {
+            Thread.sleep(1);
+        }
+        queue.stop();
+
+        assertEquals(2, appData.getMatches().size());
+        assertEquals(2, notifications.size());
+        assertEquals(1, queue.getFailedBatchCount());
+        assertSame(failure, queue.getLastFailure());
+    }
+
+    @Test
+    void testConcurrentSubmitters() {
+        queue = new MatchIngestQueue(appData, 64, 16, snapshot -> notifications.add(snapshot));
+        queue.start();
+        ArrayList<Thread> submitters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            submitters.add(new Thread(() -> {
+                for (int j = 0; j < 500; j++) {
+                    try {
+                        queue.submit(new MatchDescriptor(roster, 16, j % 16, "Dust2"));
+                    } catch (InterruptedException e) {
+                        fail("InterruptedException should not have been thrown");
+                    }
+                }
+            }));
+        }
+        submitters.forEach(Thread::start);
+
+        try {
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+            queue.stop();
+        } catch (InterruptedException e) {
+            fail("InterruptedException should not have been thrown");
+        }
+        assertEquals(0, queue.size());
+        assertEquals(2000, appData.getMatches().size());
+        assertEquals(2000, appData.getPlayers().get(1).getGamesPlayed());
+        assertEquals(1999, appData.getMatches().get(1999).getMatchId());
+        assertTrue(notifications.size() <= 2000 && notifications.size() >= 2000 / 16);
+    }
+}
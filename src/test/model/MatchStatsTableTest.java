@@ -0,0 +1,99 @@
+package model;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchStatsTableTest {
+    private MatchStatsTable table;
+
+    @BeforeEach
+    void runBefore() {
+        table = new MatchStatsTable();
+    }
+
+    @Test
+    void testPutAndGet() {
+        assertEquals(-1, table.get(3));
+        table.put(3, 10);
+        table.put(-7, 11);
+
+        assertEquals(2, table.size());
+        assertTrue(table.containsKey(3));
+        assertTrue(table.containsKey(-7));
+        assertFalse(table.containsKey(4));
+        assertEquals(10, table.get(3));
+        assertEquals(11, table.get(-7));
+    }
+
+    @Test
+    void testPutReplaces() {
+        table.put(3, 10);
+        table.put(3, 12);
+
+        assertEquals(1, table.size());
+        assertEquals(12, table.get(3));
+    }
+
+    @Test
+    void testGrowsPastInitialCapacity() {
+        for (int i = 0; i < 1000; i++) {
+            table.put(i * 8, i);
+        }
+
+        assertEquals(1000, table.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, table.get(i * 8));
+        }
+        assertEquals(-1, table.get(4));
+    }
+
+    @Test
+    void testRemove() {
+        for (int i = 0; i < 200; i++) {
+            table.put(i, i + 1000);
+        }
+        for (int i = 0; i < 200; i += 2) {
+            assertEquals(i + 1000, table.remove(i));
+        }
+
+        assertEquals(-1, table.remove(0));
+        assertEquals(100, table.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 2 == 1, table.containsKey(i));
+        }
+        assertEquals(1199, table.get(199));
+    }
+
+    @Test
+    void testKeysRowsAndClear() {
+        table.put(5, 50);
+        table.put(1, 10);
+        table.put(9, 90);
+
+        int[] keys = table.keys();
+        int[] rows = table.rows();
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(keys[i] * 10, rows[i]);
+        }
+        Arrays.sort(keys);
+        assertArrayEquals(new int[] {1, 5, 9}, keys);
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(0, table.keys().length);
+        assertFalse(table.containsKey(5));
+    }
+
+    @Test
+    void testFootprintSmallerThanBoxedMap() {
+        for (int i = 0; i < 1000; i++) {
+            table.put(i, i);
+        }
+
+        assertTrue(table.footprintBytes() < MatchStatsTable.boxedMapFootprintBytes(table.size()));
+        assertTrue(MatchStatsTable.boxedMapFootprintBytes(0) > 0);
+    }
+}
@@ -46,4 +46,14 @@ public class MatchTest {
         assertEquals("Dust2", m1.getMap());
         assertEquals("Inferno", m2.getMap());
     }
+
+    @Test
+    void testRosterId() {
+        assertEquals("Roster 1", m1.getRosterId());
+        assertEquals("Roster 1", m1.toJson().getString("roster"));
+
+        Match unrecorded = new Match(3, players, 16, 0, "Mirage");
+        assertNull(unrecorded.getRosterId());
+        assertFalse(unrecorded.toJson().has("roster"));
+    }
 }
@@ -0,0 +1,128 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerformanceColumnsTest {
+    private PerformanceColumns columns;
+
+    @BeforeEach
+    void runBefore() {
+        columns = new PerformanceColumns();
+    }
+
+    @Test
+    void testAddAndGet() {
+        int first = columns.add(0, 2100, 50, 18, 5, 12, 2);
+        int second = columns.add(1, -5, 0, 1, 0, 0, 0);
+
+        assertNotEquals(first, second);
+        assertEquals(2, columns.size());
+        assertTrue(new MatchPerformance(2100, 50, 18, 5, 12, 2).toJson().similar(columns.get(first).toJson()));
+        assertEquals(-5, columns.get(second).getTotalDamageDealt());
+
+        columns.set(second, 1, 2, 3, 4, 5, 6);
+        assertEquals(6, columns.get(second).getMostValuablePlayerAwards());
+    }
+
+    @Test
+    void testGrowsAndReusesReleasedRows() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, columns.add(i, i, 0, 0, 0, 0, 0));
+        }
+        columns.release(40);
+
+        assertEquals(99, columns.size());
+        assertEquals(40, columns.add(100, 7, 0, 0, 0, 0, 0));
+        assertEquals(7, columns.get(40).getTotalDamageDealt());
+        assertEquals(99, columns.get(99).getTotalDamageDealt());
+    }
+
+    @Test
+    void testMoveTo() {
+        PerformanceColumns target = new PerformanceColumns();
+        target.add(3, 0, 0, 0, 0, 0, 0);
+        int row = columns.add(5, 900, 20, 7, 1, 3, 1);
+
+        int moved = columns.moveTo(row, target);
+        assertEquals(0, columns.size());
+        assertEquals(2, target.size());
+        assertEquals(900, target.get(moved).getTotalDamageDealt());
+    }
+
+    @Test
+    void testAppendAll() {
+        PerformanceColumns target = new PerformanceColumns();
+        for (int i = 0; i < 10; i++) {
+            target.add(i, 0, 0, 0, 0, 0, 0);
+        }
+        for (int i = 0; i < 20; i++) {
+            columns.add(100 + i, i, 0, 0, 0, 0, 0);
+        }
+        columns.release(3);
+
+        int base = target.appendAll(columns);
+        assertEquals(10, base);
+        assertEquals(29, target.size());
+        assertEquals(19, target.get(base + 19).getTotalDamageDealt());
+        assertEquals(base + 3, target.add(200, 5, 0, 0, 0, 0, 0));
+        assertEquals(19, columns.size());
+    }
+
+    @Test
+    void testAveragePerRound() {
+        columns.add(0, 2000, 0, 0, 0, 0, 0);
+        columns.add(0, 1000, 0, 0, 0, 0, 0);
+        columns.add(1, 4000, 0, 0, 0, 0, 0);
+        int released = columns.add(2, 9999, 0, 0, 0, 0, 0);
+        columns.add(7, 9999, 0, 0, 0, 0, 0);
+        columns.release(released);
+
+        assertEquals(75.0, columns.averagePerRound(PerformanceStat.DAMAGE, new int[] {20, 0, 30}));
+        assertEquals(0.0, columns.averagePerRound(PerformanceStat.DAMAGE, new int[] {0, 0, 30}));
+        assertEquals(0.0, columns.averagePerRound(PerformanceStat.KILLS, new int[] {20, 10}));
+    }
+
+    @Test
+    void testSummarize() {
+        assertEquals(0, columns.summarize(PerformanceStat.KILLS).getCount());
+        for (int i = 0; i < 7; i++) {
+            columns.add(i, 0, 0, i * 3 - 5, 0, 0, 0);
+        }
+
+        StatSummary kills = columns.summarize(PerformanceStat.KILLS);
+        assertEquals(7, kills.getCount());
+        assertEquals(28, kills.getSum());
+        assertEquals(-5, kills.getMin());
+        assertEquals(13, kills.getMax());
+        assertEquals(36.0, kills.getVariance(), 1e-9);
+
+        columns.release(6);
+        columns.release(0);
+        kills = columns.summarize(PerformanceStat.KILLS);
+        assertEquals(5, kills.getCount());
+        assertEquals(20, kills.getSum());
+        assertEquals(-2, kills.getMin());
+        assertEquals(10, kills.getMax());
+    }
+
+    @Test
+    void testSummarizeMatchesAndRows() {
+        int first = columns.add(0, 100, 0, 0, 0, 0, 0);
+        columns.add(1, 200, 0, 0, 0, 0, 0);
+        int third = columns.add(2, 400, 0, 0, 0, 0, 0);
+        columns.add(9, 800, 0, 0, 0, 0, 0);
+
+        StatSummary damage = columns.summarizeMatches(PerformanceStat.DAMAGE, new boolean[] {true, false, true});
+        assertEquals(2, damage.getCount());
+        assertEquals(500, damage.getSum());
+        assertEquals(250.0, damage.getMean());
+
+        damage = columns.summarizeRows(PerformanceStat.DAMAGE, new int[] {third, first});
+        assertEquals(500, damage.getSum());
+        assertEquals(100, damage.getMin());
+        assertEquals(400, damage.getMax());
+        assertEquals(0, columns.summarizeRows(PerformanceStat.DAMAGE, new int[0]).getCount());
+    }
+}
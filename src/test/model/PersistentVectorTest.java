@@ -0,0 +1,119 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentVectorTest {
+
+    @Test
+    void testEmpty() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        assertEquals(0, vector.size());
+        assertTrue(vector.isEmpty());
+
+        try {
+            vector.get(0);
+            fail("IndexOutOfBoundsException should have been thrown");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void testAppendKeepsOlderVersions() {
+        PersistentVector<Integer> first = PersistentVector.<Integer>empty().append(1);
+        PersistentVector<Integer> second = first.append(2);
+        PersistentVector<Integer> branch = first.append(3);
+
+        assertEquals(1, first.size());
+        assertEquals(List.of(1, 2), second);
+        assertEquals(List.of(1, 3), branch);
+
+        try {
+            second.get(-1);
+            fail("IndexOutOfBoundsException should have been thrown");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void testManyLevels() {
+        ArrayList<Integer> expected = new ArrayList<>();
+        ArrayList<PersistentVector<Integer>> versions = new ArrayList<>();
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < 40000; i++) {
+            expected.add(i);
+            vector = vector.append(i);
+            if (i % 1111 == 0) {
+                versions.add(vector);
+            }
+        }
+
+        assertEquals(expected, vector);
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expected.subList(0, i * 1111 + 1), versions.get(i));
+        }
+        assertEquals(expected, PersistentVector.copyOf(expected));
+    }
+
+    @Test
+    void testWith() {
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            expected.add(i);
+        }
+        PersistentVector<Integer> original = PersistentVector.copyOf(expected);
+        PersistentVector<Integer> changed = original.with(5, -5).with(1999, -1999).with(1100, -1100);
+
+        assertEquals(expected, original);
+        expected.set(5, -5);
+        expected.set(1999, -1999);
+        expected.set(1100, -1100);
+        assertEquals(expected, changed);
+    }
+
+    @Test
+    void testWithout() {
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            expected.add(i);
+        }
+        PersistentVector<Integer> original = PersistentVector.copyOf(expected);
+        PersistentVector<Integer> vector = original;
+        for (int i = 0; i < 1500; i++) {
+            int index = (i * 7919) % expected.size();
+            expected.remove(index);
+            vector = vector.without(index);
+        }
+        assertEquals(expected, vector);
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, original.get(i));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            expected.add(-i);
+            vector = vector.append(-i);
+        }
+        vector = vector.with(0, 42).without(vector.size() - 1);
+        expected.set(0, 42);
+        expected.remove(expected.size() - 1);
+        assertEquals(expected, vector);
+    }
+
+    @Test
+    void testWithoutEveryElement() {
+        PersistentVector<Integer> vector = PersistentVector.copyOf(List.of(1, 2, 3));
+        for (int i = 0; i < 100; i++) {
+            vector = vector.append(i);
+        }
+        while (!vector.isEmpty()) {
+            vector = vector.without(0);
+        }
+        assertEquals(List.of(), vector);
+        assertEquals(List.of(5, 6), vector.append(5).append(6));
+    }
+}
@@ -1,5 +1,8 @@
 package model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -91,6 +94,13 @@ class PlayerTest {
         } catch (MatchNotFoundException e) {
             fail("MatchNotFoundException should not have been thrown");
         }
+        assertEquals(2000, p1.getTotalDamageDealt());
+        assertEquals(41, p1.getTotalPoints());
+        assertEquals(3, p1.getMostValuablePlayerAwards());
+
+        p1.setMatchStats(1, 500, 10, 5, 0, 2, 0);
+        p1.setMatchStats(0, 1500, 30, 15, 2, 6, 1);
+        assertArrayEquals(new long[] {2000, 40, 20, 2, 8, 1}, p1.getTotals());
     }
 
     @Test
@@ -153,4 +163,46 @@ class PlayerTest {
     }
 
 
-}
\ No newline at end of file
+
+    @Test
+    void testLoadMatchStatsLater() {
+        p1.loadStat("gamesPlayed", 1);
+        p1.loadMatchStatsLater(player -> player.loadMatchStats(3, new MatchPerformance(2100, 50, 18, 5, 12, 2)));
+        assertTrue(p1.hasPendingMatchStats());
+        assertEquals(1, p1.getGamesPlayed());
+
+        try {
+            assertEquals(18, p1.getMatchStatsById(3).getTotalKills());
+            assertFalse(p1.hasPendingMatchStats());
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        }
+    }
+
+    @Test
+    void testLoadMatchStatsLaterThenSet() {
+        p1.loadMatchStatsLater(player -> player.loadMatchStats(3, new MatchPerformance(2100, 50, 18, 5, 12, 2)));
+        p1.setMatchStats(4, 1500, 32, 10, 3, 16, 0);
+
+        assertArrayEquals(new int[] {3, 4}, p1.getMatchIds());
+        assertEquals(10, p1.getTotalKills());
+    }
+
+    @Test
+    void testLoadMatchStatsLaterFailure() {
+        p1.loadMatchStatsLater(player -> {
+            player.loadMatchStats(3, new MatchPerformance(2100, 50, 18, 5, 12, 2));
+            throw new IOException();
+        });
+
+        try {
+            p1.getMatchStatsById(3);
+            fail("UncheckedIOException was expected");
+        } catch (UncheckedIOException e) {
+            // Expected
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        }
+        assertTrue(p1.hasPendingMatchStats());
+    }
+}
@@ -185,4 +185,27 @@ public class RosterTest {
 
         assertEquals(1, r1.getTies());
     }
+
+    @Test
+    void testConcurrentMatchResults() {
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 5000; j++) {
+                    r1.addMatchResults(1, 26, 1, 0);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            fail("InterruptedException should not have been thrown");
+        }
+        assertArrayEquals(new long[] {20000, 520000, 20000, 0}, r1.getResults());
+        assertEquals(100.0, r1.getWinRate());
+    }
 }
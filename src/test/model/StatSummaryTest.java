@@ -0,0 +1,24 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatSummaryTest {
+    @Test
+    void testEmpty() {
+        StatSummary summary = new StatSummary(0, 0, 0, 0, 0);
+        assertEquals(0, summary.getCount());
+        assertEquals(0.0, summary.getMean());
+        assertEquals(0.0, summary.getVariance());
+    }
+
+    @Test
+    void testMeanAndVariance() {
+        StatSummary summary = new StatSummary(4, 20, 2, 8, 120);
+        assertEquals(20, summary.getSum());
+        assertEquals(2, summary.getMin());
+        assertEquals(8, summary.getMax());
+        assertEquals(5.0, summary.getMean());
+        assertEquals(5.0, summary.getVariance());
+    }
+}
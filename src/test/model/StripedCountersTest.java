@@ -0,0 +1,98 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedCountersTest {
+    private StripedCounters counters;
+
+    @BeforeEach
+    void runBefore() {
+        counters = new StripedCounters(3);
+    }
+
+    @Test
+    void testAddAndSet() {
+        counters.add(1, 2, 3);
+        counters.add(1, 0, -1);
+        assertArrayEquals(new long[] {2, 2, 2}, counters.snapshot());
+
+        counters.set(1, 10);
+        assertEquals(10, counters.get(1));
+        assertEquals(2, counters.get(0));
+    }
+
+    @Test
+    void testLoad() {
+        counters.load(0, 7);
+        counters.load(2, Long.MAX_VALUE);
+        assertArrayEquals(new long[] {7, 0, Long.MAX_VALUE}, counters.snapshot());
+
+        counters.add(1, 1, -1);
+        counters.load(0, 3);
+        assertArrayEquals(new long[] {3, 1, Long.MAX_VALUE - 1}, counters.snapshot());
+    }
+
+    @Test
+    void testBeyondIntRange() {
+        counters.add(Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+        counters.add(Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+        assertEquals(2L * Integer.MAX_VALUE, counters.get(0));
+        assertEquals(Integer.MAX_VALUE, counters.getInt(0));
+        assertEquals(Integer.MIN_VALUE, counters.getInt(1));
+    }
+
+    @Test
+    void testConcurrentAddsAreNotLost() {
+        AtomicBoolean adding = new AtomicBoolean(true);
+        AtomicInteger inconsistent = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (adding.get()) {
+                long[] totals = counters.snapshot();
+                if (totals[0] != totals[1] || totals[2] != 2 * totals[0]) {
+                    inconsistent.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        ArrayList<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            writers.add(new Thread(() -> {
+                for (int j = 0; j < 20000; j++) {
+                    counters.add(1, 1, 2);
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+
+        try {
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            adding.set(false);
+            reader.join();
+        } catch (InterruptedException e) {
+            fail("InterruptedException should not have been thrown");
+        }
+        assertEquals(0, inconsistent.get());
+        assertArrayEquals(new long[] {80000, 80000, 160000}, counters.snapshot());
+
+        counters.set(2, 0);
+        assertArrayEquals(new long[] {80000, 80000, 0}, counters.snapshot());
+    }
+
+    @Test
+    void testSetAll() {
+        counters.add(5, 6, 7);
+        counters.setAll(1, 2, 3);
+        assertArrayEquals(new long[] {1, 2, 3}, counters.snapshot());
+        counters.add(1, 1, 1);
+        assertArrayEquals(new long[] {2, 3, 4}, counters.snapshot());
+    }
+}
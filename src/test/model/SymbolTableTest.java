@@ -0,0 +1,51 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+    private SymbolTable symbols;
+
+    @BeforeEach
+    void runBefore() {
+        symbols = new SymbolTable();
+    }
+
+    @Test
+    void testCodeOf() {
+        assertEquals(0, symbols.codeOf("Dust2"));
+        assertEquals(1, symbols.codeOf("Inferno"));
+        assertEquals(0, symbols.codeOf(new String("Dust2")));
+        assertEquals(2, symbols.size());
+        assertEquals("Inferno", symbols.nameOf(1));
+    }
+
+    @Test
+    void testFind() {
+        symbols.codeOf("Dust2");
+        assertEquals(0, symbols.find("Dust2"));
+        assertEquals(-1, symbols.find("Mirage"));
+        assertEquals(1, symbols.size());
+    }
+
+    @Test
+    void testCanonical() {
+        String first = new String("Roster1");
+        assertSame(first, symbols.canonical(first));
+        assertSame(first, symbols.canonical(new String("Roster1")));
+    }
+
+    @Test
+    void testGrowAndClear() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, symbols.codeOf("Map" + i));
+        }
+        assertEquals("Map73", symbols.nameOf(73));
+
+        symbols.clear();
+        assertEquals(0, symbols.size());
+        assertEquals(-1, symbols.find("Map0"));
+        assertEquals(0, symbols.codeOf("Map50"));
+    }
+}
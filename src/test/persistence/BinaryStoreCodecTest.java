@@ -0,0 +1,280 @@
+package persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.*;
+import exceptions.*;
+
+public class BinaryStoreCodecTest {
+    private static final String TEST_FILES_PATH = "./data/tests/binary_test_file" + StoreFormat.BINARY_EXTENSION;
+    private AppData appData;
+
+    @BeforeEach
+    void runBefore() {
+        appData = new AppData();
+        appData.addPlayer("Player1");
+        appData.addPlayer("Plåyer \"2\"");
+        appData.addPlayer("Player3");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers().subList(0, 2)));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+        appData.addMatch(appData.getRosters().get(1), 12, 16, "Dust2");
+        appData.addMatch(appData.getRosters().get(1), 15, 15, "Inferno");
+        appData.getPlayers().get(0).setMatchStats(0, 2100, 50, 18, 5, 12, 2);
+        appData.getPlayers().get(0).setMatchStats(2, -5, 0, 0, 0, 0, 0);
+        appData.getPlayers().get(2).setMatchStats(1, 1500, 32, 10, 3, 16, 0);
+        appData.setJournalSequence(42);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_FILES_PATH));
+    }
+
+    // EFFECTS: Encodes appData and returns the bytes
+    private byte[] encode(AppData appData) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryStoreCodec().encode(appData, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void testRoundTrip() {
+        try {
+            AppData loaded = new AppData();
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(encode(appData)), loaded);
+
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+            assertEquals(42, loaded.getJournalSequence());
+            assertEquals(3, loaded.getNextMatchId());
+            assertEquals(-5, loaded.getPlayerByUsername("Player1").getMatchStatsById(2).getTotalDamageDealt());
+            assertSame(loaded.getPlayerByUsername("Plåyer \"2\""), loaded.getRosterById("Roster2").getPlayers().get(1));
+            assertSame(loaded.getPlayers().get(2), loaded.getMatchById(1).getPlayers().get(2));
+            assertEquals("Roster2", loaded.getMatchById(1).getRosterId());
+            assertArrayEquals(new int[] {1, 2}, loaded.getMatchIdsForRoster(loaded.getRosterById("Roster2")));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException | RosterNotFoundException | MatchNotFoundException e) {
+            fail("Should not have thrown " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testEmptyAppData() {
+        try {
+            AppData loaded = new AppData();
+            loaded.addPlayer("Stale");
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(encode(new AppData())), loaded);
+
+            assertEquals(0, loaded.getPlayers().size());
+            assertEquals(0, loaded.getRosters().size());
+            assertEquals(0, loaded.getMatches().size());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        }
+    }
+
+    @Test
+    void testUnknownVersion() {
+        try {
+            byte[] bytes = encode(appData);
+            bytes[3] = 99;
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(bytes), new AppData());
+            fail("AppDataInvalidException was expected");
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void testNotBinarySnapshot() {
+        try {
+            byte[] bytes = "{\"players\": []}".getBytes();
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(bytes), new AppData());
+            fail("AppDataInvalidException was expected");
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void testTruncated() {
+        try {
+            byte[] bytes = encode(appData);
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)),
+                    new AppData());
+            fail("EOFException was expected");
+        } catch (EOFException e) {
+            // Expected
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        }
+    }
+
+    @Test
+    void testUnstoredPlayerInRoster() {
+        try {
+            appData.getRosters().get(0).addPlayer(new Player("Unstored"));
+            encode(appData);
+            fail("IOException was expected");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void testSelectedByExtension() {
+        try {
+            StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+            storeWriter.open();
+            storeWriter.write(appData);
+            storeWriter.close();
+
+            byte[] written = Files.readAllBytes(Paths.get(TEST_FILES_PATH));
+            assertArrayEquals(encode(appData), written);
+            assertTrue(written.length * 4 < appData.toJson().toString().length());
+
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH).read(loaded);
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        }
+    }
+
+    @Test
+    void testLazyMatchHistory() {
+        try {
+            StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+            storeWriter.open();
+            storeWriter.write(appData);
+            storeWriter.close();
+
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH, true).read(loaded);
+            assertTrue(loaded.getPlayers().get(0).hasPendingMatchStats());
+            assertEquals(-5, loaded.getPlayers().get(0).getMatchStatsById(2).getTotalDamageDealt());
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        }
+    }
+
+    @Test
+    void testMatchWithoutRoster() {
+        try {
+            appData.loadMatch(new Match(3, new ArrayList<>(appData.getPlayers()), 16, 0, "Mirage"));
+            AppData loaded = new AppData();
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(encode(appData)), loaded);
+
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+            assertNull(loaded.getMatchById(3).getRosterId());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        }
+    }
+
+    @Test
+    void testVersionOneSnapshot() {
+        try {
+            byte[] unframed = {'T', 'G', 'O', 1, 0, 2, 7, 'P', 'l', 'a', 'y', 'e', 'r', '1', 5, 'D', 'u', 's', 't', '2',
+                    1, 0, 2, 2, 0, 2, 0, 0, 0, 0, 0, 0, 1, 0, 2, 6, 8, 10, 12, 14, 0, 1, 0, 32, 12, 1, 1, 0};
+            AppData loaded = new AppData();
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(unframed), loaded);
+
+            Player player = loaded.getPlayerByUsername("Player1");
+            assertEquals(1, player.getGamesPlayed());
+            assertEquals(3, player.getMatchStatsById(0).getTotalPoints());
+            assertEquals("Dust2", loaded.getMatchById(0).getMap());
+            assertSame(player, loaded.getMatchById(0).getPlayers().get(0));
+            assertNull(loaded.getMatchById(0).getRosterId());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException | MatchNotFoundException e) {
+            fail("Should not have thrown " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testPlayerIds() {
+        Player player = new Player("Player4");
+        player.loadId(9);
+        try {
+            appData.loadPlayer(player);
+            appData.getRosters().get(0).addPlayer(player);
+            AppData loaded = new AppData();
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(encode(appData)), loaded);
+
+            assertEquals(2, loaded.getPlayerByUsername("Player3").getId());
+            assertSame(loaded.getPlayers().get(3), loaded.getPlayerById(9));
+            assertSame(loaded.getPlayerById(9), loaded.getRosterById("Roster1").getPlayers().get(2));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testStatsBeyondIntRange() {
+        Player player = new Player("Player4");
+        player.loadStat("totalDeaths", -3L * Integer.MAX_VALUE);
+        player.loadStat("roundsPlayed", Long.MAX_VALUE);
+        Roster roster = new Roster("Roster3", new ArrayList<>(Arrays.asList(player)));
+        roster.loadStat("roundsPlayed", Integer.MAX_VALUE + 1L);
+
+        try {
+            appData.loadPlayer(player);
+            appData.loadRoster(roster);
+            AppData loaded = new AppData();
+            new BinaryStoreCodec().decode(new ByteArrayInputStream(encode(appData)), loaded);
+
+            Player loadedPlayer = loaded.getPlayerByUsername("Player4");
+            assertEquals(-3L * Integer.MAX_VALUE, loadedPlayer.getTotals()[4]);
+            assertEquals(Long.MAX_VALUE, loadedPlayer.getResults()[1]);
+            assertEquals(Integer.MAX_VALUE + 1L, loaded.getRosterById("Roster3").getResults()[1]);
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e.getClass().getSimpleName());
+        }
+    }
+}
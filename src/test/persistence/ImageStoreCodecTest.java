@@ -0,0 +1,296 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.*;
+import exceptions.*;
+
+public class ImageStoreCodecTest {
+    private static final String TEST_FILES_PATH = "./data/tests/image_test_file" + StoreFormat.IMAGE_EXTENSION;
+    private AppData appData;
+
+    @BeforeEach
+    void runBefore() {
+        appData = new AppData();
+        appData.addPlayer("Player1");
+        appData.addPlayer("Plåyer \"2\"");
+        appData.addPlayer("Player3");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers().subList(0, 2)));
+        appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers()));
+        appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+        appData.addMatch(appData.getRosters().get(1), 12, 16, "Dust2");
+        appData.addMatch(appData.getRosters().get(1), 15, 15, "Inferno");
+        appData.getPlayers().get(0).setMatchStats(0, 2100, 50, 18, 5, 12, 2);
+        appData.getPlayers().get(0).setMatchStats(2, -5, 0, 0, 0, 0, 0);
+        appData.getPlayers().get(2).setMatchStats(1, 1500, 32, 10, 3, 16, 0);
+        appData.setJournalSequence(42);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_FILES_PATH));
+    }
+
+    // EFFECTS: Writes appData to TEST_FILES_PATH in the format its extension selects
+    private void write(AppData appData) throws IOException {
+        StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+        storeWriter.open();
+        storeWriter.write(appData);
+        storeWriter.close();
+    }
+
+    // EFFECTS: Overwrites the int at offset of the file at TEST_FILES_PATH with value
+    private void patchInt(int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(TEST_FILES_PATH), StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+            bytes.flip();
+            channel.write(bytes, offset);
+        }
+    }
+
+    @Test
+    void testRoundTrip() {
+        try {
+            write(appData);
+
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH).read(loaded);
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+            assertEquals(42, loaded.getJournalSequence());
+            assertEquals(3, loaded.getNextMatchId());
+            assertEquals(-5, loaded.getPlayerByUsername("Player1").getMatchStatsById(2).getTotalDamageDealt());
+            assertSame(loaded.getPlayerByUsername("Plåyer \"2\""), loaded.getRosterById("Roster2").getPlayers().get(1));
+            assertSame(loaded.getPlayers().get(2), loaded.getMatchById(1).getPlayers().get(2));
+            assertEquals("Roster2", loaded.getMatchById(1).getRosterId());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException | RosterNotFoundException | MatchNotFoundException e) {
+            fail("Should not have thrown " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testOverwriteLargerImage() {
+        try {
+            write(appData);
+            long largerSize = Files.size(Paths.get(TEST_FILES_PATH));
+            write(new AppData());
+            assertTrue(Files.size(Paths.get(TEST_FILES_PATH)) < largerSize);
+
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH).read(loaded);
+            assertEquals(0, loaded.getPlayers().size());
+            assertEquals(0, loaded.getRosters().size());
+            assertEquals(0, loaded.getMatches().size());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        }
+    }
+
+    @Test
+    void testUnknownVersion() {
+        try {
+            write(appData);
+            patchInt(4, 99);
+            new StoreReader(TEST_FILES_PATH).read(new AppData());
+            fail("AppDataInvalidException was expected");
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void testCountsPastEndOfFile() {
+        try {
+            write(appData);
+            patchInt(20, 1000);
+            new StoreReader(TEST_FILES_PATH).read(new AppData());
+            fail("AppDataInvalidException was expected");
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void testReferenceOutOfRange() {
+        try {
+            write(appData);
+            long size = Files.size(Paths.get(TEST_FILES_PATH));
+            int stringBytes = "Player1Plåyer \"2\"Player3Roster1Roster2Dust2Inferno".getBytes("UTF-8").length;
+            patchInt((int) size - stringBytes - Integer.BYTES, 7);
+            new StoreReader(TEST_FILES_PATH).read(new AppData());
+            fail("AppDataInvalidException was expected");
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void testNotImage() {
+        try {
+            Files.writeString(Paths.get(TEST_FILES_PATH), "{\"players\": []}");
+            new StoreReader(TEST_FILES_PATH).read(new AppData());
+            fail("AppDataInvalidException was expected");
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void testVersionOneImage() {
+        ByteBuffer image = ByteBuffer.allocate(85).order(ByteOrder.LITTLE_ENDIAN);
+        image.putInt(0x49474F54).putInt(1).putLong(7);
+        image.putInt(1).putInt(0).putInt(0).putInt(0).putInt(1).putInt(0).putInt(5).putInt(0);
+        image.putInt(0).putInt(5);
+        image.putInt(0).putInt(16).putInt(4).putInt(0).putInt(0).putInt(0);
+        image.put("Dust2".getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.write(Paths.get(TEST_FILES_PATH), image.array());
+
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH).read(loaded);
+            assertEquals(7, loaded.getJournalSequence());
+            assertEquals("Dust2", loaded.getMatchById(0).getMap());
+            assertEquals(20, loaded.getMatchById(0).getTotalRounds());
+            assertNull(loaded.getMatchById(0).getRosterId());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        }
+    }
+
+    @Test
+    void testLazyMatchHistory() {
+        try {
+            write(appData);
+
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH, true).read(loaded);
+            Files.delete(Paths.get(TEST_FILES_PATH));
+
+            assertTrue(loaded.getPlayers().get(0).hasPendingMatchStats());
+            assertEquals(-5, loaded.getPlayers().get(0).getMatchStatsById(2).getTotalDamageDealt());
+            assertFalse(loaded.getPlayers().get(0).hasPendingMatchStats());
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        }
+    }
+
+    @Test
+    void testPlayerIds() {
+        Player player = new Player("Player4");
+        player.loadId(9);
+        try {
+            appData.loadPlayer(player);
+            appData.getRosters().get(0).addPlayer(player);
+            write(appData);
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH).read(loaded);
+
+            assertEquals(2, loaded.getPlayerByUsername("Player3").getId());
+            assertSame(loaded.getPlayers().get(3), loaded.getPlayerById(9));
+            assertSame(loaded.getPlayerById(9), loaded.getRosterById("Roster1").getPlayers().get(2));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testStatsBeyondIntRange() {
+        Player player = new Player("Player4");
+        player.loadStat("totalDeaths", -3L * Integer.MAX_VALUE);
+        player.loadStat("roundsPlayed", Long.MAX_VALUE);
+        ArrayList<Player> players = new ArrayList<>();
+        players.add(player);
+        Roster roster = new Roster("Roster3", players);
+        roster.loadStat("roundsPlayed", Integer.MAX_VALUE + 1L);
+
+        try {
+            appData.loadPlayer(player);
+            appData.loadRoster(roster);
+            write(appData);
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH).read(loaded);
+
+            Player loadedPlayer = loaded.getPlayerByUsername("Player4");
+            assertEquals(-3L * Integer.MAX_VALUE, loadedPlayer.getTotals()[4]);
+            assertEquals(Long.MAX_VALUE, loadedPlayer.getResults()[1]);
+            assertEquals(Integer.MAX_VALUE + 1L, loaded.getRosterById("Roster3").getResults()[1]);
+            assertSame(loadedPlayer, loaded.getRosterById("Roster3").getPlayers().get(0));
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testVersionThreeImage() {
+        ByteBuffer image = ByteBuffer.allocate(119).order(ByteOrder.LITTLE_ENDIAN);
+        image.putInt(0x49474F54).putInt(3).putLong(0);
+        image.putInt(1).putInt(1).putInt(0).putInt(0).putInt(0).putInt(0).putInt(7).putInt(0);
+        image.putInt(0).putInt(7);
+        image.putInt(0);
+        for (int i = 1; i <= 10; i++) {
+            image.putInt(i);
+        }
+        image.putInt(0).putInt(0).putInt(5);
+        image.put("Player1".getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.write(Paths.get(TEST_FILES_PATH), image.array());
+
+            AppData loaded = new AppData();
+            new StoreReader(TEST_FILES_PATH).read(loaded);
+            Player player = loaded.getPlayerById(5);
+            assertEquals("Player1", player.getUsername());
+            assertArrayEquals(new long[] {1, 2, 3, 4}, player.getResults());
+            assertArrayEquals(new long[] {5, 6, 7, 8, 9, 10}, player.getTotals());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException e) {
+            fail("Should not have thrown PlayerNotFoundException");
+        }
+    }
+}
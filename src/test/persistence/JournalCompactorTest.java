@@ -0,0 +1,122 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.*;
+import exceptions.*;
+
+public class JournalCompactorTest {
+    private static final String TEST_FILES_PATH = "./data/tests/compactor_test_file.json";
+    private AppData appData;
+    private StoreJournal journal;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        appData = new AppData();
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+
+        StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+        storeWriter.open();
+        storeWriter.write(appData);
+        storeWriter.close();
+
+        journal = new StoreJournal(TEST_FILES_PATH);
+        appData.setJournal(journal);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_FILES_PATH));
+        journal.truncate();
+    }
+
+    // EFFECTS: Reads the snapshot and journal at TEST_FILES_PATH into a new AppData and returns it
+    private AppData readBack() throws IOException, AppDataInvalidException {
+        AppData loaded = new AppData();
+        new StoreReader(TEST_FILES_PATH).read(loaded);
+        return loaded;
+    }
+
+    // EFFECTS: Adds a match and match stats to appData and commits them to the journal
+    private void addMatch() throws IOException, RosterNotFoundException {
+        appData.addMatch(appData.getRosterById("Roster1"), 16, 10, "Dust2");
+        appData.getPlayers().get(0).setMatchStats(appData.getNextMatchId() - 1, 2100, 50, 18, 5, 12, 2);
+        journal.commit();
+    }
+
+    @Test
+    void testCompact() {
+        JournalCompactor compactor = new JournalCompactor(TEST_FILES_PATH, journal, Long.MAX_VALUE, Long.MAX_VALUE);
+
+        try {
+            addMatch();
+            addMatch();
+            compactor.compact();
+
+            assertEquals(0, journal.size());
+            assertEquals(1, compactor.getCompactionCount());
+            assertTrue(compactor.getLastCompactionMillis() >= 0);
+            assertEquals(compactor.getLastBytesReclaimed(), compactor.getTotalBytesReclaimed());
+            assertTrue(appData.toJson().similar(readBack().toJson()));
+
+            addMatch();
+            assertTrue(appData.toJson().similar(readBack().toJson()));
+        } catch (IOException | AppDataInvalidException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testReplaySkipsRecordsInSnapshot() {
+        try {
+            addMatch();
+            AppData folded = readBack();
+            byte[] foldedJournal = Files.readAllBytes(journal.getJournalPath());
+            StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+            storeWriter.open();
+            storeWriter.write(folded);
+            storeWriter.close();
+
+            // Simulate a compaction interrupted after the snapshot was swapped but before the journal was
+            Files.write(journal.getJournalPath(), foldedJournal);
+            addMatch();
+
+            assertTrue(appData.toJson().similar(readBack().toJson()));
+        } catch (IOException | AppDataInvalidException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testCompactIfDue() {
+        JournalCompactor bySize = new JournalCompactor(TEST_FILES_PATH, journal, 1, Long.MAX_VALUE);
+        JournalCompactor notDue = new JournalCompactor(TEST_FILES_PATH, journal, Long.MAX_VALUE, Long.MAX_VALUE);
+        JournalCompactor byAge = new JournalCompactor(TEST_FILES_PATH, journal, Long.MAX_VALUE, 0);
+
+        try {
+            assertFalse(bySize.compactIfDue());
+
+            addMatch();
+            assertFalse(notDue.compactIfDue());
+            assertTrue(bySize.compactIfDue());
+            assertEquals(0, journal.size());
+
+            addMatch();
+            assertTrue(byAge.compactIfDue());
+            assertEquals(0, notDue.getCompactionCount());
+            assertTrue(appData.toJson().similar(readBack().toJson()));
+        } catch (IOException | AppDataInvalidException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonTokenReaderTest {
+    // EFFECTS: Returns a token reader over the UTF-8 bytes of json
+    private JsonTokenReader readerFor(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new JsonTokenReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void testObjectMembers() {
+        JsonTokenReader reader = readerFor("{ \"a\": 1,\n\t\"b\": \"two\", \"c\": -3 }");
+
+        try {
+            reader.beginObject();
+            assertTrue(reader.hasNext());
+            assertEquals("a", reader.nextName());
+            assertEquals(1, reader.nextInt());
+            assertTrue(reader.hasNext());
+            assertEquals("b", reader.nextName());
+            assertTrue(reader.peekString());
+            assertEquals("two", reader.nextString());
+            assertTrue(reader.hasNext());
+            assertEquals("c", reader.nextName());
+            assertEquals(-3, reader.nextInt());
+            assertFalse(reader.hasNext());
+            reader.endObject();
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+
+    @Test
+    void testEmptyArray() {
+        JsonTokenReader reader = readerFor("[]");
+
+        try {
+            reader.beginArray();
+            assertFalse(reader.hasNext());
+            reader.endArray();
+            assertEquals(2, reader.position());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+
+    @Test
+    void testStringEscapes() {
+        JsonTokenReader reader = readerFor("[\"q\\\"b\\\\s\\/n\\n\\u00e9\\ud83d\\ude00\", \"déjà\"]");
+
+        try {
+            reader.beginArray();
+            assertTrue(reader.hasNext());
+            assertEquals("q\"b\\s/n\né😀", reader.nextString());
+            assertTrue(reader.hasNext());
+            assertEquals("déjà", reader.nextString());
+            assertFalse(reader.hasNext());
+            reader.endArray();
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+
+    @Test
+    void testSkipValue() {
+        JsonTokenReader reader = readerFor("{\"skip\": {\"x\": [1, \"]}\", {\"y\": null}]}, \"keep\": 2.0}");
+
+        try {
+            reader.beginObject();
+            assertEquals("skip", reader.nextName());
+            reader.skipValue();
+            assertTrue(reader.hasNext());
+            assertEquals("keep", reader.nextName());
+            assertEquals(2, reader.nextInt());
+            reader.endObject();
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+
+    @Test
+    void testMalformedInput() {
+        JsonTokenReader reader = readerFor("{\"a\" 1}");
+
+        try {
+            reader.beginObject();
+            reader.nextName();
+            fail("JSONException expected");
+        } catch (JSONException e) {
+            // Expected
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+
+    @Test
+    void testUnexpectedEndOfInput() {
+        JsonTokenReader reader = readerFor("[\"unterminated");
+
+        try {
+            reader.beginArray();
+            reader.nextString();
+            fail("JSONException expected");
+        } catch (JSONException e) {
+            // Expected
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package persistence;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonTokenWriterTest {
+    // EFFECTS: Writes a small nested document to a writer with indent and returns the output
+    private String writeSample(int indent) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonTokenWriter writer = new JsonTokenWriter(out, indent);
+
+        writer.beginObject();
+        writer.name("empty").beginObject().endObject();
+        writer.name("list").beginArray().value(1).value("two").endArray();
+        writer.name("none").beginArray().endArray();
+        writer.endObject();
+        writer.flush();
+
+        return out.toString();
+    }
+
+    @Test
+    void testIndented() {
+        try {
+            String expected = "{\n    \"empty\": {},\n    \"list\": [\n        1,\n        \"two\"\n    ],\n"
+                    + "    \"none\": []\n}";
+            assertEquals(expected, writeSample(4));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+
+    @Test
+    void testCompact() {
+        try {
+            assertEquals("{\"empty\":{},\"list\":[1,\"two\"],\"none\":[]}", writeSample(0));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+
+    @Test
+    void testStringEscapes() {
+        StringWriter out = new StringWriter();
+        JsonTokenWriter writer = new JsonTokenWriter(out, 0);
+        String value = "q\"b\\s\n\t\u0001é";
+
+        try {
+            writer.beginObject().name("value").value(value).endObject();
+            writer.flush();
+
+            assertEquals(value, new JSONObject(out.toString()).getString("value"));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.*;
+import exceptions.*;
+
+public class StoreJournalTest {
+    private static final String TEST_FILES_PATH = "./data/tests/journal_test_file.json";
+    private AppData appData;
+    private StoreJournal journal;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        appData = new AppData();
+        appData.addPlayer("Player1");
+        appData.addPlayer("Player2");
+        appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+
+        StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+        storeWriter.open();
+        storeWriter.write(appData);
+        storeWriter.close();
+
+        journal = new StoreJournal(TEST_FILES_PATH);
+        appData.setJournal(journal);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(Paths.get(TEST_FILES_PATH));
+        journal.truncate();
+    }
+
+    // EFFECTS: Reads the snapshot and journal at TEST_FILES_PATH into a new AppData and returns it
+    private AppData readBack() throws IOException, AppDataInvalidException {
+        AppData loaded = new AppData();
+        new StoreReader(TEST_FILES_PATH).read(loaded);
+        return loaded;
+    }
+
+    @Test
+    void testReplayAllMutations() {
+        try {
+            appData.addPlayer("Player3");
+            Roster roster = appData.getRosterById("Roster1");
+            roster.addPlayer(appData.getPlayerByUsername("Player3"));
+            appData.addMatch(roster, 16, 10, "Dust2");
+            appData.getPlayerByUsername("Player1").setMatchStats(0, 2100, 50, 18, 5, 12, 2);
+            roster.removePlayer(appData.getPlayerByUsername("Player2"));
+            appData.getPlayerByUsername("Player2").setUsername("Renamed");
+            appData.addRoster("Roster2", new ArrayList<>(appData.getPlayers()));
+            appData.deleteRoster(appData.getRosterById("Roster2"));
+            journal.commit();
+
+            AppData loaded = readBack();
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+            assertEquals(1, loaded.getNextMatchId());
+            assertNull(loaded.getJournal());
+        } catch (IOException | AppDataInvalidException | PlayerNotFoundException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testReplayAddMatches() {
+        try {
+            Roster roster = appData.getRosterById("Roster1");
+            MatchDescriptor first = new MatchDescriptor(roster, 16, 10, "Dust2");
+            first.setPlayerStats(appData.getPlayerByUsername("Player2"), new MatchPerformance(900, 20, 7, 1, 3, 1));
+            appData.addMatches(List.of(first, new MatchDescriptor(roster, 8, 16, "Inferno")));
+            journal.commit();
+
+            AppData loaded = readBack();
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+            assertEquals(2, loaded.getNextMatchId());
+        } catch (IOException | AppDataInvalidException | PlayerNotFoundException | RosterNotFoundException
+                 | MatchInvalidException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testReplayRepairAggregates() {
+        try {
+            Roster roster = appData.getRosterById("Roster1");
+            Player player1 = appData.getPlayerByUsername("Player1");
+            appData.addMatch(roster, 16, 10, "Dust2");
+            player1.setMatchStats(0, 2100, 50, 18, 5, 12, 2);
+            player1.loadStat("totalKills", 0);
+            roster.loadStat("wins", 3);
+            StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+            storeWriter.open();
+            storeWriter.write(appData);
+            storeWriter.close();
+
+            assertEquals(2, appData.repairAggregates(ForkJoinPool.commonPool()).getRepairedCount());
+            journal.commit();
+
+            AppData repaired = readBack();
+            assertEquals(18, repaired.getPlayerByUsername("Player1").getTotals()[2]);
+            assertEquals(1, repaired.getRosterById("Roster1").getWins());
+            assertTrue(appData.toJson().similar(repaired.toJson()));
+            assertEquals(4, repaired.getJournalSequence());
+        } catch (IOException | AppDataInvalidException | PlayerNotFoundException | RosterNotFoundException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testReplayMatchCorrections() {
+        try {
+            Roster roster = appData.getRosterById("Roster1");
+            appData.addMatch(roster, 16, 10, "Dust2");
+            appData.addMatch(roster, 8, 16, "Inferno");
+            appData.getPlayerByUsername("Player1").setMatchStats(1, 2100, 50, 18, 5, 12, 2);
+            appData.editMatchResult(0, 16, 12);
+            appData.deleteMatch(1);
+            appData.addMatch(roster, 16, 3, "Mirage");
+            journal.commit();
+
+            AppData loaded = readBack();
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+            assertEquals(2, loaded.getNextMatchId());
+        } catch (IOException | AppDataInvalidException | PlayerNotFoundException | RosterNotFoundException
+                 | MatchNotFoundException | MatchInvalidException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testUncommittedRecordsNotReplayed() {
+        try {
+            appData.addPlayer("Player3");
+            assertTrue(journal.hasPending());
+            journal.discardPending();
+            assertFalse(journal.hasPending());
+            journal.commit();
+
+            assertEquals(0, journal.size());
+            assertEquals(2, readBack().getPlayers().size());
+        } catch (IOException | AppDataInvalidException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testSnapshotTruncatesJournal() {
+        try {
+            appData.addPlayer("Player3");
+            journal.commit();
+            assertTrue(journal.size() > 0);
+
+            StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH);
+            storeWriter.open();
+            storeWriter.write(appData);
+            storeWriter.close();
+
+            assertEquals(0, journal.size());
+            assertEquals(3, readBack().getPlayers().size());
+        } catch (IOException | AppDataInvalidException e) {
+            fail("Should not have thrown " + e);
+        }
+    }
+
+    @Test
+    void testInvalidRecord() {
+        try {
+            Files.write(journal.getJournalPath(),
+                    "{\"op\":\"addRosterPlayer\",\"roster\":\"Roster1\",\"player\":\"Nobody\"}\n"
+                            .getBytes(StandardCharsets.UTF_8));
+
+            readBack();
+            fail("Should have thrown AppDataInvalidException");
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            // Expected
+        }
+    }
+}
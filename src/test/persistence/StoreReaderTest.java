@@ -1,13 +1,20 @@
 package persistence;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import exceptions.MatchNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.json.JSONObject;
+
 import model.*;
 import exceptions.AppDataInvalidException;
+import exceptions.PlayerNotFoundException;
 
 public class StoreReaderTest {
     private static final String TEST_FILES_ROOT_PATH = "./data/tests/";
@@ -348,6 +355,32 @@ public class StoreReaderTest {
         }
     }
 
+    @Test
+    void testPlayerIds() {
+        StoreReader storeReader = new StoreReader(TEST_FILES_ROOT_PATH + "player_ids.json");
+
+        try {
+            storeReader.read(appData);
+            Player player1 = appData.getPlayerByUsername("Player1");
+            Player player2 = appData.getPlayerByUsername("Player2");
+            assertEquals(2, player1.getId());
+            assertSame(player2, appData.getPlayerById(5));
+            assertSame(player2, appData.getRosters().get(0).getPlayers().get(0));
+            assertSame(player1, appData.getMatches().get(0).getPlayers().get(1));
+            assertArrayEquals(new int[] {0}, appData.getMatchIdsForPlayer(player1));
+            assertEquals(1, appData.getRostersForPlayer(player2).size());
+
+            appData.addPlayer("Player3");
+            assertEquals(6, appData.getPlayerByUsername("Player3").getId());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (PlayerNotFoundException e) {
+            fail("Should not have thrown PlayerNotFoundException");
+        }
+    }
+
     @Test
     void testInvalidPlayerInRoster() {
         StoreReader storeReader = new StoreReader(TEST_FILES_ROOT_PATH + "invalid_roster.json");
@@ -375,4 +408,141 @@ public class StoreReaderTest {
             // Expected
         }
     }
+
+    @Test
+    void testMatchesJsonObjectLoad() {
+        StoreReader storeReader = new StoreReader(TEST_FILES_ROOT_PATH + "all_stats.json");
+
+        try {
+            storeReader.read(appData);
+
+            AppData expected = new AppData();
+            expected.fromJson(new JSONObject(Files.readString(Paths.get(TEST_FILES_ROOT_PATH + "all_stats.json"))));
+
+            assertTrue(expected.toJson().similar(appData.toJson()));
+            assertEquals(expected.getNextMatchId(), appData.getNextMatchId());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        }
+    }
+
+    @Test
+    void testLazyMatchHistoryLoad() {
+        StoreReader storeReader = new StoreReader(TEST_FILES_ROOT_PATH + "all_stats.json", true);
+
+        try {
+            storeReader.read(appData);
+            Player player = appData.getPlayers().get(0);
+            assertTrue(player.hasPendingMatchStats());
+            assertEquals(2, player.getGamesPlayed());
+
+            assertEquals(16, player.getMatchStatsById(0).getTotalKills());
+            assertFalse(player.hasPendingMatchStats());
+
+            AppData expected = new AppData();
+            new StoreReader(TEST_FILES_ROOT_PATH + "all_stats.json").read(expected);
+            assertTrue(expected.toJson().similar(appData.toJson()));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        }
+    }
+
+    @Test
+    void testLazyMatchHistoryAfterSave() {
+        String filePath = TEST_FILES_ROOT_PATH + "lazy_test_file.json";
+
+        try {
+            Files.copy(Paths.get(TEST_FILES_ROOT_PATH + "all_stats.json"), Paths.get(filePath));
+            new StoreReader(filePath, true).read(appData);
+
+            StoreWriter storeWriter = new StoreWriter(filePath);
+            storeWriter.open();
+            storeWriter.write(new AppData());
+            storeWriter.close();
+
+            assertEquals(16, appData.getPlayers().get(0).getMatchStatsById(0).getTotalKills());
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } catch (MatchNotFoundException e) {
+            fail("Should not have thrown MatchNotFoundException");
+        } finally {
+            try {
+                Files.deleteIfExists(Paths.get(filePath));
+            } catch (IOException e) {
+                fail("Should not have thrown IOException");
+            }
+        }
+    }
+
+    @Test
+    void testParallelLoad() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        StoreReader storeReader = new StoreReader(TEST_FILES_ROOT_PATH + "all_stats.json", pool);
+
+        try {
+            storeReader.read(appData);
+            for (Player player : appData.getPlayers()) {
+                assertFalse(player.hasPendingMatchStats());
+            }
+
+            AppData expected = new AppData();
+            new StoreReader(TEST_FILES_ROOT_PATH + "all_stats.json").read(expected);
+            assertTrue(expected.toJson().similar(appData.toJson()));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testStatsBeyondIntRange() {
+        String filePath = TEST_FILES_ROOT_PATH + "wide_stats_test_file.json";
+        Player player = new Player("Player1");
+        player.loadStat("totalDamageDealt", 3L * Integer.MAX_VALUE);
+        player.loadStat("gamesPlayed", Integer.MAX_VALUE + 5L);
+        ArrayList<Player> players = new ArrayList<>();
+        players.add(player);
+        Roster roster = new Roster("Roster1", players);
+        roster.loadStat("wins", Integer.MAX_VALUE + 1L);
+
+        try {
+            appData.loadPlayer(player);
+            appData.loadRoster(roster);
+            StoreWriter storeWriter = new StoreWriter(filePath);
+            storeWriter.open();
+            storeWriter.write(appData);
+            storeWriter.close();
+            AppData loaded = new AppData();
+            new StoreReader(filePath).read(loaded);
+            AppData fromJson = new AppData();
+            fromJson.fromJson(appData.toJson());
+
+            for (AppData reloaded : new AppData[] {loaded, fromJson}) {
+                assertEquals(3L * Integer.MAX_VALUE, reloaded.getPlayers().get(0).getTotals()[0]);
+                assertEquals(Integer.MAX_VALUE + 5L, reloaded.getPlayers().get(0).getResults()[0]);
+                assertEquals(Integer.MAX_VALUE + 1L, reloaded.getRosters().get(0).getResults()[2]);
+            }
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        } finally {
+            try {
+                Files.deleteIfExists(Paths.get(filePath));
+            } catch (IOException e) {
+                fail("Should not have thrown IOException");
+            }
+        }
+    }
 }
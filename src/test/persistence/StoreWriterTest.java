@@ -1,5 +1,7 @@
 package persistence;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 
 import exceptions.MatchNotFoundException;
@@ -7,6 +9,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.json.JSONObject;
+
 import model.*;
 import exceptions.AppDataInvalidException;
 
@@ -326,4 +330,33 @@ public class StoreWriterTest {
             fail("Should not have thrown AppDataInvalidException");
         }
     }
+
+    @Test
+    void testCompactMatchesJsonObject() {
+        try {
+            StoreWriter storeWriter = new StoreWriter(TEST_FILES_PATH, true);
+            storeWriter.open();
+            AppData appData = new AppData();
+            appData.addPlayer("Player \"1\"");
+            appData.addPlayer("Player2");
+            appData.addRoster("Roster1", new ArrayList<>(appData.getPlayers()));
+            appData.addMatch(appData.getRosters().get(0), 16, 10, "Dust2");
+            appData.getPlayers().get(1).setMatchStats(0, 2100, 50, 18, 5, 12, 2);
+            storeWriter.write(appData);
+            storeWriter.close();
+
+            String written = Files.readString(Paths.get(TEST_FILES_PATH));
+            assertFalse(written.contains("\n"));
+            assertTrue(appData.toJson().similar(new JSONObject(written)));
+
+            StoreReader storeReader = new StoreReader(TEST_FILES_PATH);
+            AppData loaded = new AppData();
+            storeReader.read(loaded);
+            assertTrue(appData.toJson().similar(loaded.toJson()));
+        } catch (IOException e) {
+            fail("Should not have thrown IOException");
+        } catch (AppDataInvalidException e) {
+            fail("Should not have thrown AppDataInvalidException");
+        }
+    }
 }